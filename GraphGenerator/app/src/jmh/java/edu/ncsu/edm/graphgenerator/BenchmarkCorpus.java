@@ -0,0 +1,84 @@
+package edu.ncsu.edm.graphgenerator;
+
+import com.github.javaparser.ast.body.MethodDeclaration;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+/**
+ * The fixed inputs every benchmark runs on: the feature methods in {@link App#testMethods}, scaled-up copies of them
+ * that stand in for large student methods, and the synthetic dataset under {@code src/jmh/resources/corpus} laid out
+ * like one of the real data directories.
+ */
+final class BenchmarkCorpus {
+    static final String[] DATASET_FILES = { "Data/MainTable.csv", "Data/CodeStates/CodeStates.csv" };
+
+    private BenchmarkCorpus() {}
+
+    static CodeState codeState(String feature) {
+        return codeState(feature, 1);
+    }
+
+    /**
+     * Builds a code state for one of the feature methods whose body has been repeated {@code copies} times, which
+     * grows the CFG linearly without changing the mix of constructs in it.
+     */
+    static CodeState codeState(String feature, int copies) {
+        String method = App.testMethods.get(feature);
+        if (method == null) {
+            throw new IllegalArgumentException("There is no test method for " + feature);
+        }
+
+        int bodyStart = method.indexOf('{') + 1;
+        int bodyEnd = method.lastIndexOf('}');
+        String body = method.substring(bodyStart, bodyEnd);
+        StringBuilder code = new StringBuilder(method.length() * copies).append(method, 0, bodyStart);
+        for (int i = 0; i < copies; i++) {
+            code.append(body);
+        }
+        code.append(method.substring(bodyEnd));
+
+        return new CodeState("Benchmark", code.toString(), App.testImports.getOrDefault(feature, List.of()));
+    }
+
+    static MethodDeclaration parse(CodeState cs) {
+        return App.parseMethod(cs).findFirst().orElseThrow();
+    }
+
+    /**
+     * Copies the synthetic dataset out of the benchmark resources into a fresh temporary directory.
+     *
+     * @return the directory containing the {@code Data} folder, ready to pass to generate
+     */
+    static Path extractDataset() {
+        try {
+            Path root = Files.createTempDirectory("graphgenerator-corpus");
+            for (String file : DATASET_FILES) {
+                Path target = root.resolve(file);
+                Files.createDirectories(target.getParent());
+                try (InputStream in = BenchmarkCorpus.class.getResourceAsStream("/corpus/" + file)) {
+                    if (in == null) {
+                        throw new IllegalStateException("The benchmark corpus is missing " + file);
+                    }
+                    Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            return root;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static void deleteRecursively(Path root) {
+        try (var paths = Files.walk(root)) {
+            paths.sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
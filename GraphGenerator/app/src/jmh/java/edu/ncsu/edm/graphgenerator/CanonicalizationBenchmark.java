@@ -0,0 +1,81 @@
+package edu.ncsu.edm.graphgenerator;
+
+import com.github.javaparser.ast.body.MethodDeclaration;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import edu.ncsu.edm.graphgenerator.CanonicalLabelPrinter.Canonicalization;
+
+/**
+ * Runs the conditional expression rewrite on a freshly parsed method, and labels the vertices of a built graph as each
+ * level of canonicalization prints them, and as --label-ids interns them once every label has been seen.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CanonicalizationBenchmark {
+    @Param({"if", "for", "while", "foreach", "labeled", "switch", "return", "break", "continue", "aggregateWhile", "aggregateFor"})
+    public String feature;
+
+    private CodeState codeState;
+    private MethodDeclaration md;
+    private FrozenGraph graph;
+
+    private final CanonicalLabelPrinter noCanonicalization = new CanonicalLabelPrinter(Canonicalization.NONE);
+    private final CanonicalLabelPrinter variableCanonicalization = new CanonicalLabelPrinter(Canonicalization.VARIABLES);
+    private final CanonicalLabelPrinter literalCanonicalization = new CanonicalLabelPrinter(Canonicalization.LITERALS);
+    private File labelFile;
+    private LabelDictionary labels;
+
+    @Setup(Level.Trial)
+    public void setUpCodeState() throws IOException {
+        this.codeState = BenchmarkCorpus.codeState(this.feature);
+        this.graph = App.createGraph(BenchmarkCorpus.parse(this.codeState));
+        this.labelFile = File.createTempFile("benchmark", LabelDictionary.FILE_SUFFIX);
+        this.labels = new LabelDictionary(this.labelFile.getPath());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        this.labels.close();
+        this.labelFile.delete();
+    }
+
+    // The rewrite changes the method it visits, so each invocation starts from a fresh parse
+    @Setup(Level.Invocation)
+    public void setUpMethod() {
+        this.md = BenchmarkCorpus.parse(this.codeState);
+    }
+
+    @Benchmark
+    public MethodDeclaration rewriteCondExprs() {
+        App.condExprToIfConverter.rewriteAllCondExprsToIf(this.md);
+        return this.md;
+    }
+
+    @Benchmark
+    public RenderedGraph labelWithoutCanonicalization() {
+        return RenderedGraph.of(this.graph, n -> n.toString(this.noCanonicalization));
+    }
+
+    @Benchmark
+    public RenderedGraph labelVariablesCanonicalized() {
+        return RenderedGraph.of(this.graph, n -> n.toString(this.variableCanonicalization));
+    }
+
+    @Benchmark
+    public RenderedGraph labelLiteralsCanonicalized() {
+        return RenderedGraph.of(this.graph, n -> n.toString(this.literalCanonicalization));
+    }
+
+    @Benchmark
+    public RenderedGraph labelLiteralsInterned() {
+        return RenderedGraph.of(this.graph, n -> this.labels.intern(n.toCharSequence(this.literalCanonicalization)));
+    }
+}
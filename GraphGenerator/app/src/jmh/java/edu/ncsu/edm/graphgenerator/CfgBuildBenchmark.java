@@ -0,0 +1,43 @@
+package edu.ncsu.edm.graphgenerator;
+
+import com.github.javaparser.ast.body.MethodDeclaration;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds the CFG of each feature method, including the conditional expression rewrite that precedes it. The
+ * {@code copies} parameter repeats the method body to show how construction scales with method size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CfgBuildBenchmark {
+    @Param({"if", "for", "while", "foreach", "labeled", "switch", "return", "break", "continue", "aggregateWhile", "aggregateFor"})
+    public String feature;
+
+    @Param({"1", "8", "32"})
+    public int copies;
+
+    private CodeState codeState;
+    private MethodDeclaration md;
+
+    @Setup(Level.Trial)
+    public void setUpCodeState() {
+        this.codeState = BenchmarkCorpus.codeState(this.feature, this.copies);
+    }
+
+    // Conversion rewrites the method in place, so every invocation needs a freshly parsed one
+    @Setup(Level.Invocation)
+    public void setUpMethod() {
+        this.md = BenchmarkCorpus.parse(this.codeState);
+    }
+
+    @Benchmark
+    public FrozenGraph createGraph() {
+        return App.createGraph(this.md);
+    }
+}
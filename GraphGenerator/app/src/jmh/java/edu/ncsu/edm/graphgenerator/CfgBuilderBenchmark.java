@@ -0,0 +1,87 @@
+package edu.ncsu.edm.graphgenerator;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rebuilds the CFG of each feature method the way {@link AstToGraphConverter} grows one, in a jgrapht
+ * DefaultDirectedGraph and in a {@link CfgBuilder}, and freezes it. Every edge is first drawn into a placeholder
+ * vertex whose incoming edges are then rerouted to the real target before the placeholder is removed, which is what
+ * the converter does for each statement it expands. Parsing and the visitor are left out, so this shows the cost of
+ * the graph alone; {@link CfgBuildBenchmark} has the whole construction.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CfgBuilderBenchmark {
+    @Param({"if", "for", "switch", "aggregateWhile", "aggregateFor"})
+    public String feature;
+
+    @Param({"1", "8", "32", "128"})
+    public int copies;
+
+    private FrozenGraph cfg;
+    private FlowNode[] placeholders;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.cfg = App.createGraph(BenchmarkCorpus.parse(BenchmarkCorpus.codeState(this.feature, this.copies)));
+        this.placeholders = new FlowNode[this.cfg.numEdges()];
+        for (int e = 0; e < this.placeholders.length; e++) {
+            this.placeholders[e] = new FlowNode("placeholder" + e);
+        }
+    }
+
+    @Benchmark
+    public FrozenGraph jgrapht() {
+        Graph<FlowNode, FlowEdge> g = new DefaultDirectedGraph<>(FlowEdge.class);
+        for (int v = 0; v < this.cfg.numNodes(); v++) {
+            g.addVertex(this.cfg.node(v));
+        }
+        for (int v = 0; v < this.cfg.numNodes(); v++) {
+            for (int e = this.cfg.firstEdge(v); e < this.cfg.firstEdge(v + 1); e++) {
+                FlowNode placeholder = this.placeholders[e];
+                byte condition = this.cfg.condition(e);
+                g.addVertex(placeholder);
+                g.addEdge(this.cfg.node(v), placeholder, condition == FrozenGraph.UNCONDITIONAL
+                        ? new FlowEdge()
+                        : new FlowEdge(condition == FrozenGraph.WHEN_TRUE));
+                for (FlowEdge edge : g.incomingEdgesOf(placeholder)) {
+                    g.addEdge(g.getEdgeSource(edge), this.cfg.node(this.cfg.target(e)),
+                            edge.getFlowCondition().map(FlowEdge::new).orElseGet(FlowEdge::new));
+                }
+                g.removeVertex(placeholder);
+            }
+        }
+        return FrozenGraph.of(g);
+    }
+
+    @Benchmark
+    public FrozenGraph cfgBuilder() {
+        CfgBuilder g = new CfgBuilder();
+        for (int v = 0; v < this.cfg.numNodes(); v++) {
+            g.addVertex(this.cfg.node(v));
+        }
+        for (int v = 0; v < this.cfg.numNodes(); v++) {
+            for (int e = this.cfg.firstEdge(v); e < this.cfg.firstEdge(v + 1); e++) {
+                FlowNode placeholder = this.placeholders[e];
+                byte condition = this.cfg.condition(e);
+                g.addVertex(placeholder);
+                if (condition == FrozenGraph.UNCONDITIONAL) {
+                    g.addEdge(this.cfg.node(v), placeholder);
+                } else {
+                    g.addEdge(this.cfg.node(v), placeholder, condition == FrozenGraph.WHEN_TRUE);
+                }
+                g.rerouteIncomingEdges(placeholder, this.cfg.node(this.cfg.target(e)));
+                g.removeVertex(placeholder);
+            }
+        }
+        return g.freeze();
+    }
+}
@@ -0,0 +1,76 @@
+package edu.ncsu.edm.graphgenerator;
+
+import com.github.javaparser.ast.body.MethodDeclaration;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rewrites methods full of nested conditional expressions, shaped like the ones in {@code App.testCondConverter},
+ * into if statements. {@code else} chains {@code a0 ? 0 : a1 ? 1 : ...} and {@code then} chains
+ * {@code a0 ? a1 ? ... : 0 : 0} nest {@code depth} expressions in one declaration, and {@code statements} puts one
+ * expression in each of {@code depth} declarations, so the rewritten method grows linearly with depth in every shape.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CondExprRewriteBenchmark {
+    @Param({"else", "then", "statements"})
+    public String shape;
+
+    @Param({"8", "32", "128"})
+    public int depth;
+
+    private final CondExprToIfConverter converter = new CondExprToIfConverter();
+    private CodeState codeState;
+    private MethodDeclaration md;
+
+    @Setup(Level.Trial)
+    public void setUpCodeState() {
+        StringBuilder body = new StringBuilder();
+        switch (this.shape) {
+            case "else" -> {
+                body.append("int x = ");
+                for (int i = 0; i < this.depth; i++) {
+                    body.append("y % ").append(i + 2).append(" == 1 ? ").append(i).append(" : ");
+                }
+                body.append("-1;\n");
+            }
+            case "then" -> {
+                body.append("int x = ");
+                for (int i = 0; i < this.depth; i++) {
+                    body.append("y % ").append(i + 2).append(" == 1 ? ");
+                }
+                body.append(this.depth);
+                for (int i = 0; i < this.depth; i++) {
+                    body.append(" : 0");
+                }
+                body.append(";\n");
+            }
+            case "statements" -> {
+                for (int i = 0; i < this.depth; i++) {
+                    body.append("int x").append(i).append(" = y % ").append(i + 2).append(" == 1 ? ").append(i)
+                            .append(" : -").append(i).append(";\n");
+                }
+            }
+            default -> throw new IllegalArgumentException("There is no shape " + this.shape);
+        }
+        this.codeState = new CodeState("Benchmark", "public void conditions(int y) {\n" + body + "}\n", List.of());
+    }
+
+    // The rewrite changes the method in place, so every invocation needs a freshly parsed one
+    @Setup(Level.Invocation)
+    public void setUpMethod() {
+        this.md = BenchmarkCorpus.parse(this.codeState);
+    }
+
+    @Benchmark
+    public MethodDeclaration rewriteAllCondExprsToIf() {
+        this.converter.rewriteAllCondExprsToIf(this.md);
+        return this.md;
+    }
+}
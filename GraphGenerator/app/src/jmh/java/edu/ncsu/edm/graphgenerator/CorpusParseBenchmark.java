@@ -0,0 +1,42 @@
+package edu.ncsu.edm.graphgenerator;
+
+import com.opencsv.bean.CsvToBeanBuilder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses every code state of the synthetic dataset, which mixes all the constructs the converter handles along with
+ * some duplicates and a method that doesn't parse, the way a real CodeStates.csv does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CorpusParseBenchmark {
+    private List<CodeState> codeStates;
+
+    @Setup
+    public void setUp() throws IOException {
+        Path dataset = BenchmarkCorpus.extractDataset();
+        try (FileReader reader = new FileReader(dataset.resolve("Data/CodeStates/CodeStates.csv").toFile())) {
+            this.codeStates = new CsvToBeanBuilder<CodeState>(reader).withType(CodeState.class).build().parse();
+        } finally {
+            BenchmarkCorpus.deleteRecursively(dataset);
+        }
+    }
+
+    @Benchmark
+    public void parseCorpus(Blackhole bh) {
+        for (CodeState cs : this.codeStates) {
+            App.parseMethod(cs).forEach(bh::consume);
+        }
+    }
+}
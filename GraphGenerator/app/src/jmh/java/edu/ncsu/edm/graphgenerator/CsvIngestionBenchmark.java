@@ -0,0 +1,110 @@
+package edu.ncsu.edm.graphgenerator;
+
+import com.opencsv.CSVWriter;
+import com.opencsv.bean.CsvToBeanBuilder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compares the peak heap of reading a large CodeStates.csv through opencsv's {@code CsvToBean.stream()} against
+ * {@link CsvBeanReader}. The file is built by repeating the synthetic corpus under fresh ids, and every row gets a
+ * little CPU work to stand in for parsing so the consumer is slower than the reader, as it is in generate. The peak
+ * heap of each run is reported as the {@code peakHeapBytes} secondary result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+public class CsvIngestionBenchmark {
+    @Param({"200000"})
+    public int rows;
+
+    @Param({"200"})
+    public long tokensPerRow;
+
+    @Param({"65536"})
+    public int bufferSize;
+
+    private Path dir;
+    private File codeStates;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class HeapUsage {
+        public long peakHeapBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            System.gc();
+            heapPools().forEach(MemoryPoolMXBean::resetPeakUsage);
+            this.peakHeapBytes = 0;
+        }
+
+        void record() {
+            this.peakHeapBytes = heapPools().mapToLong(p -> p.getPeakUsage().getUsed()).sum();
+        }
+
+        private static Stream<MemoryPoolMXBean> heapPools() {
+            return ManagementFactory.getMemoryPoolMXBeans().stream().filter(p -> p.getType() == MemoryType.HEAP);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void writeLargeFile() throws IOException {
+        Path corpus = BenchmarkCorpus.extractDataset();
+        List<CodeState> seed;
+        try (FileReader reader = new FileReader(corpus.resolve("Data/CodeStates/CodeStates.csv").toFile())) {
+            seed = new CsvToBeanBuilder<CodeState>(reader).withType(CodeState.class).build().parse();
+        } finally {
+            BenchmarkCorpus.deleteRecursively(corpus);
+        }
+
+        this.dir = Files.createTempDirectory("graphgenerator-csv");
+        this.codeStates = this.dir.resolve("CodeStates.csv").toFile();
+        try (CSVWriter writer = new CSVWriter(new BufferedWriter(new FileWriter(this.codeStates)))) {
+            writer.writeNext(new String[] { "CodeStateID", "Code" });
+            for (int i = 0; i < this.rows; i++) {
+                writer.writeNext(new String[] { String.format("%064x", i), seed.get(i % seed.size()).getCode() });
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteLargeFile() {
+        BenchmarkCorpus.deleteRecursively(this.dir);
+    }
+
+    @Benchmark
+    public void csvToBeanStream(HeapUsage heap, Blackhole bh) throws IOException {
+        try (Reader reader = new BufferedReader(new FileReader(this.codeStates), this.bufferSize)) {
+            new CsvToBeanBuilder<CodeState>(reader).withType(CodeState.class).build().stream()
+                    .forEachOrdered(cs -> consume(cs, bh));
+        }
+        heap.record();
+    }
+
+    @Benchmark
+    public void csvBeanReader(HeapUsage heap, Blackhole bh) throws IOException {
+        try (Stream<CodeState> codeStates = CsvBeanReader.stream(this.codeStates, CodeState.class, this.bufferSize)) {
+            codeStates.forEachOrdered(cs -> consume(cs, bh));
+        }
+        heap.record();
+    }
+
+    private void consume(CodeState cs, Blackhole bh) {
+        Blackhole.consumeCPU(this.tokensPerRow);
+        bh.consume(cs);
+    }
+}
@@ -0,0 +1,129 @@
+package edu.ncsu.edm.graphgenerator;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import edu.ncsu.edm.graphgenerator.CanonicalLabelPrinter.Canonicalization;
+import edu.ncsu.edm.graphgenerator.CanonicalizationStrategy.Compression;
+import edu.ncsu.edm.graphgenerator.CanonicalizationStrategy.OutputFormat;
+import edu.ncsu.edm.graphgenerator.CanonicalizationStrategy.OutputSettings;
+
+/**
+ * Measures writing the Nodes and Edges CSVs of a strategy, one graph at a time as generate writes them, with and
+ * without the write buffer and with rows handed to the CSV writers after every graph or in batches. A write buffer of
+ * 0 and a batch of 1 row is how the CSVs were written before batching. A {@code writerQueue} above 0 writes through
+ * the strategy's {@link AsyncGraphWriter} instead of on the benchmark thread, and a {@code gzipLevel} of 0 or more
+ * gzips the CSVs on {@code gzipThreads} threads. The write system calls and bytes each run makes are read from
+ * {@code /proc/self/io} and reported as the {@code writeSyscalls} and {@code writtenBytes} secondary results, which
+ * stay at 0 where that file doesn't exist.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CsvWriteBenchmark {
+    private static final String[] FEATURES = {
+            "if", "for", "while", "foreach", "labeled", "switch", "return", "break", "continue",
+            "aggregateWhile", "aggregateFor"
+    };
+
+    @Param({"100000"})
+    public int graphs;
+
+    @Param({"0", "65536"})
+    public int writeBufferSize;
+
+    @Param({"1", "4096"})
+    public int flushRows;
+
+    @Param({"0"})
+    public int writerQueue;
+
+    @Param({"-1"})
+    public int gzipLevel;
+
+    @Param({"2"})
+    public int gzipThreads;
+
+    private List<RenderedGraph> rendered;
+    private Path outputDir;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class WriteCounts {
+        private static final Path PROC_IO = Path.of("/proc/self/io");
+
+        public long writeSyscalls;
+        public long writtenBytes;
+
+        private long[] start;
+
+        @Setup(Level.Iteration)
+        public void start() throws IOException {
+            this.start = read();
+        }
+
+        void record() throws IOException {
+            long[] end = read();
+            this.writeSyscalls = end[0] - this.start[0];
+            this.writtenBytes = end[1] - this.start[1];
+        }
+
+        private static long[] read() throws IOException {
+            long[] counts = new long[2];
+            if (!Files.isReadable(PROC_IO)) {
+                return counts;
+            }
+            for (String line : Files.readAllLines(PROC_IO)) {
+                if (line.startsWith("syscw:")) {
+                    counts[0] = Long.parseLong(line.substring(6).trim());
+                } else if (line.startsWith("wchar:")) {
+                    counts[1] = Long.parseLong(line.substring(6).trim());
+                }
+            }
+            return counts;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void renderGraphs() {
+        this.rendered = Stream.of(FEATURES)
+                .map(feature -> RenderedGraph.of(App.createGraph(BenchmarkCorpus.parse(BenchmarkCorpus.codeState(feature)))))
+                .toList();
+    }
+
+    @Setup(Level.Iteration)
+    public void createOutputDir() throws IOException {
+        this.outputDir = Files.createTempDirectory("graphgenerator-csv-write");
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteOutputDir() {
+        BenchmarkCorpus.deleteRecursively(this.outputDir);
+    }
+
+    @Benchmark
+    public void writeGraphs(WriteCounts counts) throws IOException {
+        Compression compression = this.gzipLevel < 0 ? null : Compression.of(this.gzipLevel, this.gzipThreads);
+        OutputSettings settings = new OutputSettings(OutputFormat.CSV, false, this.writeBufferSize, this.flushRows,
+                this.writerQueue, compression, 1);
+        CanonicalizationStrategy strategy = new CanonicalizationStrategy(
+                this.outputDir.resolve("benchmark").toString(), Canonicalization.NONE, settings);
+        for (int i = 0; i < this.graphs; i++) {
+            strategy.write(Integer.toString(i), this.rendered.get(i % this.rendered.size()));
+        }
+        strategy.close();
+        if (compression != null) {
+            compression.close();
+        }
+        counts.record();
+    }
+}
@@ -0,0 +1,29 @@
+package edu.ncsu.edm.graphgenerator;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseBenchmark {
+    @Param({"if", "for", "while", "foreach", "labeled", "switch", "return", "break", "continue", "aggregateWhile", "aggregateFor"})
+    public String feature;
+
+    private CodeState codeState;
+
+    @Setup
+    public void setUp() {
+        this.codeState = BenchmarkCorpus.codeState(this.feature);
+    }
+
+    @Benchmark
+    public void parseMethod(Blackhole bh) {
+        App.parseMethod(this.codeState).forEach(bh::consume);
+    }
+}
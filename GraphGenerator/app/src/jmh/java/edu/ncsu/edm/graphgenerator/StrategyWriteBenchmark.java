@@ -0,0 +1,56 @@
+package edu.ncsu.edm.graphgenerator;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures the export stage of a strategy: rendering a finished graph's labels and turning a rendered graph into
+ * node and edge rows written to the CSVs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StrategyWriteBenchmark {
+    @Param({"if", "for", "while", "foreach", "labeled", "switch", "return", "break", "continue", "aggregateWhile", "aggregateFor"})
+    public String feature;
+
+    private Path outputDir;
+    private CanonicalizationStrategy strategy;
+    private FrozenGraph graph;
+    private RenderedGraph rendered;
+    private final AtomicInteger countedMethods = new AtomicInteger(0);
+
+    @Setup(Level.Trial)
+    public void setUpStrategy() throws IOException {
+        this.outputDir = Files.createTempDirectory("graphgenerator-strategy");
+        this.strategy = new CanonicalizationStrategy(this.outputDir.resolve("benchmark").toString());
+        this.graph = App.createGraph(BenchmarkCorpus.parse(BenchmarkCorpus.codeState(this.feature)));
+        this.rendered = this.strategy.render(this.graph);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        this.strategy.close();
+        BenchmarkCorpus.deleteRecursively(this.outputDir);
+    }
+
+    @Benchmark
+    public RenderedGraph render() {
+        return this.strategy.render(this.graph);
+    }
+
+    @Benchmark
+    public void addLinesForGraph() throws IOException {
+        this.countedMethods.set(0);
+        this.strategy.addLinesForGraph("Benchmark", this.rendered, this.countedMethods);
+        this.strategy.writeLines();
+    }
+}
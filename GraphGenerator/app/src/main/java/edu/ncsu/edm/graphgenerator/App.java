@@ -1,40 +1,39 @@
 package edu.ncsu.edm.graphgenerator;
 
 import com.github.javaparser.ParseProblemException;
-import com.github.javaparser.ParserConfiguration;
-import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.expr.ConditionalExpr;
 import com.github.javaparser.printer.configuration.DefaultPrinterConfiguration;
-import com.github.javaparser.symbolsolver.JavaSymbolSolver;
-import com.github.javaparser.symbolsolver.model.resolution.TypeSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
-import com.opencsv.CSVWriter;
-import com.opencsv.bean.CsvToBeanBuilder;
 import org.javatuples.Pair;
 import org.jetbrains.annotations.Nullable;
 import org.jgrapht.Graph;
-import org.jgrapht.graph.AsUnmodifiableGraph;
-import org.jgrapht.graph.DefaultDirectedGraph;
 import org.jgrapht.nio.DefaultAttribute;
 import org.jgrapht.nio.dot.DOTExporter;
 
+import edu.ncsu.edm.graphgenerator.CanonicalLabelPrinter.Canonicalization;
+import edu.ncsu.edm.graphgenerator.CanonicalizationStrategyCollection.RenderedCodeState;
+import edu.ncsu.edm.graphgenerator.PipelineMetrics.Stage;
+
 import java.io.*;
+import java.nio.file.Path;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 public class App {
     private final static int BAD_USAGE_ERROR_CODE = 1;
     private final static int BAD_DIRECTORY_PATH_ARG = 2;
     private final static int GRAPH_CREATION_FAILED = 3;
+    private final static int GRAPH_WRITING_FAILED = 4;
 
     public static boolean verifyArgs(String[] args) {
         if (args.length < 2) {
-            System.out.println("Usage: ./gradlew run --args=\"[test|analyze|generate] path/to/data/dir/1/ ... path/to/data/dir/n/\"");
+            System.out.println("Usage: ./gradlew run --args=\"[test|analyze|generate|walk] path/to/data/dir/1/ ... path/to/data/dir/n/\"");
             System.exit(BAD_USAGE_ERROR_CODE);
         }
 
@@ -73,41 +72,83 @@ public class App {
         }
     }
 
-    private static Stream<MethodDeclaration> parseMethod(CodeState cs) {
+    static Stream<MethodDeclaration> parseMethod(CodeState cs) {
+        long start = metrics.start();
         try {
             StringBuilder source = new StringBuilder();
             for (String import_ : cs.getImports()) {
                 source.append("import ").append(import_).append(";\n");
             }
             source.append("public class MethodCompiler { \n").append(cs.getCode()).append("\n}");
-            return StaticJavaParser
-                    .parse( source.toString())
+            return PARSER_PROVIDER
+                    .parse(source.toString())
                     .getClassByName("MethodCompiler")
                     .get()
                     .getMethods()
                     .stream();
         } catch (ParseProblemException e) {
+            metrics.unparsable();
             return Stream.empty();
+        } finally {
+            metrics.record(Stage.PARSE, start);
         }
     }
 
 
-    static final VariableCanonicalizationConverter VARIABLE_CANONICALIZATION_CONVERTER = new VariableCanonicalizationConverter();
-    static final LiteralCanonicalizationConverter LITERAL_CANONICALIZATION_CONVERTER = new LiteralCanonicalizationConverter();
-    static final AstToGraphConverter astToGraphConverter = new AstToGraphConverter();
+    /**
+     * Identifies the graphs and labels this version of generate produces. Bump it whenever a change to parsing,
+     * conversion or canonicalization changes them, so graphs cached by an older version are rebuilt.
+     */
+    static final String GENERATOR_VERSION = "2";
+    static final JavaParserProvider PARSER_PROVIDER = new JavaParserProvider();
+    static final AstToGraphConverter astToGraphConverter = new AstToGraphConverter(PARSER_PROVIDER);
     static final CondExprToIfConverter condExprToIfConverter = new CondExprToIfConverter();
+    static final PipelineMetrics metrics = new PipelineMetrics();
+
+    /**
+     * @return the method's CFG frozen into a {@link FrozenGraph}, or null if it couldn't be built
+     */
+    static FrozenGraph createGraph(MethodDeclaration md) {
+        return createGraph(md, null);
+    }
+
+    /**
+     * @param onFailure given the exception and the construct that was being converted, if the CFG couldn't be built;
+     *                  if null, the exception is printed instead
+     */
+    static FrozenGraph createGraph(MethodDeclaration md, @Nullable BiConsumer<Exception, Node> onFailure) {
+        CfgBuilder graph = buildGraph(md, onFailure);
+        return graph == null ? null : graph.freeze();
+    }
+
+    static CfgBuilder buildGraph(MethodDeclaration md) {
+        return buildGraph(md, null);
+    }
 
-    private static Graph<FlowNode, FlowEdge> createGraph(MethodDeclaration md) {
-        Graph<FlowNode, FlowEdge> graph = new DefaultDirectedGraph<>(FlowEdge.class);
+    static CfgBuilder buildGraph(MethodDeclaration md, @Nullable BiConsumer<Exception, Node> onFailure) {
+        CfgBuilder graph = new CfgBuilder();
+        AstToGraphConverter.ConversionContext ctx = new AstToGraphConverter.ConversionContext(graph);
+        boolean rewritten = false;
         try {
+            long start = metrics.start();
             condExprToIfConverter.rewriteAllCondExprsToIf(md);
-            md.accept(astToGraphConverter, graph);
+            metrics.record(Stage.REWRITE, start);
+            rewritten = true;
+            start = metrics.start();
+            md.accept(astToGraphConverter, ctx);
+            metrics.record(Stage.BUILD, start);
         } catch (Exception e) {
-            System.err.println(e);
+            metrics.failed(e);
+            if (onFailure == null) {
+                System.err.println(e);
+            } else {
+                onFailure.accept(e, rewritten ? ctx.getConverting() : md.findFirst(ConditionalExpr.class).orElse(null));
+            }
             return null;
         }
 
-        return new AsUnmodifiableGraph<>(graph);
+        metrics.built();
+        return graph;
     }
 
     private static Pair<File, File> getVerifiedFolders(File dataDir) {
@@ -120,15 +161,33 @@ public class App {
         return Pair.with(dataDir, codeStatesDir);
     }
 
-    private static Stream<Pair<String, Stream<Graph<FlowNode, FlowEdge>>>> createGraphs(File dataDir) {
-        Pair<File, File> dirs = getVerifiedFolders(dataDir);
-
-        Stream<Pair<String, Stream<MethodDeclaration>>> mdStreams = getMethodDeclStreams(dirs.getValue0(), dirs.getValue1());
-        if (mdStreams == null) {
-            return Stream.empty();
-        }
+    /**
+     * @param rejected            given every method whose graph couldn't be built
+     * @param methodsWithCondExpr if not null, counts the methods that had a conditional expression to rewrite
+     */
+    private static Stream<FrozenGraph> createGraphs(CodeState cs,
+                                                    Consumer<RejectWriter.Reject> rejected,
+                                                    @Nullable AtomicInteger methodsWithCondExpr) {
+        return createIndexedGraphs(cs, rejected, methodsWithCondExpr).map(Pair::getValue1);
+    }
 
-        return mdStreams.map(p -> Pair.with(p.getValue0(), p.getValue1().map(App::createGraph).filter(Objects::nonNull)));
+    /**
+     * Like {@link #createGraphs}, with each graph paired with the index of its method among the code state's methods,
+     * counting from 1 like a {@link RejectWriter.Reject}.
+     */
+    private static Stream<Pair<Integer, FrozenGraph>> createIndexedGraphs(CodeState cs,
+                                                                       Consumer<RejectWriter.Reject> rejected,
+                                                                       @Nullable AtomicInteger methodsWithCondExpr) {
+        int[] methodIndex = { 0 };
+        return parseMethod(cs).map(md -> {
+            int index = ++methodIndex[0];
+            if (methodsWithCondExpr != null && md.findFirst(ConditionalExpr.class).isPresent()) {
+                methodsWithCondExpr.incrementAndGet();
+            }
+            FrozenGraph graph = createGraph(md,
+                    (e, construct) -> rejected.accept(RejectWriter.Reject.of(index, md, e, construct)));
+            return graph == null ? null : Pair.with(index, graph);
+        }).filter(Objects::nonNull);
     }
 
     private static int runAnalysis(File dataDir) {
@@ -140,21 +199,39 @@ public class App {
             return 0;
         }
 
-        return mdStreams.filter(p -> p.getValue1().findFirst().isPresent()).toList().size();
+        try (mdStreams) {
+            return mdStreams.filter(p -> p.getValue1().findFirst().isPresent()).toList().size();
+        }
     }
 
     private static @Nullable Stream<Pair<String, Stream<MethodDeclaration>>> getMethodDeclStreams(File dataDir, File codeStatesDir) {
-        Set<String> validCodeStateIds = getValidCodeStateIds(dataDir);
+        Stream<CodeState> codeStates = getCodeStates(dataDir, codeStatesDir, CsvBeanReader.DEFAULT_BUFFER_SIZE);
+        if (codeStates == null) {
+            return null;
+        }
+
+        return codeStates.map(cs -> Pair.with(cs.getCodeStateId(), parseMethod(cs)));
+    }
+
+    private static Stream<CodeState> getCodeStates(File dataDir, int readBufferSize) {
+        Pair<File, File> dirs = getVerifiedFolders(dataDir);
+
+        Stream<CodeState> codeStates = getCodeStates(dirs.getValue0(), dirs.getValue1(), readBufferSize);
+        return codeStates == null ? Stream.empty() : codeStates;
+    }
+
+    private static @Nullable Stream<CodeState> getCodeStates(File dataDir, File codeStatesDir, int readBufferSize) {
+        CodeStateIdSet validCodeStateIds = getValidCodeStateIds(dataDir);
         if (validCodeStateIds == null) {
             return null;
         }
 
         try {
-            return new CsvToBeanBuilder<CodeState>(new FileReader(new File(codeStatesDir, "CodeStates.csv")))
-                    .withType(CodeState.class).build().stream()
-                    .filter(cs -> !cs.getCode().isBlank())
-                    .map(cs -> Pair.with(cs.getCodeStateId(), parseMethod(cs)))
-                    .filter(p -> Objects.nonNull(p.getValue0()));
+            return metrics.timed(Stage.READ,
+                            CsvBeanReader.stream(new File(codeStatesDir, "CodeStates.csv"), CodeState.class, readBufferSize))
+                    .filter(cs -> Objects.nonNull(cs.getCodeStateId()))
+                    .filter(cs -> validCodeStateIds.contains(cs.getCodeStateId()))
+                    .filter(cs -> !cs.getCode().isBlank());
         } catch (FileNotFoundException e) {
             System.out.println("The CodeStates file you are attempting to analyze doesn't exist: "
                     + new File(codeStatesDir, "CodeStates.csv").getAbsolutePath());
@@ -162,13 +239,14 @@ public class App {
         }
     }
 
-    private static @Nullable Set<String> getValidCodeStateIds(File dataDir) {
-        try {
-            return new CsvToBeanBuilder<MainTableEntry>(new FileReader(new File(dataDir, "MainTable.csv")))
-                    .withType(MainTableEntry.class).build().stream()
-                    .filter(m -> m.getEventType().equals("Compile") && m.getCompileResult().equals("Success"))
+    private static @Nullable CodeStateIdSet getValidCodeStateIds(File dataDir) {
+        try (Stream<MainTableEntry> mainTable = CsvBeanReader.stream(new File(dataDir, "MainTable.csv"), MainTableEntry.class)) {
+            CodeStateIdSet validCodeStateIds = new CodeStateIdSet();
+            mainTable
+                    .filter(m -> m.getEventType().equals("Compile") && "Success".equals(m.getCompileResult()))
                     .map(MainTableEntry::getCodeStateId)
-                    .collect(Collectors.toSet());
+                    .forEach(validCodeStateIds::add);
+            return validCodeStateIds;
         } catch (FileNotFoundException e) {
             System.out.println("The MainTable file you are attempting to analyze doesn't exist: "
                     + new File(dataDir, "MainTable.csv").getAbsolutePath());
@@ -178,12 +256,11 @@ public class App {
     }
 
     private static void printNumberOfStudents(File dataDir) {
-        try {
-            File mainTable =  new File(dataDir, "MainTable.csv");
+        File mainTable =  new File(dataDir, "MainTable.csv");
+        try (Stream<MainTableEntry> entries = CsvBeanReader.stream(mainTable, MainTableEntry.class)) {
             System.out.println("Number of Students for "+
                    mainTable.getCanonicalPath() + ": "
-                    + new CsvToBeanBuilder<MainTableEntry>(new FileReader(mainTable))
-                    .withType(MainTableEntry.class).build().stream()
+                    + entries
                     .map(MainTableEntry::getSubjectId)
                     .distinct().toList().size());
         } catch (IOException e) {
@@ -192,7 +269,7 @@ public class App {
         }
     }
 
-    private static final Map<String, String> testMethods = new HashMap<>() {{
+    static final Map<String, String> testMethods = new HashMap<>() {{
         put("if", """
                 public int testIf(String test) {
                     int num = Integer.parseInt(test);
@@ -474,7 +551,7 @@ public class App {
                 """);
     }};
 
-    private static final Map<String, List<String>> testImports = new HashMap<>() {{
+    static final Map<String, List<String>> testImports = new HashMap<>() {{
        put("foreach", List.of("java.util.List", "java.util.Arrays"));
     }};
 
@@ -495,7 +572,7 @@ public class App {
         System.out.println(first.getCode());
         MethodDeclaration second = App.parseMethod(first).findFirst().get();
         System.out.println(second);
-        Graph<FlowNode, FlowEdge> third = App.createGraph(second);
+        Graph<FlowNode, FlowEdge> third = App.buildGraph(second).toGraph();
         System.out.println(third);
 
         DOTExporter<FlowNode, FlowEdge> exporter = new DOTExporter<>();
@@ -509,177 +586,142 @@ public class App {
         }
     }
 
-    private static class CanonicalizationStrategy {
-        private final CSVWriter nodes;
-        private final CSVWriter edges;
-        private final CSVWriter stats;
-        private final Consumer<Graph<FlowNode, FlowEdge>> canonicalizer;
-
-        private final List<String[]> nodeLines;
-        private final List<String[]> edgeLines;
-
-        private final AtomicInteger numGraphs = new AtomicInteger(0);
-        private final AtomicInteger numCodeStates = new AtomicInteger(0);
-
-        public CanonicalizationStrategy(String strategy) throws IOException {
-            this(strategy, null);
-        }
-
-        public CanonicalizationStrategy(String strategy, Consumer<Graph<FlowNode, FlowEdge>> canonicalizer) throws IOException {String nodeName = strategy + "Nodes.csv";
-            String edgeName = strategy + "Edges.csv";
-            String statName = strategy + "Stats.csv";
-
-
-            FileWriter nodeFile = null;
-            try {
-                nodeFile = new FileWriter(nodeName);
-            } catch (IOException ignored) {
-                throw new RuntimeException("Couldn't create " + nodeName);
-            }
-            CSVWriter nodeCsv = new CSVWriter(nodeFile);
-            nodeCsv.writeNext(new String[] { "CodeStateId", "MethodNum", "NodeId", "NodeData" });
-
-            FileWriter edgeFile = null;
-            try {
-                edgeFile = new FileWriter(edgeName);
-            } catch (IOException e) {
-                nodeFile.close();
-                throw new RuntimeException("Couldn't create " + edgeName);
-            }
-            CSVWriter edgeCsv = new CSVWriter(edgeFile);
-            edgeCsv.writeNext(new String[] { "CodeStateId", "MethodNum", "Node1Id", "Node2Id", "EdgeData" });
-
-            FileWriter statsFile = null;
+    public static void generateGraphs(GenerateOptions options) {
+        boolean written = false;
+        try {
+            // One set of settings, so the strategies share one pool of compressing threads
+            CanonicalizationStrategy.OutputSettings settings = options.getOutputSettings();
+            CanonicalizationStrategy noCanonicalization = new CanonicalizationStrategy("noneCanonicalization",
+                    Canonicalization.NONE, settings);
+            CanonicalizationStrategy partialCanonicalization = new CanonicalizationStrategy("partCanonicalization",
+                    Canonicalization.VARIABLES, settings);
+            CanonicalizationStrategy fullCanonicalization = new CanonicalizationStrategy("fullCanonicalization",
+                    Canonicalization.LITERALS, settings);
+            CanonicalizationStrategyCollection strategies = new CanonicalizationStrategyCollection(
+                    noCanonicalization,
+                    partialCanonicalization,
+                    fullCanonicalization
+            );
+            RejectWriter rejects = new RejectWriter();
+            OrderedParallelPipeline pipeline = new OrderedParallelPipeline(options.getThreads(), options.getQueueCapacity());
+            Stream<CodeState> codeStates = options.getDataDirs().stream().map(File::new)
+                    .flatMap(dir -> getCodeStates(dir, options.getReadBufferSize()));
+            Function<CodeState, RenderedCodeState> build = cs -> {
+                List<RejectWriter.Reject> rejected = new ArrayList<>();
+                AtomicInteger methodsWithCondExpr = new AtomicInteger(0);
+                List<FrozenGraph> graphs = createGraphs(cs, rejected::add, methodsWithCondExpr).toList();
+                long start = metrics.start();
+                RenderedCodeState rendered = strategies.render(cs.getCodeStateId(), graphs.stream(),
+                        methodsWithCondExpr.get(), rejected);
+                metrics.record(Stage.RENDER, start);
+                return rendered;
+            };
+            Consumer<RenderedCodeState> write = rendered -> {
+                long start = metrics.start();
+                strategies.write(rendered);
+                metrics.record(Stage.WRITE, start);
+                for (RejectWriter.Reject reject : rendered.rejects()) {
+                    rejects.reject(rendered.codeStateId(), reject);
+                }
+            };
+            GraphCache cache = options.getCacheDir() == null ? null
+                    : GraphCache.open(options.getCacheDir(), GENERATOR_VERSION, strategies.strategies().length);
+            Function<CodeState, RenderedCodeState> render = cache == null ? build : cs -> cache.render(cs, build);
+            Closeable progress = options.getProgressSeconds() > 0
+                    ? metrics.reportEvery(options.getProgressSeconds(), System.out)
+                    : null;
             try {
-                statsFile = new FileWriter(statName);
-            } catch (IOException e) {
-                nodeFile.close();
-                edgeFile.close();
-                throw new RuntimeException("Couldn't create " + statName);
-            }
-            CSVWriter statsCsv = new CSVWriter(statsFile);
-            statsCsv.writeNext(new String[] { "Number of Graphs", "Number of CodeStates", "Number of Methods with ConditionalExpr"});
-            this.nodes = nodeCsv;
-            this.edges = edgeCsv;
-            this.stats = statsCsv;
-            this.canonicalizer = canonicalizer;
-            this.nodeLines = new ArrayList<>();
-            this.edgeLines = new ArrayList<>();
-        }
-
-        public void close() throws IOException {
-            stats.writeNext(new String[] { numGraphs.toString(), numCodeStates.toString(), CondExprToIfConverter.numberOfMethodsWithCondExpr.toString() });
-            stats.close();
-            nodes.close();
-            edges.close();
-        }
-
-        public void addLinesForGraph(String codeStateId,
-                                     Graph<FlowNode, FlowEdge> g,
-                                     AtomicInteger currentCodeStateCountedMethods) {
-
-            if (this.canonicalizer != null) {
-                this.canonicalizer.accept(g);
-            }
-
-            if (currentCodeStateCountedMethods.get() == 0) {
-                this.numCodeStates.incrementAndGet();
-            }
-
-            String nm = Integer.toString(currentCodeStateCountedMethods.incrementAndGet());
-            this.numGraphs.incrementAndGet();
-            Map<FlowNode, String> nodeIds = new HashMap<>();
-            int id = 0;
-            for (FlowNode n: g.vertexSet()) {
-                String idStr = String.valueOf(id);
-                nodeIds.put(n, idStr);
-                this.nodeLines.add(new String[]{
-                        codeStateId,
-                        nm,
-                        idStr,
-                        n.toString()
-                });
-                id += 1;
-            }
-
-            for (FlowEdge e: g.edgeSet()) {
-                String incomingId = nodeIds.get(g.getEdgeSource(e));
-                String outgoingId = nodeIds.get(g.getEdgeTarget(e));
-                this.edgeLines.add(new String[]{
-                        codeStateId,
-                        nm,
-                        incomingId,
-                        outgoingId,
-                        e.toString()
-                });
+                if (options.getDedupMode() == null) {
+                    pipeline.run(codeStates, render, metrics.completing(write));
+                } else {
+                    try (CodeStateDeduplicator dedup = new CodeStateDeduplicator(options.getDedupMode(),
+                            options.getDedupCacheSize(), render, write)) {
+                        pipeline.run(dedup.tag(codeStates), dedup::process, metrics.completing(dedup::write));
+                    }
+                }
+            } finally {
+                if (progress != null) {
+                    progress.close();
+                }
+                written = strategies.close();
+                closeRejects(rejects);
+                reportMetrics(options.getMetricsFile());
+                reportIterableTypes();
+                if (cache != null) {
+                    cache.close();
+                    System.out.println("Graph cache: " + cache.getHits() + " code states reused, "
+                            + cache.getMisses() + " built");
+                }
             }
+        } catch (IOException e) {
+            e.printStackTrace();
         }
-
-        public void writeLines() {
-            this.nodes.writeAll(this.nodeLines);
-            this.edges.writeAll(this.edgeLines);
-            this.nodeLines.clear();
-            this.edgeLines.clear();
+        if (!written) {
+            System.err.println("The graph files weren't all written completely, see the errors above");
+            System.exit(GRAPH_WRITING_FAILED);
         }
     }
 
-    private record CanonicalizationStrategyCollection(CanonicalizationStrategy... strategies) {
-        public boolean close() {
-            boolean allClosed = true;
-            for (CanonicalizationStrategy strategy : this.strategies) {
-                try {
-                    strategy.close();
-                } catch (IOException e) {
-                    allClosed = false;
+    public static void generateWalks(WalkOptions options) {
+        String[] strategies = { "noneCanonicalization", "partCanonicalization", "fullCanonicalization" };
+        Canonicalization[] canonicalizations = {
+                Canonicalization.NONE, Canonicalization.VARIABLES, Canonicalization.LITERALS
+        };
+        try (WalkCorpusWriter corpora = new WalkCorpusWriter(strategies, canonicalizations, options);
+             RejectWriter rejects = new RejectWriter()) {
+            OrderedParallelPipeline pipeline = new OrderedParallelPipeline(options.getThreads(), options.getQueueCapacity());
+            Stream<CodeState> codeStates = options.getDataDirs().stream().map(File::new)
+                    .flatMap(dir -> getCodeStates(dir, options.getReadBufferSize()));
+            // The rejects are written with the walks so they come out in the same order whatever the threads
+            pipeline.run(codeStates, cs -> {
+                List<RejectWriter.Reject> rejected = new ArrayList<>();
+                return Pair.with(corpora.walk(cs.getCodeStateId(), createIndexedGraphs(cs, rejected::add, null),
+                        rejected::add), rejected);
+            }, walked -> {
+                corpora.write(walked.getValue0());
+                for (RejectWriter.Reject reject : walked.getValue1()) {
+                    rejects.reject(walked.getValue0().codeStateId(), reject);
                 }
-            }
-            return allClosed;
+            });
+            closeRejects(rejects);
+            reportIterableTypes();
+        } catch (IOException e) {
+            e.printStackTrace();
         }
+    }
 
-        public boolean write(String codeStateId, Stream<Graph<FlowNode, FlowEdge>> graphs) {
-            AtomicBoolean allWritten = new AtomicBoolean(true);
-            AtomicInteger currentCodeStateCountedMethods = new AtomicInteger(0);
-            graphs.forEach(
-                g -> {
-                    for (CanonicalizationStrategy strategy : this.strategies) {
-                        try {
-                            currentCodeStateCountedMethods.set(0);
-                            strategy.addLinesForGraph(codeStateId, g, currentCodeStateCountedMethods);
-                            strategy.writeLines();
-                        } catch (Exception e) {
-                            e.printStackTrace();
-                            allWritten.set(false);
-                        }
-                    }
-                }
-            );
-            return allWritten.get();
+    private static void closeRejects(RejectWriter rejects) {
+        try {
+            rejects.close();
+        } catch (IOException e) {
+            System.err.println("Failed to write " + RejectWriter.FILE_NAME + " due to " + e);
         }
+        List<RejectWriter.Count> counts = rejects.getCounts();
+        if (counts.isEmpty()) {
+            return;
+        }
+        RejectWriter.Count top = counts.get(0);
+        System.out.println("Rejected methods: " + counts.stream().mapToLong(RejectWriter.Count::count).sum()
+                + ", most often " + top.exception() + " in " + (top.construct().isEmpty() ? "an unknown construct" : top.construct())
+                + " (" + top.count() + "), see " + RejectWriter.FILE_NAME + " and " + RejectWriter.STATS_FILE_NAME);
     }
 
-    public static void generateGraphs(Stream<String> paths) {
+    private static void reportMetrics(Path reportFile) {
+        System.out.println(metrics.progressLine().replaceFirst("^Progress", "Done"));
+        if (reportFile == null) {
+            return;
+        }
         try {
-            CanonicalizationStrategy noCanonicalization = new CanonicalizationStrategy("noneCanonicalization");
-            CanonicalizationStrategy partialCanonicalization = new CanonicalizationStrategy("partCanonicalization",
-                    g -> g.vertexSet().forEach(fn -> fn.getNode().ifPresent(n -> {
-                        n.accept(VARIABLE_CANONICALIZATION_CONVERTER, null);
-                    })));
-            CanonicalizationStrategy fullCanonicalization = new CanonicalizationStrategy("fullCanonicalization",
-                    g -> g.vertexSet().forEach(fn -> fn.getNode().ifPresent(n -> {
-                        n.accept(LITERAL_CANONICALIZATION_CONVERTER, null);
-                    })));
-            CanonicalizationStrategyCollection strategies = new CanonicalizationStrategyCollection(
-                    noCanonicalization,
-                    partialCanonicalization,
-                    fullCanonicalization
-            );
-            try {
-                paths.map(File::new).flatMap(App::createGraphs).forEach(p -> strategies.write(p.getValue0(), p.getValue1()));
-            } finally {
-                strategies.close();
-            }
+            metrics.writeJson(reportFile, GENERATOR_VERSION);
         } catch (IOException e) {
-            e.printStackTrace();
+            System.err.println("Failed to write the metrics to " + reportFile.toAbsolutePath() + " due to " + e);
+        }
+    }
+
+    private static void reportIterableTypes() {
+        IterableTypeCache iterableTypes = astToGraphConverter.getIterableTypes();
+        if (iterableTypes.getLookups() > 0) {
+            System.out.println("Foreach types: " + iterableTypes);
         }
     }
 
@@ -703,7 +745,7 @@ public class App {
                 }
                 """;
 
-        CompilationUnit cu = StaticJavaParser.parse(testJava);
+        CompilationUnit cu = PARSER_PROVIDER.parse(testJava);
         CondExprToIfConverter condExprToIfConverter = new CondExprToIfConverter();
         condExprToIfConverter.rewriteAllCondExprsToIf(cu);
         System.out.println(cu.toString(new DefaultPrinterConfiguration()));
@@ -711,22 +753,35 @@ public class App {
 
     public static void main(String[] args) {
         verifyArgs(args);
-        configureStaticJavaParser();
         switch (args[0]) {
             case "test" -> exportTestGraphs(args[1].equals("all"), Arrays.stream(args).skip(1));
             case "testCondConverter" -> testCondConverter();
             case "analyze" -> System.out.println("Total number of Code States: " + Arrays.stream(args).skip(1)
                     .map(File::new).map(App::runAnalysis).reduce(0, Integer::sum));
-            case "generate" -> generateGraphs(Arrays.stream(args).skip(1));
+            case "generate" -> generateGraphs(parseGenerateOptions(Arrays.stream(args).skip(1).toList()));
+            case "walk" -> generateWalks(parseWalkOptions(Arrays.stream(args).skip(1).toList()));
         }
     }
 
-    private static void configureStaticJavaParser() {
-        TypeSolver reflectionSolver = new ReflectionTypeSolver();
-        JavaSymbolSolver symbolSolver = new JavaSymbolSolver(reflectionSolver);
-        StaticJavaParser.getConfiguration()
-                .setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_17_PREVIEW)
-                .setSymbolResolver(symbolSolver)
-                .setAttributeComments(false);
+    private static GenerateOptions parseGenerateOptions(List<String> args) {
+        try {
+            return GenerateOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.out.println("Usage: ./gradlew run --args=\"" + GenerateOptions.USAGE + "\"");
+            System.exit(BAD_USAGE_ERROR_CODE);
+            return null;
+        }
+    }
+
+    private static WalkOptions parseWalkOptions(List<String> args) {
+        try {
+            return WalkOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.out.println("Usage: ./gradlew run --args=\"" + WalkOptions.USAGE + "\"");
+            System.exit(BAD_USAGE_ERROR_CODE);
+            return null;
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,43 +1,92 @@
 package edu.ncsu.edm.graphgenerator;
 
-import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.expr.ConditionalExpr;
 import com.github.javaparser.ast.expr.Expression;
 import com.github.javaparser.ast.expr.LambdaExpr;
 import com.github.javaparser.ast.stmt.*;
+import com.github.javaparser.ast.type.Type;
 import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
-import com.github.javaparser.resolution.UnsolvedSymbolException;
-import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
-import com.github.javaparser.resolution.types.ResolvedType;
-import com.github.javaparser.resolution.types.parametrization.ResolvedTypeParametersMap;
-import org.jgrapht.Graph;
+import edu.ncsu.edm.graphgenerator.IterableTypeCache.IterableType;
 
 import java.util.*;
 
-public class AstToGraphConverter extends VoidVisitorAdapter<Graph<FlowNode, FlowEdge>> {
+public class AstToGraphConverter extends VoidVisitorAdapter<AstToGraphConverter.ConversionContext> {
+
+    private final JavaParserProvider parserProvider;
+    private final IterableTypeCache iterableTypes = new IterableTypeCache(IterableTypeCache.DEFAULT_SIZE);
+    private final SyntheticStatements synthetic;
+
+    public AstToGraphConverter(JavaParserProvider parserProvider) {
+        this.parserProvider = parserProvider;
+        this.synthetic = new SyntheticStatements(parserProvider);
+    }
+
+    IterableTypeCache getIterableTypes() {
+        return iterableTypes;
+    }
+
+    /**
+     * Everything the converter needs while building one method's graph. The converter itself keeps nothing about the
+     * graph it is building and its shared caches are thread-safe, so one instance can be shared by every thread as long
+     * as each graph gets its own context.
+     */
+    public static class ConversionContext {
+        private final CfgBuilder graph;
+        private int numIndexes = 0;
+        private int numIterators = 0;
+        private Node converting = null;
+
+        public ConversionContext(CfgBuilder graph) {
+            this.graph = graph;
+        }
+
+        /**
+         * @return the construct whose conversion was started last, which is the one being converted if the conversion
+         * fails, unless it failed in a construct after converting the last of its children
+         */
+        public Node getConverting() {
+            return converting;
+        }
+
+        public void setConverting(Node converting) {
+            this.converting = converting;
+        }
+
+        public CfgBuilder getGraph() {
+            return graph;
+        }
+
+        public int nextIndexNumber() {
+            return numIndexes++;
+        }
+
+        public int nextIteratorNumber() {
+            return numIterators++;
+        }
+    }
 
     private static class Edge {
         private final FlowNode source;
         private final FlowNode target;
-        private final FlowEdge edge;
+        private final int edge;
 
-        public Edge(Node source, Graph<FlowNode, FlowEdge> g) {
+        public Edge(Node source, CfgBuilder g) {
             FlowNode tempSource = new FlowNode(source);
-            Set<FlowEdge> edgeSet = g.outgoingEdgesOf(tempSource);
-            if (edgeSet.size() != 1) {
+            int[] edgeSet = g.outgoingEdgesOf(tempSource);
+            if (edgeSet.length != 1) {
                 throw new UnsupportedOperationException("Somehow we ended up visiting the node " + source + " that had " +
-                        edgeSet.size() + " outgoing edges instead of 1. Here's the graph:\n" + g);
+                        edgeSet.length + " outgoing edges instead of 1. Here's the graph:\n" + g);
             }
-            this.edge = edgeSet.stream().findFirst().get();
+            this.edge = edgeSet[0];
 
             // Must be done this way in order to get access to labels
             this.source = g.getEdgeSource(this.edge);
             this.target = g.getEdgeTarget(this.edge);
         }
 
-        public FlowEdge getEdge() {
+        public int getEdge() {
             return edge;
         }
 
@@ -50,38 +99,22 @@ public class AstToGraphConverter extends VoidVisitorAdapter<Graph<FlowNode, Flow
         }
     }
 
-    private static void addDecisionNode(FlowNode decisionNode, FlowNode trueTarget, FlowNode falseTarget, Graph<FlowNode, FlowEdge> g) {
+    private static void addDecisionNode(FlowNode decisionNode, FlowNode trueTarget, FlowNode falseTarget, CfgBuilder g) {
         g.addVertex(decisionNode);
-        g.addEdge(decisionNode, trueTarget, new FlowEdge(true));
-        g.addEdge(decisionNode, falseTarget, new FlowEdge(false));
+        g.addEdge(decisionNode, trueTarget, true);
+        g.addEdge(decisionNode, falseTarget, false);
     }
 
-    private static FlowNode createAndAddDecisionNode(Expression conditionalExpr, FlowNode trueTarget, FlowNode falseTarget, Graph<FlowNode, FlowEdge> g) {
+    private static FlowNode createAndAddDecisionNode(Expression conditionalExpr, FlowNode trueTarget, FlowNode falseTarget, CfgBuilder g) {
         FlowNode decisionNode = new FlowNode(conditionalExpr);
         addDecisionNode(decisionNode, trueTarget, falseTarget, g);
         return decisionNode;
     }
 
-    public static void rerouteIncomingEdges(FlowNode source, FlowNode target, Graph<FlowNode, FlowEdge> g) {
-        Set<FlowEdge> incomingEdges = g.incomingEdgesOf(source);
-        for (FlowEdge iEdge : incomingEdges) {
-            FlowNode edgeSource = g.getEdgeSource(iEdge);
-            FlowEdge edge = iEdge.getFlowCondition().isPresent() ? new FlowEdge(iEdge.getFlowCondition().get()) : new FlowEdge();
-            g.addEdge(edgeSource, target, edge);
-        }
-    }
-
-    public static void rerouteOutgoingEdges(FlowNode source, FlowNode target, Graph<FlowNode, FlowEdge> g) {
-        Set<FlowEdge> incomingEdges = g.outgoingEdgesOf(source);
-        for (FlowEdge iEdge : incomingEdges) {
-            FlowNode edgeTarget = g.getEdgeTarget(iEdge);
-            FlowEdge edge = iEdge.getFlowCondition().isPresent() ? new FlowEdge(iEdge.getFlowCondition().get()) : new FlowEdge();
-            g.addEdge(target, edgeTarget, edge);
-        }
-    }
-
     @Override
-    public void visit(MethodDeclaration methodDeclaration, Graph<FlowNode, FlowEdge> g) {
+    public void visit(MethodDeclaration methodDeclaration, ConversionContext ctx) {
+        ctx.setConverting(methodDeclaration);
+        CfgBuilder g = ctx.getGraph();
         FlowNode callNode = new FlowNode("before");
         FlowNode finishNode = new FlowNode("after");
         g.addVertex(callNode);
@@ -96,57 +129,43 @@ public class AstToGraphConverter extends VoidVisitorAdapter<Graph<FlowNode, Flow
         g.addVertex(methodBody);
         g.addEdge(mdNode, methodBody);
         g.addEdge(methodBody, finishNode);
-        super.visit(methodDeclaration, g);
-        rerouteIncomingEdges(mdNode, g.getEdgeTarget(g.outgoingEdgesOf(mdNode).stream().findFirst().orElseThrow()), g);
+        super.visit(methodDeclaration, ctx);
+        g.rerouteIncomingEdges(mdNode, g.getEdgeTarget(Arrays.stream(g.outgoingEdgesOf(mdNode)).findFirst().orElseThrow()));
         g.removeVertex(mdNode);
     }
 
-    private static int numIndexes = 0;
-    private static int numIterators = 0;
-
     //        Honestly, if I could figure out how to do foreach loops without needing type resolution it would be greatly appreciated
     @Override
-    public void visit(ForEachStmt forEachStmt, Graph<FlowNode, FlowEdge> g) {
+    public void visit(ForEachStmt forEachStmt, ConversionContext ctx) {
+        ctx.setConverting(forEachStmt);
+        CfgBuilder g = ctx.getGraph();
         final Edge edge = new Edge(forEachStmt, g);
         FlowNode body = new FlowNode(forEachStmt.getBody());
         g.addVertex(body);
         // We're dealing with an array and should represent it with an indexed for loop
-        ResolvedType iterableType = null;
-        try {
-            iterableType = forEachStmt.getIterable().calculateResolvedType();
-        } catch (UnsolvedSymbolException ignored) {
-            throw new UnsupportedOperationException("Foreach loops are only supported if their types can be resolved to something known");
-        }
-        Optional<ResolvedReferenceTypeDeclaration> itType = Optional.empty();
-        if (iterableType.isReferenceType()) {
-            itType = forEachStmt.getIterable().calculateResolvedType().asReferenceType().getTypeDeclaration();
-        }
-        boolean isString = itType.isPresent() && itType.get().getClassName().equals("String");
+        IterableType iterableType = iterableTypes.of(forEachStmt).orElseThrow();
+        boolean isString = iterableType.kind() == IterableTypeCache.Kind.STRING;
 
         FlowNode startNode;
         FlowNode decisionNode;
-        if (iterableType.isArray() || isString) {
-            String varType = forEachStmt.getVariable().getVariables().getFirst().orElseThrow().getTypeAsString();
+        if (iterableType.kind() == IterableTypeCache.Kind.ARRAY || isString) {
+            String index = "index" + ctx.nextIndexNumber();
+            Type varType = forEachStmt.getVariable().getVariables().getFirst().orElseThrow().getType();
             String varName = forEachStmt.getVariable().getVariables().getFirst().orElseThrow().getNameAsString();
-            FlowNode varDecl = new FlowNode(StaticJavaParser.parseStatement(varType + " " + varName + ";"));
+            FlowNode varDecl = new FlowNode(synthetic.declareVariable(varType, varName));
             g.addVertex(varDecl);
 
-            FlowNode indexInit = new FlowNode(StaticJavaParser.parseStatement("int index" + numIndexes + " = 0;"));
+            FlowNode indexInit = new FlowNode(synthetic.declareIndex(index));
             g.addVertex(indexInit);
 
-            String getString = isString ? ".get(index" + numIndexes + ");" : "[index" + numIndexes + "];";
-            FlowNode varSet = new FlowNode(StaticJavaParser.parseStatement(varName + " = " +
-                    forEachStmt.getIterable() + getString));
+            FlowNode varSet = new FlowNode(synthetic.assignElement(varName, forEachStmt.getIterable(), index, isString));
             g.addVertex(varSet);
 
-            FlowNode updateIndex = new FlowNode(StaticJavaParser.parseStatement("index" + numIndexes + "++;"));
+            FlowNode updateIndex = new FlowNode(synthetic.increment(index));
             g.addVertex(updateIndex);
 
-            String lengthString = isString ? ".length()" : ".length";
             decisionNode = createAndAddDecisionNode(
-                    StaticJavaParser.parseExpression(
-                            "index" + numIndexes + " < " + forEachStmt.getIterable() + lengthString
-                    ),
+                    synthetic.indexInBounds(index, forEachStmt.getIterable(), isString),
                     varSet,
                     edge.getTarget(),
                     g
@@ -157,32 +176,22 @@ public class AstToGraphConverter extends VoidVisitorAdapter<Graph<FlowNode, Flow
             g.addEdge(body, updateIndex);
             g.addEdge(updateIndex, decisionNode);
             startNode = varDecl;
-            numIndexes++;
         } else { // We're dealing with an iterable and should represent it with an iterator for loop
-            ResolvedTypeParametersMap itTypeParams = iterableType.asReferenceType().typeParametersMap();
-
-            if (itTypeParams.getTypes().size() != 1) {
-                throw new UnsupportedOperationException("An iterable with more than one type was given: " + itTypeParams);
-            }
-
-            FlowNode iteratorInit = new FlowNode(StaticJavaParser.parseStatement("Iterator<" +
-                    itTypeParams.getTypes().get(0).asReferenceType().getQualifiedName() + "> iterator" +
-                    numIterators + " = " + forEachStmt.getIterable() + ".iterator();"));
+            String iterator = "iterator" + ctx.nextIteratorNumber();
+            FlowNode iteratorInit = new FlowNode(synthetic.declareIterator(iterableType.elementType(), iterator,
+                    forEachStmt.getIterable()));
             g.addVertex(iteratorInit);
 
-            String varType = forEachStmt.getVariable().getVariables().getFirst().orElseThrow().getTypeAsString();
+            Type varType = forEachStmt.getVariable().getVariables().getFirst().orElseThrow().getType();
             String varName = forEachStmt.getVariable().getVariables().getFirst().orElseThrow().getNameAsString();
-            FlowNode varDecl = new FlowNode(StaticJavaParser.parseStatement(varType + " " + varName + ";"));
+            FlowNode varDecl = new FlowNode(synthetic.declareVariable(varType, varName));
             g.addVertex(varDecl);
 
-            FlowNode varSet = new FlowNode(StaticJavaParser.parseStatement(varName + " = iterator" + numIterators +
-                    ".next();"));
+            FlowNode varSet = new FlowNode(synthetic.assignNext(varName, iterator));
             g.addVertex(varSet);
 
             decisionNode = createAndAddDecisionNode(
-                    StaticJavaParser.parseExpression(
-                            "iterator" + numIterators + ".hasNext()"
-                    ),
+                    synthetic.hasNext(iterator),
                     varSet,
                     edge.getTarget(),
                     g
@@ -192,23 +201,24 @@ public class AstToGraphConverter extends VoidVisitorAdapter<Graph<FlowNode, Flow
             g.addEdge(varSet, body);
             g.addEdge(body, decisionNode);
             startNode = varDecl;
-            numIterators++;
         }
 
         g.addEdge(edge.getSource(), startNode);
         g.removeEdge(edge.getEdge());
-        g.addEdge(edge.getSource(), edge.getTarget(), new FlowEdge(false));
-        g.addEdge(edge.getSource(), decisionNode, new FlowEdge(true));
+        g.addEdge(edge.getSource(), edge.getTarget(), false);
+        g.addEdge(edge.getSource(), decisionNode, true);
 
-        super.visit(forEachStmt, g);
-        rerouteIncomingEdges(edge.getSource(), startNode, g);
+        super.visit(forEachStmt, ctx);
+        g.rerouteIncomingEdges(edge.getSource(), startNode);
         g.removeVertex(edge.getSource());
     }
 
     @Override
-    public void visit(ForStmt forStmt, Graph<FlowNode, FlowEdge> g) {
+    public void visit(ForStmt forStmt, ConversionContext ctx) {
+        ctx.setConverting(forStmt);
+        CfgBuilder g = ctx.getGraph();
         final Edge edge = new Edge(forStmt, g);
-        FlowNode origin = g.incomingEdgesOf(edge.getSource()).stream().findFirst().map(g::getEdgeSource).orElseThrow();
+        FlowNode origin = g.getEdgeSource(Arrays.stream(g.incomingEdgesOf(edge.getSource())).findFirst().orElseThrow());
         FlowNode parent = edge.getSource();
 
         FlowNode target = edge.getTarget();
@@ -223,7 +233,7 @@ public class AstToGraphConverter extends VoidVisitorAdapter<Graph<FlowNode, Flow
             for (Expression expr : forStmt.getInitialization().stream().skip(1).toList()) {
                 FlowNode exprNode = new FlowNode(expr);
                 g.addVertex(exprNode);
-                g.addEdge(curParent, exprNode, new FlowEdge());
+                g.addEdge(curParent, exprNode);
                 curParent = exprNode;
             }
         }
@@ -273,30 +283,30 @@ public class AstToGraphConverter extends VoidVisitorAdapter<Graph<FlowNode, Flow
         // Create links from update step to conditional step
         g.addEdge(Objects.requireNonNullElse(updateNode, body), parent);
         g.addEdge(parent, startNode);
-        g.addEdge(parent, Objects.requireNonNullElse(updateNode, decisionNode), new FlowEdge(true));
+        g.addEdge(parent, Objects.requireNonNullElse(updateNode, decisionNode), true);
         g.removeEdge(edge.getEdge());
-        g.addEdge(parent, target, new FlowEdge(false));
+        g.addEdge(parent, target, false);
 
-        super.visit(forStmt, g);
+        super.visit(forStmt, ctx);
 
-        Optional<FlowNode> nextStartNode = g.outgoingEdgesOf(parent).stream()
-                .filter(e -> e.getFlowCondition().isEmpty())
-                .map(g::getEdgeTarget)
+        Optional<FlowNode> nextStartNode = Arrays.stream(g.outgoingEdgesOf(parent))
+                .filter(e -> g.getEdgeCondition(e) == FrozenGraph.UNCONDITIONAL)
+                .mapToObj(g::getEdgeTarget)
                 .findFirst();
 
         if (updateNode != null) {
             // Reroute update step from parent to decision node
-            Optional<FlowEdge> updateEdge = g.incomingEdgesOf(parent).stream()
+            OptionalInt updateEdge = Arrays.stream(g.incomingEdgesOf(parent))
                     .filter(fe -> !g.getEdgeSource(fe).equals(origin))
                     .findFirst();
 
             if (updateEdge.isPresent()) {
-                g.removeEdge(updateEdge.get());
+                g.removeEdge(updateEdge.getAsInt());
                 if (startNodeIsBody && nextStartNode.isPresent()) {
                     g.addEdge(updateNode, nextStartNode.get());
                 } else if (decisionNodeIsBody && nextStartNode.isPresent()) {
-                    Optional<FlowNode> bodyNode = g.outgoingEdgesOf(nextStartNode.get()).stream().map(g::getEdgeTarget)
-                            .findFirst();
+                    Optional<FlowNode> bodyNode = Arrays.stream(g.outgoingEdgesOf(nextStartNode.get()))
+                            .mapToObj(g::getEdgeTarget).findFirst();
                     if (bodyNode.isPresent()) {
                         g.addEdge(updateNode, bodyNode.get());
                     }
@@ -308,13 +318,15 @@ public class AstToGraphConverter extends VoidVisitorAdapter<Graph<FlowNode, Flow
 
         // Reroute incoming edges to the new start node
         if (nextStartNode.isPresent()) {
-            rerouteIncomingEdges(parent, nextStartNode.get(), g);
+            g.rerouteIncomingEdges(parent, nextStartNode.get());
             g.removeVertex(parent);
         }
     }
 
     @Override
-    public void visit(IfStmt ifStmt, Graph<FlowNode, FlowEdge> g) {
+    public void visit(IfStmt ifStmt, ConversionContext ctx) {
+        ctx.setConverting(ifStmt);
+        CfgBuilder g = ctx.getGraph();
         final Edge edge = new Edge(ifStmt, g);
         FlowNode falseTarget;
 
@@ -334,18 +346,20 @@ public class AstToGraphConverter extends VoidVisitorAdapter<Graph<FlowNode, Flow
         g.addEdge(trueTarget, edge.getTarget());
         g.addEdge(edge.getSource(), decisionNode);
         g.removeEdge(edge.getEdge());
-        g.addEdge(edge.getSource(), edge.getTarget(), new FlowEdge(false));
-        super.visit(ifStmt, g);
-        rerouteIncomingEdges(edge.getSource(), decisionNode, g);
+        g.addEdge(edge.getSource(), edge.getTarget(), false);
+        super.visit(ifStmt, ctx);
+        g.rerouteIncomingEdges(edge.getSource(), decisionNode);
         g.removeVertex(edge.getSource());
     }
 
     @Override
-    public void visit(BlockStmt blockStmt, Graph<FlowNode, FlowEdge> g) {
+    public void visit(BlockStmt blockStmt, ConversionContext ctx) {
+        ctx.setConverting(blockStmt);
+        CfgBuilder g = ctx.getGraph();
         final Edge edge = new Edge(blockStmt, g);
 
         if (blockStmt.isEmpty()) {
-            rerouteIncomingEdges(edge.getSource(), edge.getTarget(), g);
+            g.rerouteIncomingEdges(edge.getSource(), edge.getTarget());
             g.removeVertex(edge.getSource());
         } else {
             FlowNode firstStatement = new FlowNode(blockStmt.getStatement(0));
@@ -359,58 +373,66 @@ public class AstToGraphConverter extends VoidVisitorAdapter<Graph<FlowNode, Flow
                 parent = target;
             }
             g.addEdge(parent, edge.getTarget());
-            rerouteIncomingEdges(edge.getSource(), firstStatement, g);
+            g.rerouteIncomingEdges(edge.getSource(), firstStatement);
             g.removeVertex(edge.getSource());
         }
-        super.visit(blockStmt, g);
+        super.visit(blockStmt, ctx);
     }
 
     @Override
-    public void visit(WhileStmt whileStmt, Graph<FlowNode, FlowEdge> g) {
+    public void visit(WhileStmt whileStmt, ConversionContext ctx) {
+        ctx.setConverting(whileStmt);
+        CfgBuilder g = ctx.getGraph();
         final Edge edge = new Edge(whileStmt, g);
         FlowNode decisionNode = new FlowNode(whileStmt.getCondition());
         FlowNode body = new FlowNode(whileStmt.getBody());
         g.addVertex(decisionNode);
         g.addVertex(body);
         g.removeEdge(edge.getEdge());
-        g.addEdge(edge.getSource(), edge.getTarget(), new FlowEdge(false));
-        g.addEdge(edge.getSource(), decisionNode, new FlowEdge(true));
+        g.addEdge(edge.getSource(), edge.getTarget(), false);
+        g.addEdge(edge.getSource(), decisionNode, true);
         addDecisionNode(decisionNode, body, edge.getTarget(), g);
         g.addEdge(body, edge.getSource());
-        super.visit(whileStmt, g);
-        rerouteIncomingEdges(edge.getSource(), decisionNode, g);
+        super.visit(whileStmt, ctx);
+        g.rerouteIncomingEdges(edge.getSource(), decisionNode);
         g.removeVertex(edge.getSource());
     }
 
     @Override
-    public void visit(LabeledStmt labeledStmt, Graph<FlowNode, FlowEdge> g) {
+    public void visit(LabeledStmt labeledStmt, ConversionContext ctx) {
+        ctx.setConverting(labeledStmt);
+        CfgBuilder g = ctx.getGraph();
         final Edge edge = new Edge(labeledStmt, g);
         FlowNode labeledNode = new FlowNode(labeledStmt.getStatement(), labeledStmt.getLabel().asString());
         g.addVertex(labeledNode);
-        rerouteIncomingEdges(edge.getSource(), labeledNode, g);
+        g.rerouteIncomingEdges(edge.getSource(), labeledNode);
         g.removeVertex(edge.getSource());
         g.addEdge(labeledNode, edge.getTarget());
-        super.visit(labeledStmt, g);
+        super.visit(labeledStmt, ctx);
     }
 
     // @Override
-    public void visit(DoStmt doWhileStmt, Graph<FlowNode, FlowEdge> g) {
+    public void visit(DoStmt doWhileStmt, ConversionContext ctx) {
+        ctx.setConverting(doWhileStmt);
+        CfgBuilder g = ctx.getGraph();
         final Edge edge = new Edge(doWhileStmt, g);
         FlowNode body = new FlowNode(doWhileStmt.getBody());
         g.addVertex(body);
         FlowNode decisionNode = createAndAddDecisionNode(doWhileStmt.getCondition(), body, edge.getTarget(), g);
         g.addEdge(body, decisionNode);
         g.addEdge(edge.getSource(), body);
-        g.addEdge(edge.getSource(), edge.getTarget(), new FlowEdge(false));
-        g.addEdge(edge.getSource(), decisionNode, new FlowEdge(true));
-        super.visit(doWhileStmt, g);
-        body = g.outgoingEdgesOf(edge.getSource()).stream().filter(e -> e.getFlowCondition().isEmpty())
-                .map(g::getEdgeTarget).findFirst().orElseThrow();
-        rerouteIncomingEdges(edge.getSource(), body, g);
+        g.addEdge(edge.getSource(), edge.getTarget(), false);
+        g.addEdge(edge.getSource(), decisionNode, true);
+        super.visit(doWhileStmt, ctx);
+        body = Arrays.stream(g.outgoingEdgesOf(edge.getSource()))
+                .filter(e -> g.getEdgeCondition(e) == FrozenGraph.UNCONDITIONAL)
+                .mapToObj(g::getEdgeTarget).findFirst().orElseThrow();
+        g.rerouteIncomingEdges(edge.getSource(), body);
     }
 
     @Override
-    public void visit(ConditionalExpr ternaryExpr, Graph<FlowNode, FlowEdge> g) {
+    public void visit(ConditionalExpr ternaryExpr, ConversionContext ctx) {
+        ctx.setConverting(ternaryExpr);
         throw new UnsupportedOperationException();
 //        final Edge edge = new Edge(ternaryExpr, g);
 //        FlowNode thenNode = new FlowNode(ternaryExpr.getThenExpr());
@@ -423,13 +445,15 @@ public class AstToGraphConverter extends VoidVisitorAdapter<Graph<FlowNode, Flow
 //
 //        FlowNode decisionNode = createAndAddDecisionNode(ternaryExpr.getCondition(), thenNode, elseNode, g);
 //
-//        rerouteIncomingEdges(edge.getSource(), decisionNode, g);
+//        g.rerouteIncomingEdges(edge.getSource(), decisionNode);
 //
-//        super.visit(ternaryExpr, g);
+//        super.visit(ternaryExpr, ctx);
     }
 
     @Override
-    public void visit(BreakStmt breakStmt, Graph<FlowNode, FlowEdge> g) {
+    public void visit(BreakStmt breakStmt, ConversionContext ctx) {
+        ctx.setConverting(breakStmt);
+        CfgBuilder g = ctx.getGraph();
         final Edge edge = new Edge(breakStmt, g);
         FlowNode ancestor;
         if (breakStmt.getLabel().isPresent()) {
@@ -437,19 +461,20 @@ public class AstToGraphConverter extends VoidVisitorAdapter<Graph<FlowNode, Flow
         } else {
             ancestor = NodeUtils.getNearestBreakableAncestor(g, edge.getSource());
         }
-        ancestor = g.getEdgeTarget(g.outgoingEdgesOf(ancestor).stream()
-                    .filter(e -> e.getFlowCondition().isPresent() && !e.getFlowCondition().get())
+        ancestor = g.getEdgeTarget(Arrays.stream(g.outgoingEdgesOf(ancestor))
+                    .filter(e -> g.getEdgeCondition(e) == FrozenGraph.WHEN_FALSE)
                     .findFirst().orElseThrow());
 
-        Collection<FlowEdge> edges = g.outgoingEdgesOf(edge.getSource()).stream().toList();
-        g.removeAllEdges(edges);
-        rerouteIncomingEdges(edge.getSource(), ancestor, g);
+        g.removeAllEdges(g.outgoingEdgesOf(edge.getSource()));
+        g.rerouteIncomingEdges(edge.getSource(), ancestor);
         g.removeVertex(edge.getSource());
-        super.visit(breakStmt, g);
+        super.visit(breakStmt, ctx);
     }
 
     @Override
-    public void visit(ContinueStmt continueStmt, Graph<FlowNode, FlowEdge> g) {
+    public void visit(ContinueStmt continueStmt, ConversionContext ctx) {
+        ctx.setConverting(continueStmt);
+        CfgBuilder g = ctx.getGraph();
         final Edge edge = new Edge(continueStmt, g);
         FlowNode ancestor;
         if (continueStmt.getLabel().isPresent()) {
@@ -460,30 +485,33 @@ public class AstToGraphConverter extends VoidVisitorAdapter<Graph<FlowNode, Flow
         } else {
             ancestor = NodeUtils.getNearestContinuableAncestor(g, edge.getSource());
         }
-        ancestor = g.getEdgeTarget(g.outgoingEdgesOf(ancestor).stream()
-             .filter(e -> e.getFlowCondition().isPresent() && e.getFlowCondition().get())
+        ancestor = g.getEdgeTarget(Arrays.stream(g.outgoingEdgesOf(ancestor))
+             .filter(e -> g.getEdgeCondition(e) == FrozenGraph.WHEN_TRUE)
              .findFirst().orElseThrow());
 
-        Collection<FlowEdge> edges = g.outgoingEdgesOf(edge.getSource()).stream().toList();
-        g.removeAllEdges(edges);
-        rerouteIncomingEdges(edge.getSource(), ancestor, g);
+        g.removeAllEdges(g.outgoingEdgesOf(edge.getSource()));
+        g.rerouteIncomingEdges(edge.getSource(), ancestor);
         g.removeVertex(edge.getSource());
-        super.visit(continueStmt, g);
+        super.visit(continueStmt, ctx);
     }
 
     @Override
-    public void visit(ReturnStmt returnStmt, Graph<FlowNode, FlowEdge> g) {
+    public void visit(ReturnStmt returnStmt, ConversionContext ctx) {
+        ctx.setConverting(returnStmt);
+        CfgBuilder g = ctx.getGraph();
         final Edge edge = new Edge(returnStmt, g);
         FlowNode after = NodeUtils.getNearestReturnableAncestor(g, edge.getSource());
-        g.removeAllEdges(g.outgoingEdgesOf(edge.getSource()).stream().toList());
+        g.removeAllEdges(g.outgoingEdgesOf(edge.getSource()));
         g.addEdge(edge.getSource(), after);
-        super.visit(returnStmt, g);
+        super.visit(returnStmt, ctx);
     }
 
     @Override
-    public void visit(SwitchEntry switchEntry, Graph<FlowNode, FlowEdge> g) {
+    public void visit(SwitchEntry switchEntry, ConversionContext ctx) {
+        ctx.setConverting(switchEntry);
+        CfgBuilder g = ctx.getGraph();
         FlowNode switchNode = new FlowNode(switchEntry);
-        switchNode = g.getEdgeTarget(g.incomingEdgesOf(switchNode).stream().findFirst().orElseThrow());
+        switchNode = g.getEdgeTarget(Arrays.stream(g.incomingEdgesOf(switchNode)).findFirst().orElseThrow());
         Expression cond = null;
         if (switchEntry.getLabels().isNonEmpty()) {
             StringBuilder sb = new StringBuilder()
@@ -496,11 +524,11 @@ public class AstToGraphConverter extends VoidVisitorAdapter<Graph<FlowNode, Flow
                   .append(" == ")
                   .append(e);
             }
-            cond = StaticJavaParser.parseExpression(sb.toString());
+            cond = parserProvider.parseExpression(sb.toString());
             FlowNode condNode = new FlowNode(cond);
             g.addVertex(condNode);
-            rerouteIncomingEdges(switchNode, condNode, g);
-            rerouteOutgoingEdges(switchNode, condNode, g);
+            g.rerouteIncomingEdges(switchNode, condNode);
+            g.rerouteOutgoingEdges(switchNode, condNode);
             g.removeVertex(switchNode);
         }
         Node entryNode = cond == null ? switchEntry : cond;
@@ -520,68 +548,74 @@ public class AstToGraphConverter extends VoidVisitorAdapter<Graph<FlowNode, Flow
                 }
                 parent = current;
             }
-            g.addEdge(parent, edge.getTarget(), new FlowEdge(true));
+            g.addEdge(parent, edge.getTarget(), true);
         }
 
-        List<FlowEdge> remapEdges = g.incomingEdgesOf(edge.getSource()).stream()
-                .filter(e -> e.getFlowCondition().isPresent() && e.getFlowCondition().get()).toList();
-        if (!remapEdges.isEmpty()) {
-            for (FlowEdge e: remapEdges) {
+        int[] remapEdges = Arrays.stream(g.incomingEdgesOf(edge.getSource()))
+                .filter(e -> g.getEdgeCondition(e) == FrozenGraph.WHEN_TRUE).toArray();
+        if (remapEdges.length > 0) {
+            for (int e: remapEdges) {
                 FlowNode from = g.getEdgeSource(e);
                 g.removeEdge(e);
-                g.addEdge(from, to, new FlowEdge(true));
+                g.addEdge(from, to, true);
             }
         }
         if (switchEntry.getLabels().isEmpty()) {
             g.addEdge(edge.getSource(), to);
         } else {
-            g.addEdge(edge.getSource(), to, new FlowEdge(true));
+            g.addEdge(edge.getSource(), to, true);
         }
-        super.visit(switchEntry, g);
+        super.visit(switchEntry, ctx);
         if (switchEntry.getLabels().isEmpty()) {
-            FlowEdge firstEdgeToNode = g.outgoingEdgesOf(edge.getSource()).stream().filter(e -> e.getFlowCondition().isEmpty())
+            int firstEdgeToNode = Arrays.stream(g.outgoingEdgesOf(edge.getSource()))
+                    .filter(e -> g.getEdgeCondition(e) == FrozenGraph.UNCONDITIONAL)
                     .findFirst().orElseThrow();
-            rerouteIncomingEdges(edge.getSource(), g.getEdgeTarget(firstEdgeToNode), g);
+            g.rerouteIncomingEdges(edge.getSource(), g.getEdgeTarget(firstEdgeToNode));
             g.removeVertex(edge.getSource());
         }
     }
 
      @Override
-    public void visit(SwitchStmt switchStmt, Graph<FlowNode, FlowEdge> g) {
+    public void visit(SwitchStmt switchStmt, ConversionContext ctx) {
+        ctx.setConverting(switchStmt);
+        CfgBuilder g = ctx.getGraph();
         final Edge edge = new Edge(switchStmt, g);
         g.removeEdge(edge.getEdge());
-        g.addEdge(edge.getSource(), edge.getTarget(), new FlowEdge(false));
+        g.addEdge(edge.getSource(), edge.getTarget(), false);
 
         FlowNode parent = edge.getSource();
         for (SwitchEntry se : switchStmt.getEntries()) {
             FlowNode current = new FlowNode(se);
             current.addMetadata("varname", switchStmt.getSelector().toString());
             g.addVertex(current);
-            g.addEdge(parent, current, new FlowEdge(false));
+            g.addEdge(parent, current, false);
             parent = current;
         }
-        g.addEdge(parent, edge.getTarget(), new FlowEdge(false));
-        super.visit(switchStmt, g);
-        FlowNode first = g.getEdgeTarget(g.outgoingEdgesOf(edge.getSource()).stream()
+        g.addEdge(parent, edge.getTarget(), false);
+        super.visit(switchStmt, ctx);
+        FlowNode first = g.getEdgeTarget(Arrays.stream(g.outgoingEdgesOf(edge.getSource()))
                 .filter(e -> !g.getEdgeTarget(e).equals(edge.getTarget()))
                 .findFirst().orElseThrow());
-        rerouteIncomingEdges(edge.getSource(), first, g);
+        g.rerouteIncomingEdges(edge.getSource(), first);
         g.removeVertex(edge.getSource());
     }
 
     // TODO: Handle TryStmt, CatchClause, ThrowStmt, and YieldStmt as well
     @Override
-    public void visit(TryStmt tryStmt, Graph<FlowNode, FlowEdge> g) {
+    public void visit(TryStmt tryStmt, ConversionContext ctx) {
+        ctx.setConverting(tryStmt);
         throw new UnsupportedOperationException("Try statements are not yet supported");
     }
 
     @Override
-    public void visit(ThrowStmt throwStmt, Graph<FlowNode, FlowEdge> g) {
+    public void visit(ThrowStmt throwStmt, ConversionContext ctx) {
+        ctx.setConverting(throwStmt);
         throw new UnsupportedOperationException("Throw statements are not yet supported");
     }
 
     @Override
-    public void visit(LambdaExpr lambdaExpr, Graph<FlowNode, FlowEdge> g) {
+    public void visit(LambdaExpr lambdaExpr, ConversionContext ctx) {
+        ctx.setConverting(lambdaExpr);
         throw new UnsupportedOperationException("Lambda Expressions are not yet supported");
     }
 }
@@ -0,0 +1,95 @@
+package edu.ncsu.edm.graphgenerator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Hands rendered graphs to a sink on a thread of its own, so a strategy turns graphs into rows and writes them while
+ * the pipeline moves on to the next code state. The graphs wait in an {@link ArrayBlockingQueue}, a ring buffer over a
+ * fixed array, and {@link #submit} blocks while it is full, which keeps a slow disk from letting graphs pile up in
+ * memory.
+ *
+ * <p>Graphs are written in the order they are submitted. A graph the sink fails on is reported and skipped like a
+ * failed synchronous write; anything worse stops the writing, but the thread keeps emptying the queue so submitters
+ * never wait on it forever, and {@link #close()} rethrows it.
+ */
+class AsyncGraphWriter implements Closeable {
+    interface Sink {
+        void write(String codeStateId, RenderedGraph graph) throws IOException;
+    }
+
+    private record Task(String codeStateId, RenderedGraph graph) {}
+
+    private static final Task END = new Task(null, null);
+
+    private final BlockingQueue<Task> queue;
+    private final Thread thread;
+    private volatile Throwable failure;
+    private boolean closed = false;
+
+    public AsyncGraphWriter(String name, int capacity, Sink sink) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.thread = new Thread(() -> this.drain(sink), name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    private void drain(Sink sink) {
+        try {
+            Task task = this.queue.take();
+            while (task != END) {
+                if (this.failure == null) {
+                    try {
+                        sink.write(task.codeStateId(), task.graph());
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                    } catch (Throwable t) {
+                        this.failure = t;
+                    }
+                }
+                task = this.queue.take();
+            }
+        } catch (InterruptedException e) {
+            this.failure = e;
+        }
+    }
+
+    /**
+     * Queues the graph to be written, waiting for room if the queue is full.
+     */
+    public void submit(String codeStateId, RenderedGraph graph) throws IOException {
+        if (this.closed) {
+            throw new IllegalStateException("The writer " + this.thread.getName() + " is already closed");
+        }
+        try {
+            this.queue.put(new Task(codeStateId, graph));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting on " + this.thread.getName());
+        }
+    }
+
+    /**
+     * Waits until every submitted graph has been written.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        try {
+            this.queue.put(END);
+            this.thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting on " + this.thread.getName());
+        }
+        if (this.failure != null) {
+            throw new IOException(this.thread.getName() + " stopped writing", this.failure);
+        }
+    }
+}
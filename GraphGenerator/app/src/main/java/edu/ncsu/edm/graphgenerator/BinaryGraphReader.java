@@ -0,0 +1,117 @@
+package edu.ncsu.edm.graphgenerator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import edu.ncsu.edm.graphgenerator.BinaryGraphWriter.Section;
+
+/**
+ * Reads a file written by {@link BinaryGraphWriter} through a memory map. Each section is mapped on its own, so only
+ * the pages of the graphs that are actually read are loaded.
+ */
+public class BinaryGraphReader implements Closeable {
+    private final FileChannel channel;
+    private final ByteBuffer[] sections = new ByteBuffer[Section.values().length];
+    private final int numGraphs;
+    private final int numStrings;
+
+    public BinaryGraphReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(BinaryGraphWriter.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && this.channel.read(header) >= 0) {
+                // Keep reading until the header is complete or the file ends
+            }
+            header.flip();
+            byte[] magic = new byte[BinaryGraphWriter.MAGIC.length];
+            if (header.remaining() < BinaryGraphWriter.HEADER_SIZE) {
+                throw new IOException(file + " is too short to be a binary graph file");
+            }
+            header.get(magic);
+            int version = header.getInt();
+            int numSections = header.getInt();
+            if (!Arrays.equals(magic, BinaryGraphWriter.MAGIC) || version != BinaryGraphWriter.FORMAT_VERSION
+                    || numSections != this.sections.length) {
+                throw new IOException(file + " isn't a version " + BinaryGraphWriter.FORMAT_VERSION + " binary graph file");
+            }
+            this.numGraphs = Math.toIntExact(header.getLong());
+            header.getLong();
+            header.getLong();
+            this.numStrings = Math.toIntExact(header.getLong());
+            for (int s = 0; s < this.sections.length; s++) {
+                long offset = header.getLong();
+                long length = header.getLong();
+                this.sections[s] = this.channel.map(FileChannel.MapMode.READ_ONLY, offset, length)
+                        .order(ByteOrder.LITTLE_ENDIAN);
+            }
+        } catch (IOException | RuntimeException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    public int numGraphs() {
+        return this.numGraphs;
+    }
+
+    public int numStrings() {
+        return this.numStrings;
+    }
+
+    public String string(int id) {
+        ByteBuffer offsets = this.section(Section.STRING_OFFSETS);
+        int start = Math.toIntExact(offsets.getLong(id * 8));
+        int end = Math.toIntExact(offsets.getLong((id + 1) * 8));
+        byte[] bytes = new byte[end - start];
+        this.section(Section.STRING_BYTES).get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public String codeStateId(int graph) {
+        return this.string(this.section(Section.GRAPH_CODE_STATE_IDS).getInt(graph * 4));
+    }
+
+    public RenderedGraph graph(int graph) {
+        ByteBuffer nodeOffsets = this.section(Section.GRAPH_NODE_OFFSETS);
+        int firstNode = Math.toIntExact(nodeOffsets.getLong(graph * 8));
+        String[] nodeLabels = new String[Math.toIntExact(nodeOffsets.getLong((graph + 1) * 8)) - firstNode];
+        ByteBuffer labels = this.section(Section.NODE_LABELS);
+        for (int n = 0; n < nodeLabels.length; n++) {
+            nodeLabels[n] = this.string(labels.getInt((firstNode + n) * 4));
+        }
+
+        ByteBuffer edgeOffsets = this.section(Section.GRAPH_EDGE_OFFSETS);
+        int firstEdge = Math.toIntExact(edgeOffsets.getLong(graph * 8));
+        int numEdges = Math.toIntExact(edgeOffsets.getLong((graph + 1) * 8)) - firstEdge;
+        int[] edgeSources = new int[numEdges];
+        int[] edgeTargets = new int[numEdges];
+        String[] edgeLabels = new String[numEdges];
+        for (int e = 0; e < numEdges; e++) {
+            edgeSources[e] = this.section(Section.EDGE_SOURCES).getInt((firstEdge + e) * 4);
+            edgeTargets[e] = this.section(Section.EDGE_TARGETS).getInt((firstEdge + e) * 4);
+            edgeLabels[e] = switch (this.section(Section.EDGE_CONDITIONS).get(firstEdge + e)) {
+                case 0 -> "";
+                case 1 -> "true";
+                case 2 -> "false";
+                default -> throw new IllegalStateException("Unknown edge condition in graph " + graph);
+            };
+        }
+        return new RenderedGraph(nodeLabels, edgeSources, edgeTargets, edgeLabels);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    private ByteBuffer section(Section section) {
+        return this.sections[section.ordinal()];
+    }
+}
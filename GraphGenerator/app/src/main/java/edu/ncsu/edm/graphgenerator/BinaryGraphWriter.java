@@ -0,0 +1,245 @@
+package edu.ncsu.edm.graphgenerator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes the graphs of one canonicalization strategy to a single binary file as a compact alternative to its Nodes
+ * and Edges CSVs. Every label and CodeStateId is stored once in a string table and the graphs are flat arrays in CSR
+ * layout, so the file can be memory mapped as is from Java ({@link BinaryGraphReader}) or numpy.
+ *
+ * <p>All numbers are little endian. The file starts with a {@value #HEADER_SIZE} byte header:
+ * <pre>
+ *   0  magic "CFGRAPHS"              8 bytes
+ *   8  format version                int32
+ *  12  number of sections            int32
+ *  16  numGraphs, numNodes, numEdges, numStrings   int64 each
+ *  48  offset and length in bytes of each section  int64 pairs, in the order of {@link Section}
+ * </pre>
+ * Each section starts at a multiple of 8 bytes:
+ * <pre>
+ *   GRAPH_CODE_STATE_IDS  int32[numGraphs]      string id of the CodeStateId each graph belongs to
+ *   GRAPH_NODE_OFFSETS    int64[numGraphs + 1]  graph g's nodes are nodeLabels[offsets[g]:offsets[g + 1]]
+ *   GRAPH_EDGE_OFFSETS    int64[numGraphs + 1]  graph g's edges are edge*[offsets[g]:offsets[g + 1]]
+ *   NODE_LABELS           int32[numNodes]       string id of each node's label
+ *   EDGE_SOURCES          int32[numEdges]       source node, numbered from 0 within its graph
+ *   EDGE_TARGETS          int32[numEdges]       target node, numbered from 0 within its graph
+ *   EDGE_CONDITIONS       int8[numEdges]        0 if unconditional, 1 if taken when true, 2 if taken when false
+ *   STRING_OFFSETS        int64[numStrings + 1] string s is stringBytes[offsets[s]:offsets[s + 1]]
+ *   STRING_BYTES          uint8[]               the UTF-8 bytes of every string
+ * </pre>
+ * Nodes and edges are in the same order as in the CSVs, and the graphs of a code state are consecutive. In numpy a
+ * section is {@code np.frombuffer(mm, dtype='<i4', count=length // 4, offset=offset)} over an mmap of the file.
+ *
+ * <p>The sections are streamed to temporary files while graphs are added and joined together on {@link #close()}.
+ * Like the CSV writers, this is only used from the thread that writes its strategy's graphs: the strategy's
+ * {@link AsyncGraphWriter} thread, or the thread that hands the graphs to the strategy if it writes them synchronously.
+ */
+class BinaryGraphWriter implements Closeable {
+    public static final String FILE_SUFFIX = "Graphs.bin";
+
+    static final byte[] MAGIC = "CFGRAPHS".getBytes(StandardCharsets.US_ASCII);
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 48 + Section.values().length * 16;
+
+    enum Section {
+        GRAPH_CODE_STATE_IDS, GRAPH_NODE_OFFSETS, GRAPH_EDGE_OFFSETS,
+        NODE_LABELS, EDGE_SOURCES, EDGE_TARGETS, EDGE_CONDITIONS,
+        STRING_OFFSETS, STRING_BYTES
+    }
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Path file;
+    private final SectionFile[] sections = new SectionFile[Section.values().length];
+    private final Map<String, Integer> stringIds = new HashMap<>();
+
+    private long numGraphs = 0;
+    private long numNodes = 0;
+    private long numEdges = 0;
+    private long numStringBytes = 0;
+
+    public BinaryGraphWriter(Path file) throws IOException {
+        this.file = file;
+        try {
+            for (Section section : Section.values()) {
+                this.sections[section.ordinal()] = new SectionFile(
+                        file.resolveSibling(file.getFileName() + "." + section.name().toLowerCase() + ".tmp"));
+            }
+        } catch (IOException e) {
+            this.deleteSections();
+            throw e;
+        }
+        this.section(Section.GRAPH_NODE_OFFSETS).putLong(0);
+        this.section(Section.GRAPH_EDGE_OFFSETS).putLong(0);
+        this.section(Section.STRING_OFFSETS).putLong(0);
+    }
+
+    public void addGraph(String codeStateId, RenderedGraph g) throws IOException {
+        this.section(Section.GRAPH_CODE_STATE_IDS).putInt(this.stringId(codeStateId));
+
+        SectionFile nodeLabels = this.section(Section.NODE_LABELS);
+        for (String label : g.nodeLabels()) {
+            nodeLabels.putInt(this.stringId(label));
+        }
+
+        SectionFile sources = this.section(Section.EDGE_SOURCES);
+        SectionFile targets = this.section(Section.EDGE_TARGETS);
+        SectionFile conditions = this.section(Section.EDGE_CONDITIONS);
+        for (int e = 0; e < g.numEdges(); e++) {
+            sources.putInt(g.edgeSources()[e]);
+            targets.putInt(g.edgeTargets()[e]);
+            conditions.put(conditionOf(g.edgeLabels()[e]));
+        }
+
+        this.numGraphs += 1;
+        this.numNodes += g.numNodes();
+        this.numEdges += g.numEdges();
+        this.section(Section.GRAPH_NODE_OFFSETS).putLong(this.numNodes);
+        this.section(Section.GRAPH_EDGE_OFFSETS).putLong(this.numEdges);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (FileChannel out = FileChannel.open(this.file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.put(MAGIC);
+            header.putInt(FORMAT_VERSION);
+            header.putInt(this.sections.length);
+            header.putLong(this.numGraphs);
+            header.putLong(this.numNodes);
+            header.putLong(this.numEdges);
+            header.putLong(this.stringIds.size());
+
+            long offset = HEADER_SIZE;
+            for (SectionFile section : this.sections) {
+                section.flush();
+                header.putLong(offset);
+                header.putLong(section.length);
+                offset = align(offset + section.length);
+            }
+            header.flip();
+            while (header.hasRemaining()) {
+                out.write(header);
+            }
+
+            long position = HEADER_SIZE;
+            for (SectionFile section : this.sections) {
+                long transferred = 0;
+                while (transferred < section.length) {
+                    transferred += section.channel.transferTo(transferred, section.length - transferred, out);
+                }
+                position = align(position + section.length);
+                // Pad up to the next section's alignment
+                out.position(position);
+            }
+        } finally {
+            this.deleteSections();
+        }
+    }
+
+    private int stringId(String s) throws IOException {
+        Integer id = this.stringIds.get(s);
+        if (id == null) {
+            id = this.stringIds.size();
+            this.stringIds.put(s, id);
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            this.section(Section.STRING_BYTES).put(bytes);
+            this.numStringBytes += bytes.length;
+            this.section(Section.STRING_OFFSETS).putLong(this.numStringBytes);
+        }
+        return id;
+    }
+
+    private SectionFile section(Section section) {
+        return this.sections[section.ordinal()];
+    }
+
+    private void deleteSections() throws IOException {
+        for (SectionFile section : this.sections) {
+            if (section != null) {
+                section.channel.close();
+                Files.deleteIfExists(section.path);
+            }
+        }
+    }
+
+    static byte conditionOf(String edgeLabel) {
+        return switch (edgeLabel) {
+            case "" -> 0;
+            case "true" -> 1;
+            case "false" -> 2;
+            default -> throw new IllegalArgumentException("Unknown edge label " + edgeLabel);
+        };
+    }
+
+    static long align(long offset) {
+        return (offset + 7) & ~7L;
+    }
+
+    private static class SectionFile {
+        private final Path path;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private long length = 0;
+
+        SectionFile(Path path) throws IOException {
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        void put(byte b) throws IOException {
+            this.ensureRemaining(1);
+            this.buffer.put(b);
+            this.length += 1;
+        }
+
+        void putInt(int i) throws IOException {
+            this.ensureRemaining(4);
+            this.buffer.putInt(i);
+            this.length += 4;
+        }
+
+        void putLong(long l) throws IOException {
+            this.ensureRemaining(8);
+            this.buffer.putLong(l);
+            this.length += 8;
+        }
+
+        void put(byte[] bytes) throws IOException {
+            int written = 0;
+            while (written < bytes.length) {
+                this.ensureRemaining(1);
+                int n = Math.min(this.buffer.remaining(), bytes.length - written);
+                this.buffer.put(bytes, written, n);
+                written += n;
+            }
+            this.length += bytes.length;
+        }
+
+        void flush() throws IOException {
+            this.buffer.flip();
+            while (this.buffer.hasRemaining()) {
+                this.channel.write(this.buffer);
+            }
+            this.buffer.clear();
+        }
+
+        private void ensureRemaining(int n) throws IOException {
+            if (this.buffer.remaining() < n) {
+                this.flush();
+            }
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package edu.ncsu.edm.graphgenerator;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.*;
+import com.github.javaparser.ast.stmt.BreakStmt;
+import com.github.javaparser.ast.stmt.ContinueStmt;
+import com.github.javaparser.printer.DefaultPrettyPrinter;
+import com.github.javaparser.printer.DefaultPrettyPrinterVisitor;
+import com.github.javaparser.printer.Printer;
+import com.github.javaparser.printer.configuration.DefaultPrinterConfiguration;
+import com.github.javaparser.printer.configuration.PrinterConfiguration;
+
+import java.util.Optional;
+
+/**
+ * Prints nodes the way they read after {@link VariableCanonicalizationConverter} and, for
+ * {@link Canonicalization#LITERALS}, {@link LiteralCanonicalizationConverter} have run over them, without rewriting
+ * the AST. The labels of every strategy can then be taken from the same untouched graph, in any order and from any
+ * thread.
+ *
+ * <p>The converters rewrite every name and literal they visit below a vertex, and since the vertices of a graph cover
+ * the whole method body, that is every name and literal a label prints except the names within the type of a variable
+ * declaration, which {@link VariableCanonicalizationConverter} doesn't visit.
+ */
+class CanonicalLabelPrinter {
+    /**
+     * How much of the code of a node its label leaves out. Each level includes the ones before it.
+     */
+    public enum Canonicalization { NONE, VARIABLES, LITERALS }
+
+    private final Canonicalization canonicalization;
+    private final Printer printer;
+
+    public CanonicalLabelPrinter(Canonicalization canonicalization) {
+        this.canonicalization = canonicalization;
+        this.printer = canonicalization == Canonicalization.NONE ? null : new DefaultPrettyPrinter(
+                configuration -> new Visitor(configuration, canonicalization == Canonicalization.LITERALS),
+                new DefaultPrinterConfiguration());
+    }
+
+    /**
+     * Labels are rendered by {@link LabelRenderer} where it covers the node, and by the pretty printer otherwise.
+     */
+    public String print(Node node) {
+        String label = LabelRenderer.render(node, this.canonicalization);
+        if (label != null) {
+            return label;
+        }
+        return this.printer == null ? node.toString() : this.printer.print(node);
+    }
+
+    /**
+     * Like {@link #print}, but a label from {@link LabelRenderer} is left in its buffer, so it has to be used before
+     * the thread prints another label.
+     */
+    public CharSequence printInPlace(Node node) {
+        CharSequence label = LabelRenderer.renderInPlace(node, this.canonicalization);
+        if (label != null) {
+            return label;
+        }
+        return this.printer == null ? node.toString() : this.printer.print(node);
+    }
+
+    private static boolean isCanonicalized(SimpleName name) {
+        Node child = name;
+        Optional<Node> parent = name.getParentNode();
+        while (parent.isPresent()) {
+            if (parent.get() instanceof VariableDeclarator declarator) {
+                if (declarator.getName() == name) {
+                    return true;
+                }
+                if (declarator.getType() == child) {
+                    return false;
+                }
+            }
+            child = parent.get();
+            parent = child.getParentNode();
+        }
+        return VariableCanonicalizationConverter.isCanonicalized(name);
+    }
+
+    private static class Visitor extends DefaultPrettyPrinterVisitor {
+        private final boolean literals;
+
+        Visitor(PrinterConfiguration configuration, boolean literals) {
+            super(configuration);
+            this.literals = literals;
+        }
+
+        @Override
+        public void visit(SimpleName n, Void arg) {
+            if (isCanonicalized(n)) {
+                this.printer.print(VariableCanonicalizationConverter.PLACEHOLDER);
+            } else {
+                super.visit(n, arg);
+            }
+        }
+
+        // The pretty printer prints the labels of break and continue without visiting them
+        @Override
+        public void visit(BreakStmt n, Void arg) {
+            if (n.getLabel().isPresent() && isCanonicalized(n.getLabel().get())) {
+                super.visit(new BreakStmt(VariableCanonicalizationConverter.PLACEHOLDER), arg);
+            } else {
+                super.visit(n, arg);
+            }
+        }
+
+        @Override
+        public void visit(ContinueStmt n, Void arg) {
+            if (n.getLabel().isPresent() && isCanonicalized(n.getLabel().get())) {
+                super.visit(new ContinueStmt(VariableCanonicalizationConverter.PLACEHOLDER), arg);
+            } else {
+                super.visit(n, arg);
+            }
+        }
+
+        @Override
+        public void visit(BooleanLiteralExpr n, Void arg) {
+            if (!this.printPlaceholder(n)) {
+                super.visit(n, arg);
+            }
+        }
+
+        @Override
+        public void visit(CharLiteralExpr n, Void arg) {
+            if (!this.printPlaceholder(n)) {
+                super.visit(n, arg);
+            }
+        }
+
+        @Override
+        public void visit(DoubleLiteralExpr n, Void arg) {
+            if (!this.printPlaceholder(n)) {
+                super.visit(n, arg);
+            }
+        }
+
+        @Override
+        public void visit(IntegerLiteralExpr n, Void arg) {
+            if (!this.printPlaceholder(n)) {
+                super.visit(n, arg);
+            }
+        }
+
+        @Override
+        public void visit(LongLiteralExpr n, Void arg) {
+            if (!this.printPlaceholder(n)) {
+                super.visit(n, arg);
+            }
+        }
+
+        @Override
+        public void visit(StringLiteralExpr n, Void arg) {
+            if (!this.printPlaceholder(n)) {
+                super.visit(n, arg);
+            }
+        }
+
+        @Override
+        public void visit(TextBlockLiteralExpr n, Void arg) {
+            if (!this.printPlaceholder(n)) {
+                super.visit(n, arg);
+            }
+        }
+
+        // LiteralCanonicalizationConverter can only replace literals that have a parent to replace them in
+        private boolean printPlaceholder(LiteralExpr n) {
+            if (!this.literals || n.getParentNode().isEmpty()) {
+                return false;
+            }
+            this.printer.print(LiteralCanonicalizationConverter.placeholderOf(n));
+            return true;
+        }
+    }
+}
@@ -0,0 +1,494 @@
+package edu.ncsu.edm.graphgenerator;
+
+import com.opencsv.CSVWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jetbrains.annotations.Nullable;
+
+import edu.ncsu.edm.graphgenerator.CanonicalLabelPrinter.Canonicalization;
+
+class CanonicalizationStrategy {
+    /**
+     * Which files the graphs are written to: the Nodes and Edges CSVs, the file of {@link BinaryGraphWriter}, or both.
+     */
+    public enum OutputFormat {
+        CSV, BINARY, BOTH;
+
+        public boolean writesCsv() {
+            return this != BINARY;
+        }
+
+        public boolean writesBinary() {
+            return this != CSV;
+        }
+    }
+
+    /**
+     * Writes the Nodes and Edges CSVs gzipped, with their blocks compressed by a {@link ParallelGzipOutputStream}.
+     * Every file opened with the same Compression shares its pool of compressing threads, which is shut down when it
+     * is closed, after the files are.
+     *
+     * @param level       the deflate level from 0 to 9
+     * @param threads     how many threads compress the files, or 0 to compress each on the thread that writes it
+     * @param compressors the pool of {@code threads} threads, or null if there are none
+     */
+    public record Compression(int level, int threads, @Nullable ExecutorService compressors) implements Closeable {
+        public static final String FILE_SUFFIX = ".gz";
+        public static final int DEFAULT_LEVEL = 6;
+
+        public static Compression of(int level, int threads) {
+            return new Compression(level, threads, threads > 0 ? ParallelGzipOutputStream.newCompressors(threads) : null);
+        }
+
+        /**
+         * Gzips the stream on the shared pool, with at most two blocks per thread of it in flight.
+         */
+        public OutputStream open(OutputStream out) throws IOException {
+            return new ParallelGzipOutputStream(out, this.level, this.compressors, this.threads * 2);
+        }
+
+        @Override
+        public void close() {
+            if (this.compressors != null) {
+                this.compressors.shutdown();
+            }
+        }
+    }
+
+    /**
+     * How a strategy writes its files.
+     *
+     * @param labelIds        whether the Nodes CSV holds the ids of node labels from a {@link LabelDictionary} instead
+     *                        of the labels themselves
+     * @param writeBufferSize the size in bytes of the buffers each CSV is written through, or 0 to write it with a
+     *                        plain FileWriter
+     * @param flushRows       how many node and edge rows are collected before they are handed to the CSV writers
+     * @param writerQueue     how many graphs may wait for the strategy's {@link AsyncGraphWriter}, or 0 to write them
+     *                        on the thread that hands them over
+     * @param compression     how the Nodes and Edges CSVs are compressed, or null to write them uncompressed
+     * @param shards          how many sets of Nodes and Edges CSVs and binary graph files the graphs are split across
+     *                        by the hash of their CodeStateId, with a manifest of the shards; 1 writes the usual files
+     */
+    public record OutputSettings(OutputFormat format,
+                                 boolean labelIds,
+                                 int writeBufferSize,
+                                 int flushRows,
+                                 int writerQueue,
+                                 Compression compression,
+                                 int shards) {
+        public static final int DEFAULT_WRITE_BUFFER_SIZE = 1 << 16;
+        public static final int DEFAULT_FLUSH_ROWS = 4096;
+        public static final int DEFAULT_WRITER_QUEUE = 1024;
+
+        public static final OutputSettings DEFAULT = new OutputSettings(OutputFormat.CSV, false,
+                DEFAULT_WRITE_BUFFER_SIZE, DEFAULT_FLUSH_ROWS, DEFAULT_WRITER_QUEUE, null, 1);
+    }
+
+    public static final String MANIFEST_SUFFIX = "Manifest.csv";
+
+    /**
+     * The files one shard of the strategy's graphs is written to, with what has been written to them. Every graph of
+     * a code state goes to the same shard, and like the rest of the strategy's output it is only written from one
+     * thread at a time.
+     */
+    private static final class Shard {
+        private final String nodeName;
+        private final String edgeName;
+        private final String binaryName;
+        private final CSVWriter nodes;
+        private final CSVWriter edges;
+        private final BinaryGraphWriter binary;
+        private final List<String[]> nodeLines = new ArrayList<>();
+        private final List<String[]> edgeLines = new ArrayList<>();
+
+        private String lastCodeStateId = null;
+        private long codeStates = 0;
+        private long graphs = 0;
+        private long nodeRows = 0;
+        private long edgeRows = 0;
+
+        /**
+         * @param name what sets the shard's files apart, e.g. {@code "-3"}, which is empty for the files of a strategy
+         *             that isn't sharded
+         */
+        private Shard(String strategy, String name, OutputSettings settings) throws IOException {
+            OutputFormat format = settings.format();
+            String csvSuffix = ".csv" + (settings.compression() == null ? "" : Compression.FILE_SUFFIX);
+            this.nodeName = format.writesCsv() ? strategy + "Nodes" + name + csvSuffix : null;
+            this.edgeName = format.writesCsv() ? strategy + "Edges" + name + csvSuffix : null;
+            this.binaryName = format.writesBinary() ? strategy + "Graphs" + name + ".bin" : null;
+
+            Writer nodeFile = null;
+            Writer edgeFile = null;
+            if (format.writesCsv()) {
+                try {
+                    nodeFile = openCsv(this.nodeName, settings);
+                } catch (IOException ignored) {
+                    throw new RuntimeException("Couldn't create " + this.nodeName);
+                }
+
+                try {
+                    edgeFile = openCsv(this.edgeName, settings);
+                } catch (IOException e) {
+                    nodeFile.close();
+                    throw new RuntimeException("Couldn't create " + this.edgeName);
+                }
+            }
+
+            BinaryGraphWriter binaryWriter = null;
+            if (format.writesBinary()) {
+                try {
+                    binaryWriter = new BinaryGraphWriter(Path.of(this.binaryName));
+                } catch (IOException e) {
+                    closeAll(nodeFile, edgeFile);
+                    throw new RuntimeException("Couldn't create " + this.binaryName);
+                }
+            }
+
+            if (nodeFile != null) {
+                this.nodes = new CSVWriter(nodeFile);
+                this.nodes.writeNext(new String[] { "CodeStateId", "MethodNum", "NodeId", "NodeData" });
+                this.edges = new CSVWriter(edgeFile);
+                this.edges.writeNext(new String[] { "CodeStateId", "MethodNum", "Node1Id", "Node2Id", "EdgeData" });
+            } else {
+                this.nodes = null;
+                this.edges = null;
+            }
+            this.binary = binaryWriter;
+        }
+
+        private void flushLines() {
+            if (this.nodes == null) {
+                return;
+            }
+            this.nodes.writeAll(this.nodeLines);
+            this.edges.writeAll(this.edgeLines);
+            this.nodeLines.clear();
+            this.edgeLines.clear();
+        }
+
+        private void close() throws IOException {
+            closeAll(this.nodes, this.edges, this.binary);
+        }
+    }
+
+    private final Shard[] shards;
+    private final Compression compression;
+    private final String manifestName;
+    private final CSVWriter stats;
+    private final LabelDictionary labels;
+    private final CanonicalLabelPrinter printer;
+    private final int flushRows;
+    private final AsyncGraphWriter writer;
+    // Only used by the thread that writes the graphs
+    private final AtomicInteger countedMethods = new AtomicInteger(0);
+    private int pendingRows = 0;
+
+    private final AtomicInteger numGraphs = new AtomicInteger(0);
+    private final AtomicInteger numCodeStates = new AtomicInteger(0);
+    private final AtomicInteger numMethodsWithCondExpr = new AtomicInteger(0);
+
+    public CanonicalizationStrategy(String strategy) throws IOException {
+        this(strategy, Canonicalization.NONE);
+    }
+
+    public CanonicalizationStrategy(String strategy, Canonicalization canonicalization) throws IOException {
+        this(strategy, canonicalization, OutputSettings.DEFAULT);
+    }
+
+    public CanonicalizationStrategy(String strategy,
+                                    Canonicalization canonicalization,
+                                    OutputSettings settings) throws IOException {
+        if (settings.shards() < 1) {
+            throw new IllegalArgumentException("A strategy needs at least one shard, got " + settings.shards());
+        }
+        String statName = strategy + "Stats.csv";
+        String labelName = strategy + LabelDictionary.FILE_SUFFIX;
+
+        Shard[] shardFiles = new Shard[settings.shards()];
+        for (int i = 0; i < shardFiles.length; i++) {
+            try {
+                shardFiles[i] = new Shard(strategy, shardFiles.length == 1 ? "" : "-" + i, settings);
+            } catch (IOException | RuntimeException e) {
+                closeShards(shardFiles);
+                throw e;
+            }
+        }
+
+        FileWriter statsFile = null;
+        try {
+            statsFile = new FileWriter(statName);
+        } catch (IOException e) {
+            closeShards(shardFiles);
+            throw new RuntimeException("Couldn't create " + statName);
+        }
+
+        LabelDictionary labelDictionary = null;
+        if (settings.labelIds() && settings.format().writesCsv()) {
+            try {
+                labelDictionary = new LabelDictionary(labelName);
+            } catch (IOException e) {
+                closeShards(shardFiles);
+                closeAll(statsFile);
+                throw new RuntimeException("Couldn't create " + labelName);
+            }
+        }
+
+        this.shards = shardFiles;
+        this.compression = settings.compression();
+        this.manifestName = shardFiles.length > 1 ? strategy + MANIFEST_SUFFIX : null;
+        CSVWriter statsCsv = new CSVWriter(statsFile);
+        statsCsv.writeNext(new String[] { "Number of Graphs", "Number of CodeStates", "Number of Methods with ConditionalExpr"});
+        this.stats = statsCsv;
+        this.labels = labelDictionary;
+        this.printer = new CanonicalLabelPrinter(canonicalization);
+        this.flushRows = settings.flushRows();
+        this.writer = settings.writerQueue() > 0
+                ? new AsyncGraphWriter(strategy + "-writer", settings.writerQueue(), this::writeGraph)
+                : null;
+    }
+
+    /**
+     * A FileWriter already encodes through an 8 KiB byte buffer and writes it out whenever it fills up, so the buffer
+     * that cuts down on writes has to sit below the encoder. The one above it saves encoding every row separately. A
+     * compressed CSV needs no buffer below the encoder, since the gzip stream only writes whole compressed blocks.
+     */
+    private static Writer openCsv(String fileName, OutputSettings settings) throws IOException {
+        int bufferSize = settings.writeBufferSize();
+        Compression compression = settings.compression();
+        if (bufferSize <= 0 && compression == null) {
+            return new FileWriter(fileName);
+        }
+        OutputStream file = new FileOutputStream(fileName);
+        if (compression != null) {
+            try {
+                file = compression.open(file);
+            } catch (IOException e) {
+                file.close();
+                throw e;
+            }
+        } else {
+            file = new BufferedOutputStream(file, bufferSize);
+        }
+        Writer encoder = new OutputStreamWriter(file, Charset.defaultCharset());
+        return bufferSize <= 0 ? encoder : new BufferedWriter(encoder, bufferSize);
+    }
+
+    /**
+     * Closes every file even if some of them fail to close, and then throws the first failure with the others
+     * suppressed in it.
+     */
+    private static void closeAll(Closeable... files) throws IOException {
+        IOException failure = null;
+        for (Closeable file : files) {
+            if (file != null) {
+                failure = closing(failure, file);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static void closeShards(Shard[] shards) throws IOException {
+        closeAll(Arrays.stream(shards).<Closeable>map(shard -> shard == null ? null : shard::close)
+                .toArray(Closeable[]::new));
+    }
+
+    /**
+     * Runs one step of closing the strategy, and returns the first failure of the steps so far.
+     */
+    private static IOException closing(IOException failure, Closeable step) {
+        try {
+            step.close();
+        } catch (IOException e) {
+            if (failure == null) {
+                return e;
+            }
+            failure.addSuppressed(e);
+        }
+        return failure;
+    }
+
+    /**
+     * @return how the strategy's CSVs are compressed, or null if they aren't. The strategy doesn't close it, since it
+     * may be shared with other strategies.
+     */
+    public Compression getCompression() {
+        return this.compression;
+    }
+
+    /**
+     * The shard the graphs of a code state are written to. String hash codes are the same in every JVM, so a code
+     * state always lands in the same shard for the same number of shards.
+     */
+    public int shardOf(String codeStateId) {
+        return Math.floorMod(codeStateId.hashCode(), this.shards.length);
+    }
+
+    /**
+     * Writes out what is left and closes every file. If the writer thread or one of the files failed, the rest are
+     * still closed, so a gzipped CSV gets its trailer and the stats and manifest describe what was written, and the
+     * first failure is thrown at the end.
+     */
+    public void close() throws IOException {
+        IOException failure = this.writer == null ? null : closing(null, this.writer);
+        failure = closing(failure, () -> {
+            this.flushLines();
+            stats.writeNext(new String[] { numGraphs.toString(), numCodeStates.toString(), numMethodsWithCondExpr.toString() });
+            stats.close();
+        });
+        failure = closing(failure, () -> closeShards(this.shards));
+        failure = closing(failure, () -> closeAll(labels));
+        if (this.manifestName != null) {
+            failure = closing(failure, this::writeManifest);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Lists every file of every shard with its size in bytes, the code states and graphs in it, and its rows: nodes
+     * for a Nodes CSV, edges for an Edges CSV and graphs for a binary graph file.
+     */
+    private void writeManifest() throws IOException {
+        try (CSVWriter manifest = new CSVWriter(new FileWriter(this.manifestName))) {
+            manifest.writeNext(new String[] { "Shard", "File", "Bytes", "CodeStates", "Graphs", "Rows" });
+            for (int i = 0; i < this.shards.length; i++) {
+                Shard shard = this.shards[i];
+                String[] files = { shard.nodeName, shard.edgeName, shard.binaryName };
+                long[] rows = { shard.nodeRows, shard.edgeRows, shard.graphs };
+                for (int f = 0; f < files.length; f++) {
+                    if (files[f] == null) {
+                        continue;
+                    }
+                    manifest.writeNext(new String[] {
+                            String.valueOf(i),
+                            Path.of(files[f]).getFileName().toString(),
+                            String.valueOf(Files.size(Path.of(files[f]))),
+                            String.valueOf(shard.codeStates),
+                            String.valueOf(shard.graphs),
+                            String.valueOf(rows[f])
+                    });
+                }
+            }
+        }
+    }
+
+    /**
+     * Captures the graph's node labels as canonicalized by this strategy and its edge labels. The graph isn't changed,
+     * so this is safe to call from worker threads and for any number of strategies on the same graph.
+     */
+    public RenderedGraph render(FrozenGraph g) {
+        return RenderedGraph.of(g, this::label);
+    }
+
+    public String label(FlowNode n) {
+        return this.labels == null ? n.toString(this.printer) : this.labels.intern(n.toCharSequence(this.printer));
+    }
+
+    /**
+     * Adds the methods of a code state that had a conditional expression to the count in the stats file.
+     */
+    public void countMethodsWithCondExpr(int methods) {
+        this.numMethodsWithCondExpr.addAndGet(methods);
+    }
+
+    /**
+     * Writes the graph as the next method of the code state, on the strategy's {@link AsyncGraphWriter} if it has one.
+     */
+    public void write(String codeStateId, RenderedGraph g) throws IOException {
+        if (this.writer != null) {
+            this.writer.submit(codeStateId, g);
+        } else {
+            this.writeGraph(codeStateId, g);
+        }
+    }
+
+    private void writeGraph(String codeStateId, RenderedGraph g) throws IOException {
+        this.countedMethods.set(0);
+        this.addLinesForGraph(codeStateId, g, this.countedMethods);
+        this.writeLines();
+    }
+
+    public void addLinesForGraph(String codeStateId,
+                                 RenderedGraph g,
+                                 AtomicInteger currentCodeStateCountedMethods) throws IOException {
+
+        if (currentCodeStateCountedMethods.get() == 0) {
+            this.numCodeStates.incrementAndGet();
+        }
+
+        String nm = Integer.toString(currentCodeStateCountedMethods.incrementAndGet());
+        this.numGraphs.incrementAndGet();
+        Shard shard = this.shards[this.shardOf(codeStateId)];
+        if (!codeStateId.equals(shard.lastCodeStateId)) {
+            shard.lastCodeStateId = codeStateId;
+            shard.codeStates++;
+        }
+        shard.graphs++;
+        if (shard.binary != null) {
+            shard.binary.addGraph(codeStateId, g);
+        }
+        if (shard.nodes == null) {
+            return;
+        }
+
+        for (int id = 0; id < g.numNodes(); id++) {
+            shard.nodeLines.add(new String[]{
+                    codeStateId,
+                    nm,
+                    String.valueOf(id),
+                    this.labels == null ? g.nodeLabels()[id] : String.valueOf(this.labels.idOf(g.nodeLabels()[id]))
+            });
+        }
+
+        for (int e = 0; e < g.numEdges(); e++) {
+            shard.edgeLines.add(new String[]{
+                    codeStateId,
+                    nm,
+                    String.valueOf(g.edgeSources()[e]),
+                    String.valueOf(g.edgeTargets()[e]),
+                    g.edgeLabels()[e]
+            });
+        }
+        shard.nodeRows += g.numNodes();
+        shard.edgeRows += g.numEdges();
+        this.pendingRows += g.numNodes() + g.numEdges();
+    }
+
+    /**
+     * Hands the collected rows to the CSV writers once there are at least {@link OutputSettings#flushRows()} of them
+     * across all shards. Whatever is left is written when the strategy is closed.
+     */
+    public void writeLines() {
+        if (this.pendingRows >= this.flushRows) {
+            this.flushLines();
+        }
+    }
+
+    private void flushLines() {
+        for (Shard shard : this.shards) {
+            shard.flushLines();
+        }
+        this.pendingRows = 0;
+    }
+}
@@ -0,0 +1,98 @@
+package edu.ncsu.edm.graphgenerator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+record CanonicalizationStrategyCollection(CanonicalizationStrategy... strategies) {
+
+    /**
+     * The graphs of one code state as rendered by every strategy. {@code graphs.get(i)} holds one entry per strategy,
+     * in the same order as the collection, and an entry is null if that strategy failed to render the graph. The
+     * number of its methods that had a conditional expression and the methods that couldn't be converted come along
+     * with the graphs, so a code state taken from the cache or copied from a duplicate is counted like a built one.
+     */
+    public record RenderedCodeState(String codeStateId,
+                                    List<RenderedGraph[]> graphs,
+                                    int methodsWithCondExpr,
+                                    List<RejectWriter.Reject> rejects) {
+        public RenderedCodeState withCodeStateId(String codeStateId) {
+            return new RenderedCodeState(codeStateId, this.graphs, this.methodsWithCondExpr, this.rejects);
+        }
+    }
+
+    /**
+     * Closes every strategy, reporting the ones whose files couldn't be written completely, and then the compression
+     * they share.
+     *
+     * @return whether every strategy was written and closed without a failure
+     */
+    public boolean close() {
+        boolean allClosed = true;
+        for (CanonicalizationStrategy strategy : this.strategies) {
+            try {
+                strategy.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+                allClosed = false;
+            }
+        }
+        for (CanonicalizationStrategy strategy : this.strategies) {
+            if (strategy.getCompression() != null) {
+                strategy.getCompression().close();
+            }
+        }
+        return allClosed;
+    }
+
+    public RenderedCodeState render(String codeStateId,
+                                    Stream<FrozenGraph> graphs,
+                                    int methodsWithCondExpr,
+                                    List<RejectWriter.Reject> rejects) {
+        List<RenderedGraph[]> rendered = new ArrayList<>();
+        graphs.forEach(
+            g -> {
+                RenderedGraph[] byStrategy = new RenderedGraph[this.strategies.length];
+                // Every strategy shares the first one's edges and only labels the nodes itself
+                RenderedGraph first = null;
+                for (int i = 0; i < this.strategies.length; i++) {
+                    try {
+                        byStrategy[i] = first == null
+                                ? this.strategies[i].render(g)
+                                : first.relabel(g, this.strategies[i]::label);
+                        if (first == null) {
+                            first = byStrategy[i];
+                        }
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                    }
+                }
+                rendered.add(byStrategy);
+            }
+        );
+        return new RenderedCodeState(codeStateId, rendered, methodsWithCondExpr, rejects);
+    }
+
+    public boolean write(RenderedCodeState codeState) {
+        for (CanonicalizationStrategy strategy : this.strategies) {
+            strategy.countMethodsWithCondExpr(codeState.methodsWithCondExpr());
+        }
+        boolean allWritten = true;
+        for (RenderedGraph[] byStrategy : codeState.graphs()) {
+            for (int i = 0; i < this.strategies.length; i++) {
+                if (byStrategy[i] == null) {
+                    allWritten = false;
+                    continue;
+                }
+                try {
+                    this.strategies[i].write(codeState.codeStateId(), byStrategy[i]);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    allWritten = false;
+                }
+            }
+        }
+        return allWritten;
+    }
+}
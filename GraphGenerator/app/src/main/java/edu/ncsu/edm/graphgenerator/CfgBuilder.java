@@ -0,0 +1,310 @@
+package edu.ncsu.edm.graphgenerator;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultDirectedGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The mutable graph {@link AstToGraphConverter} builds a CFG in. Vertices and edges are numbered in the order they
+ * are added and never reused: a vertex keeps lists of its incoming and outgoing edge numbers, and an edge is its
+ * source, its target and one byte of flags holding its condition, as in {@link FrozenGraph}, and whether it was
+ * removed. That is all the converter needs from a graph, without an edge object and a map of edge sets per vertex.
+ *
+ * <p>It behaves as the jgrapht DefaultDirectedGraph it replaces did: adding a vertex that is already there or an edge
+ * between two vertices that already have one does nothing, vertices and edges keep the order they were added in, and
+ * so do the edges of each vertex. Edges are passed around as their numbers, which {@link #addEdge} returns.
+ */
+public final class CfgBuilder {
+    private static final byte CONDITION = 0b11;
+    private static final byte REMOVED = 0b100;
+
+    /**
+     * The edge numbers of one vertex in the order they were added.
+     */
+    private static final class EdgeList {
+        private int[] edges = new int[2];
+        private int size = 0;
+
+        void add(int edge) {
+            if (this.size == this.edges.length) {
+                this.edges = Arrays.copyOf(this.edges, this.size * 2);
+            }
+            this.edges[this.size++] = edge;
+        }
+
+        void remove(int edge) {
+            for (int i = 0; i < this.size; i++) {
+                if (this.edges[i] == edge) {
+                    System.arraycopy(this.edges, i + 1, this.edges, i, this.size - i - 1);
+                    this.size -= 1;
+                    return;
+                }
+            }
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(this.edges, this.size);
+        }
+    }
+
+    private final Map<FlowNode, Integer> vertexIds = new HashMap<>();
+    // Null once a vertex is removed
+    private FlowNode[] vertices = new FlowNode[16];
+    private EdgeList[] incoming = new EdgeList[16];
+    private EdgeList[] outgoing = new EdgeList[16];
+    private int numVertexIds = 0;
+    private int numVertices = 0;
+
+    private int[] sources = new int[16];
+    private int[] targets = new int[16];
+    private byte[] flags = new byte[16];
+    private int numEdgeIds = 0;
+    private int numEdges = 0;
+
+    /**
+     * @return whether the vertex was added, false if an equal one is already in the graph
+     */
+    public boolean addVertex(FlowNode v) {
+        if (this.vertexIds.putIfAbsent(v, this.numVertexIds) != null) {
+            return false;
+        }
+        if (this.numVertexIds == this.vertices.length) {
+            int capacity = this.numVertexIds * 2;
+            this.vertices = Arrays.copyOf(this.vertices, capacity);
+            this.incoming = Arrays.copyOf(this.incoming, capacity);
+            this.outgoing = Arrays.copyOf(this.outgoing, capacity);
+        }
+        this.vertices[this.numVertexIds] = v;
+        this.incoming[this.numVertexIds] = new EdgeList();
+        this.outgoing[this.numVertexIds] = new EdgeList();
+        this.numVertexIds += 1;
+        this.numVertices += 1;
+        return true;
+    }
+
+    private int vertexId(FlowNode v) {
+        Integer id = this.vertexIds.get(v);
+        if (id == null) {
+            throw new IllegalArgumentException("no such vertex in graph: " + v);
+        }
+        return id;
+    }
+
+    /**
+     * @return the number of the new unconditional edge, or -1 if the source already has an edge to the target
+     */
+    public int addEdge(FlowNode source, FlowNode target) {
+        return this.addEdge(this.vertexId(source), this.vertexId(target), FrozenGraph.UNCONDITIONAL);
+    }
+
+    /**
+     * @return the number of the new edge taken when the source evaluates to the condition, or -1 if the source
+     * already has an edge to the target
+     */
+    public int addEdge(FlowNode source, FlowNode target, boolean condition) {
+        return this.addEdge(this.vertexId(source), this.vertexId(target),
+                condition ? FrozenGraph.WHEN_TRUE : FrozenGraph.WHEN_FALSE);
+    }
+
+    private int addEdge(int source, int target, byte condition) {
+        EdgeList out = this.outgoing[source];
+        for (int i = 0; i < out.size; i++) {
+            if (this.targets[out.edges[i]] == target) {
+                return -1;
+            }
+        }
+        if (this.numEdgeIds == this.sources.length) {
+            int capacity = this.numEdgeIds * 2;
+            this.sources = Arrays.copyOf(this.sources, capacity);
+            this.targets = Arrays.copyOf(this.targets, capacity);
+            this.flags = Arrays.copyOf(this.flags, capacity);
+        }
+        int edge = this.numEdgeIds++;
+        this.sources[edge] = source;
+        this.targets[edge] = target;
+        this.flags[edge] = condition;
+        out.add(edge);
+        this.incoming[target].add(edge);
+        this.numEdges += 1;
+        return edge;
+    }
+
+    /**
+     * @return whether the edge was removed, false if it already was
+     */
+    public boolean removeEdge(int edge) {
+        if ((this.flags[edge] & REMOVED) != 0) {
+            return false;
+        }
+        this.flags[edge] |= REMOVED;
+        this.outgoing[this.sources[edge]].remove(edge);
+        this.incoming[this.targets[edge]].remove(edge);
+        this.numEdges -= 1;
+        return true;
+    }
+
+    public void removeAllEdges(int[] edges) {
+        for (int edge : edges) {
+            this.removeEdge(edge);
+        }
+    }
+
+    /**
+     * Removes the vertex with all of its edges.
+     *
+     * @return whether the vertex was removed, false if it wasn't in the graph
+     */
+    public boolean removeVertex(FlowNode v) {
+        Integer id = this.vertexIds.remove(v);
+        if (id == null) {
+            return false;
+        }
+        this.removeAllEdges(this.incoming[id].toArray());
+        this.removeAllEdges(this.outgoing[id].toArray());
+        this.vertices[id] = null;
+        this.incoming[id] = null;
+        this.outgoing[id] = null;
+        this.numVertices -= 1;
+        return true;
+    }
+
+    /**
+     * @return the numbers of the vertex's incoming edges, which stay valid while edges are added and removed
+     */
+    public int[] incomingEdgesOf(FlowNode v) {
+        return this.incoming[this.vertexId(v)].toArray();
+    }
+
+    /**
+     * @return the numbers of the vertex's outgoing edges, which stay valid while edges are added and removed
+     */
+    public int[] outgoingEdgesOf(FlowNode v) {
+        return this.outgoing[this.vertexId(v)].toArray();
+    }
+
+    public FlowNode getEdgeSource(int edge) {
+        return this.vertices[this.sources[edge]];
+    }
+
+    public FlowNode getEdgeTarget(int edge) {
+        return this.vertices[this.targets[edge]];
+    }
+
+    /**
+     * @return the edge's condition as one of {@link FrozenGraph}'s UNCONDITIONAL, WHEN_TRUE and WHEN_FALSE
+     */
+    public byte getEdgeCondition(int edge) {
+        return (byte) (this.flags[edge] & CONDITION);
+    }
+
+    /**
+     * @return the vertices in the order they were added
+     */
+    public List<FlowNode> vertexList() {
+        List<FlowNode> vertices = new ArrayList<>(this.numVertices);
+        for (int v = 0; v < this.numVertexIds; v++) {
+            if (this.vertices[v] != null) {
+                vertices.add(this.vertices[v]);
+            }
+        }
+        return vertices;
+    }
+
+    /**
+     * Adds an edge from the source of each of the source's incoming edges to the target, with the same condition.
+     */
+    public void rerouteIncomingEdges(FlowNode source, FlowNode target) {
+        int targetId = this.vertexId(target);
+        for (int edge : this.incomingEdgesOf(source)) {
+            this.addEdge(this.sources[edge], targetId, this.getEdgeCondition(edge));
+        }
+    }
+
+    /**
+     * Adds an edge from the target to the target of each of the source's outgoing edges, with the same condition.
+     */
+    public void rerouteOutgoingEdges(FlowNode source, FlowNode target) {
+        int targetId = this.vertexId(target);
+        for (int edge : this.outgoingEdgesOf(source)) {
+            this.addEdge(targetId, this.targets[edge], this.getEdgeCondition(edge));
+        }
+    }
+
+    /**
+     * @return the graph as it is now in CSR layout, with its nodes and edges numbered in the order they were added
+     */
+    public FrozenGraph freeze() {
+        int[] nodeIds = new int[this.numVertexIds];
+        FlowNode[] nodes = new FlowNode[this.numVertices];
+        int n = 0;
+        for (int v = 0; v < this.numVertexIds; v++) {
+            if (this.vertices[v] != null) {
+                nodeIds[v] = n;
+                nodes[n++] = this.vertices[v];
+            }
+        }
+
+        int[] offsets = new int[nodes.length + 1];
+        for (int v = 0; v < this.numVertexIds; v++) {
+            if (this.vertices[v] != null) {
+                offsets[nodeIds[v] + 1] = this.outgoing[v].size;
+            }
+        }
+        for (int v = 0; v < nodes.length; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+
+        int[] next = Arrays.copyOf(offsets, nodes.length);
+        int[] targets = new int[this.numEdges];
+        byte[] conditions = new byte[this.numEdges];
+        int[] edgeIds = new int[this.numEdges];
+        int e = 0;
+        for (int edge = 0; edge < this.numEdgeIds; edge++) {
+            if ((this.flags[edge] & REMOVED) == 0) {
+                int slot = next[nodeIds[this.sources[edge]]]++;
+                targets[slot] = nodeIds[this.targets[edge]];
+                conditions[slot] = this.getEdgeCondition(edge);
+                edgeIds[slot] = e;
+                e += 1;
+            }
+        }
+        return new FrozenGraph(nodes, offsets, targets, conditions, edgeIds);
+    }
+
+    /**
+     * @return a copy of the graph as a jgrapht graph, for exporting it
+     */
+    public Graph<FlowNode, FlowEdge> toGraph() {
+        Graph<FlowNode, FlowEdge> graph = new DefaultDirectedGraph<>(FlowEdge.class);
+        this.vertexList().forEach(graph::addVertex);
+        for (int edge = 0; edge < this.numEdgeIds; edge++) {
+            if ((this.flags[edge] & REMOVED) == 0) {
+                byte condition = this.getEdgeCondition(edge);
+                graph.addEdge(this.getEdgeSource(edge), this.getEdgeTarget(edge),
+                        condition == FrozenGraph.UNCONDITIONAL
+                                ? new FlowEdge()
+                                : new FlowEdge(condition == FrozenGraph.WHEN_TRUE));
+            }
+        }
+        return graph;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder().append(this.vertexList()).append(", [");
+        String separator = "";
+        for (int edge = 0; edge < this.numEdgeIds; edge++) {
+            if ((this.flags[edge] & REMOVED) == 0) {
+                sb.append(separator).append('(').append(this.getEdgeSource(edge)).append(" : ")
+                        .append(this.getEdgeTarget(edge)).append(')');
+                separator = ", ";
+            }
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,144 @@
+package edu.ncsu.edm.graphgenerator;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.opencsv.CSVWriter;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import edu.ncsu.edm.graphgenerator.CanonicalizationStrategyCollection.RenderedCodeState;
+
+/**
+ * Builds the graphs of each distinct program once. Students resubmit the same code over and over, so code states are
+ * keyed by a 128-bit hash of their imports and code, with line endings and trailing whitespace normalized since
+ * neither can change the AST. The first code state with a key is built as usual and later ones are duplicates of it.
+ *
+ * <p>In {@link Mode#EMIT} a duplicate gets the same rows as its first occurrence under its own CodeStateId, so the
+ * output matches a run without deduplication. That includes its count of methods with a conditional expression in
+ * the stats and its rows in {@value RejectWriter#FILE_NAME}, since both are kept with the rendered graphs. The
+ * rendered code states are kept in a bounded LRU cache for this, and a duplicate whose first occurrence has been
+ * evicted is simply built again. In {@link Mode#ALIASES} duplicates are listed in {@value #ALIAS_FILE} next to the id
+ * they duplicate instead, and are left out of everything else: the graph CSVs, the stats and the rejects.
+ *
+ * <p>Every distinct program's key and first CodeStateId are remembered for the whole run, roughly 200 bytes each, or
+ * about 200 MB for a million distinct programs. Forgetting any of them would let a later duplicate pass as new.
+ *
+ * <p>{@link #tag(Stream)} runs on the pipeline's reader thread, {@link #process(Task)} on its workers and
+ * {@link #write(Result)} on its writer, and each only touches the state of its own stage.
+ */
+public class CodeStateDeduplicator implements Closeable {
+    public static final String ALIAS_FILE = "codeStateAliases.csv";
+    public static final int DEFAULT_CACHE_SIZE = 10_000;
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    public enum Mode { EMIT, ALIASES }
+
+    public record Task(CodeState codeState, HashCode key, @Nullable String firstCodeStateId) {
+        public boolean isDuplicate() {
+            return this.firstCodeStateId != null;
+        }
+    }
+
+    public record Result(Task task, @Nullable RenderedCodeState rendered) {}
+
+    private final Mode mode;
+    private final Function<CodeState, RenderedCodeState> render;
+    private final Consumer<RenderedCodeState> write;
+    private final Map<HashCode, String> firstCodeStateIds = new HashMap<>();
+    private final Map<HashCode, RenderedCodeState> rendered;
+    private final CSVWriter aliases;
+
+    public CodeStateDeduplicator(Mode mode,
+                                 int cacheSize,
+                                 Function<CodeState, RenderedCodeState> render,
+                                 Consumer<RenderedCodeState> write) throws IOException {
+        this(mode, cacheSize, render, write, mode == Mode.ALIASES ? new FileWriter(ALIAS_FILE) : null);
+    }
+
+    /**
+     * @param aliases where {@link Mode#ALIASES} lists the duplicates; unused in {@link Mode#EMIT}
+     */
+    CodeStateDeduplicator(Mode mode,
+                          int cacheSize,
+                          Function<CodeState, RenderedCodeState> render,
+                          Consumer<RenderedCodeState> write,
+                          @Nullable Writer aliases) {
+        this.mode = mode;
+        this.render = render;
+        this.write = write;
+        this.rendered = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<HashCode, RenderedCodeState> eldest) {
+                return this.size() > cacheSize;
+            }
+        };
+
+        if (mode == Mode.ALIASES) {
+            this.aliases = new CSVWriter(aliases);
+            this.aliases.writeNext(new String[] { "CodeStateId", "DuplicateOfCodeStateId" });
+        } else {
+            this.aliases = null;
+        }
+    }
+
+    public static HashCode keyOf(CodeState cs) {
+        Hasher hasher = HASH_FUNCTION.newHasher();
+        for (String import_ : cs.getImports()) {
+            hasher.putString(import_, StandardCharsets.UTF_8).putChar('\n');
+        }
+        hasher.putChar('\0');
+        cs.getCode().strip().lines().forEach(line -> hasher.putString(line.stripTrailing(), StandardCharsets.UTF_8).putChar('\n'));
+        return hasher.hash();
+    }
+
+    public Stream<Task> tag(Stream<CodeState> codeStates) {
+        return codeStates.map(cs -> {
+            HashCode key = keyOf(cs);
+            return new Task(cs, key, this.firstCodeStateIds.putIfAbsent(key, cs.getCodeStateId()));
+        });
+    }
+
+    public Result process(Task task) {
+        return new Result(task, task.isDuplicate() ? null : this.render.apply(task.codeState()));
+    }
+
+    public void write(Result result) {
+        Task task = result.task();
+        if (!task.isDuplicate()) {
+            if (this.mode == Mode.EMIT) {
+                this.rendered.put(task.key(), result.rendered());
+            }
+            this.write.accept(result.rendered());
+        } else if (this.mode == Mode.ALIASES) {
+            this.aliases.writeNext(new String[] { task.codeState().getCodeStateId(), task.firstCodeStateId() });
+        } else {
+            RenderedCodeState first = this.rendered.get(task.key());
+            if (first == null) {
+                first = this.render.apply(task.codeState());
+                this.rendered.put(task.key(), first);
+            }
+            this.write.accept(first.withCodeStateId(task.codeState().getCodeStateId()));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.aliases != null) {
+            this.aliases.close();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package edu.ncsu.edm.graphgenerator;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A set of CodeStateIDs. The ids in the datasets are 64 character lowercase hex digests, which this packs into four
+ * longs each and keeps in an open addressing table, so a lookup never has to hash or compare the 64 characters
+ * themselves. A slot costs 33 bytes, its four longs and an occupied flag, and the table is kept between a quarter and
+ * half full, so an id takes 66 to 132 bytes against the ~150 of a String in a HashSet. Anything that isn't such a
+ * digest is kept in an ordinary HashSet so the set still behaves exactly like a {@code Set<String>}.
+ */
+public class CodeStateIdSet {
+    private static final int ID_LENGTH = 64;
+    private static final int WORDS = ID_LENGTH / 16;
+    private static final int INITIAL_CAPACITY = 1 << 10;
+
+    private long[] words = new long[INITIAL_CAPACITY * WORDS];
+    private boolean[] occupied = new boolean[INITIAL_CAPACITY];
+    private int numPacked = 0;
+    private final Set<String> unpacked = new HashSet<>();
+
+    public boolean add(String id) {
+        if (!isPackable(id)) {
+            return this.unpacked.add(id);
+        }
+
+        if ((this.numPacked + 1) * 2 > this.occupied.length) {
+            this.grow();
+        }
+        long w0 = word(id, 0), w1 = word(id, 1), w2 = word(id, 2), w3 = word(id, 3);
+        int slot = this.find(w0, w1, w2, w3);
+        if (this.occupied[slot]) {
+            return false;
+        }
+        this.put(slot, w0, w1, w2, w3);
+        this.numPacked++;
+        return true;
+    }
+
+    public boolean contains(String id) {
+        if (!isPackable(id)) {
+            return this.unpacked.contains(id);
+        }
+        return this.occupied[this.find(word(id, 0), word(id, 1), word(id, 2), word(id, 3))];
+    }
+
+    public int size() {
+        return this.numPacked + this.unpacked.size();
+    }
+
+    /**
+     * @return the slot holding the given id, or the empty slot where it would go
+     */
+    private int find(long w0, long w1, long w2, long w3) {
+        int mask = this.occupied.length - 1;
+        int slot = hash(w0, w1, w2, w3) & mask;
+        while (this.occupied[slot]) {
+            int base = slot * WORDS;
+            if (this.words[base] == w0 && this.words[base + 1] == w1
+                    && this.words[base + 2] == w2 && this.words[base + 3] == w3) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void put(int slot, long w0, long w1, long w2, long w3) {
+        int base = slot * WORDS;
+        this.words[base] = w0;
+        this.words[base + 1] = w1;
+        this.words[base + 2] = w2;
+        this.words[base + 3] = w3;
+        this.occupied[slot] = true;
+    }
+
+    private void grow() {
+        long[] oldWords = this.words;
+        boolean[] oldOccupied = this.occupied;
+        this.words = new long[oldWords.length * 2];
+        this.occupied = new boolean[oldOccupied.length * 2];
+        for (int slot = 0; slot < oldOccupied.length; slot++) {
+            if (oldOccupied[slot]) {
+                int base = slot * WORDS;
+                long w0 = oldWords[base], w1 = oldWords[base + 1], w2 = oldWords[base + 2], w3 = oldWords[base + 3];
+                this.put(this.find(w0, w1, w2, w3), w0, w1, w2, w3);
+            }
+        }
+    }
+
+    private static int hash(long w0, long w1, long w2, long w3) {
+        // The ids are digests, so their bits are already well mixed; folding them together is enough
+        long h = w0 ^ (w1 * 31) ^ (w2 * 961) ^ (w3 * 29791);
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static boolean isPackable(String id) {
+        if (id.length() != ID_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < ID_LENGTH; i++) {
+            char c = id.charAt(i);
+            if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long word(String id, int index) {
+        long word = 0;
+        for (int i = index * 16; i < (index + 1) * 16; i++) {
+            char c = id.charAt(i);
+            word = (word << 4) | (c <= '9' ? c - '0' : c - 'a' + 10);
+        }
+        return word;
+    }
+}
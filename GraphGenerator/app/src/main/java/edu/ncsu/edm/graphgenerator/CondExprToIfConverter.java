@@ -6,22 +6,57 @@ import com.github.javaparser.ast.body.VariableDeclarator;
 import com.github.javaparser.ast.expr.*;
 import com.github.javaparser.ast.stmt.*;
 import com.github.javaparser.ast.visitor.CloneVisitor;
+import com.github.javaparser.ast.visitor.Visitable;
 import org.javatuples.Pair;
 
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicInteger;
 
 public class CondExprToIfConverter {
-    static AtomicInteger numberOfMethodsWithCondExpr = new AtomicInteger(0);
     public void rewriteAllCondExprsToIf(Node node) {
-        Optional<ConditionalExpr> condExpr = node.findFirst(ConditionalExpr.class);
-        if (condExpr.isPresent()) numberOfMethodsWithCondExpr.incrementAndGet();
-        while (condExpr.isPresent()) {
-            this.rewriteCondExprToIf(condExpr.get());
-            condExpr = node.findFirst(ConditionalExpr.class);
+        if (node.findFirst(ConditionalExpr.class).isEmpty()) return;
+        rewriteAllCondExprsWithin(node);
+    }
+
+    /**
+     * Rewrites the conditional expressions below node in one pre-order pass, in the same order that searching the whole
+     * tree again after every rewrite would find them. A rewrite replaces the statement around the expression, so the
+     * pass unwinds to the parent of that statement and carries on from where the statement was. Everything before it
+     * has already been searched, and the statements that replace it are always added as the parent's last children.
+     *
+     * @return the parent of the statement the last rewrite replaced if it lies above node, or null once node is done
+     */
+    private Node rewriteAllCondExprsWithin(Node node) {
+        List<Node> children = node.getChildNodes();
+        int i = 0;
+        while (i < children.size()) {
+            Node child = children.get(i);
+            Node rewritten = child instanceof ConditionalExpr c ? rewrite(c) : null;
+            if (rewritten == null) {
+                rewritten = rewriteAllCondExprsWithin(child);
+            }
+
+            if (rewritten == null) {
+                i++;
+            } else if (rewritten == node) {
+                // A switch entry's statements are all replaced by a single block
+                i = Math.min(i, children.size() - 1);
+            } else {
+                return rewritten;
+            }
         }
+        return null;
     }
+
     public void rewriteCondExprToIf(ConditionalExpr conditionalExpr) {
+        rewrite(conditionalExpr);
+    }
+
+    /**
+     * @return the parent of the statement that was rewritten, or null if the expression isn't in a statement
+     */
+    private Node rewrite(ConditionalExpr conditionalExpr) {
         Optional<Statement> parentStatement = conditionalExpr.findAncestor(Statement.class);
         if (parentStatement.isPresent()) {
             Statement parent = parentStatement.get();
@@ -32,15 +67,15 @@ public class CondExprToIfConverter {
                 Expression expr = e.getExpression();
                 // If expr is a variable declaration split parent into a variable declaration
                 // expression statement and an assignment expression statement.
-                rewriteExpressionStatement(conditionalExpr, parent, e, expr);
-                // System.out.println("Rewrote Expression Statement");
+                return rewriteExpressionStatement(conditionalExpr, parent, e, expr);
             } else {
-                rewriteCondAsIfElse(conditionalExpr, parent);
+                return rewriteCondAsIfElse(conditionalExpr, parent);
             }
         }
+        return null;
     }
 
-    private void rewriteExpressionStatement(ConditionalExpr conditionalExpr, Statement parent, ExpressionStmt e, Expression expr) {
+    private Node rewriteExpressionStatement(ConditionalExpr conditionalExpr, Statement parent, ExpressionStmt e, Expression expr) {
         Pair<Statement, Statement> parentAndStatement = Pair.with(parent, e);
         if (expr instanceof VariableDeclarationExpr varDecExpr) {
             // System.out.println("Extracted Declaration");
@@ -54,17 +89,14 @@ public class CondExprToIfConverter {
         if (expr instanceof ConditionalExpr condExpr && e.getParentNode().isPresent() &&
                 (e.getParentNode().get() instanceof SwitchEntry || e.getParentNode().get() instanceof LambdaExpr)) {
             // System.out.println("Rewrote a switch or Lambda");
-            rewriteSwitchOrLambda(e, condExpr);
+            return rewriteSwitchOrLambda(e, condExpr);
         } else {
             // System.out.println("Rewrite Conditional as If Statement");
-            rewriteCondAsIfElse(conditionalExpr, parentAndStatement.getValue1());
-            // System.out.println(conditionalExpr);
-            // System.out.println(parentAndStatement.getValue1());
+            return rewriteCondAsIfElse(conditionalExpr, parentAndStatement.getValue1());
         }
-//        throw new RuntimeException("Stop execution fast");
     }
 
-    private void rewriteCondAsIfElse(ConditionalExpr conditionalExpr, Statement originalStatement) {
+    private Node rewriteCondAsIfElse(ConditionalExpr conditionalExpr, Statement originalStatement) {
         // If it's none of these we create an if-else above the parent statement, duplicate
         // the parent statement and replace the conditional expression in one with the first
         // and the conditional expression in the other with the second.
@@ -73,14 +105,17 @@ public class CondExprToIfConverter {
         // into one of the branches.
 
 
-        CloneVisitor cloner = new CloneVisitor();
-        Statement trueClone = (Statement) originalStatement.accept(cloner, null);
-        Statement falseClone = (Statement) originalStatement.accept(cloner, null);
-        ConditionalExpr tcCondExpr = trueClone.findFirst(ConditionalExpr.class, (c) -> c.toString().equals(conditionalExpr.toString())).orElseThrow();
-        ConditionalExpr fcCondExpr = falseClone.findFirst(ConditionalExpr.class, (c) -> c.toString().equals(conditionalExpr.toString())).orElseThrow();
-        tcCondExpr.replace(tcCondExpr.getThenExpr());
+        // Only the rest of the statement is cloned. Each branch ends up in one of the copies, so it is moved there
+        // instead, which keeps a chain of conditional expressions from being cloned again at every level.
+        Pair<Statement, Expression> trueCopy = cloneAround(originalStatement, conditionalExpr);
+        Pair<Statement, Expression> falseCopy = cloneAround(originalStatement, conditionalExpr);
+        Statement trueClone = trueCopy.getValue0();
+        Statement falseClone = falseCopy.getValue0();
+        Expression thenExpr = conditionalExpr.getThenExpr();
+        Expression elseExpr = conditionalExpr.getElseExpr();
+        trueCopy.getValue1().replace(thenExpr);
         // System.out.println(trueClone);
-        fcCondExpr.replace(fcCondExpr.getElseExpr());
+        falseCopy.getValue1().replace(elseExpr);
         // System.out.println(falseClone);
 
         IfStmt ifStmt = new IfStmt(conditionalExpr.getCondition(), trueClone, falseClone);
@@ -89,13 +124,37 @@ public class CondExprToIfConverter {
         // System.out.println(parent);
         originalStatement.replace(ifStmt);
         // System.out.println(parent);
+        return parent;
+    }
+
+    /**
+     * Clones statement with a placeholder where conditionalExpr was, which the caller replaces with one of its branches.
+     * The placeholder is found by identity as the clone is made, rather than by searching the clone for an expression
+     * that prints the same.
+     */
+    private static Pair<Statement, Expression> cloneAround(Statement statement, ConditionalExpr conditionalExpr) {
+        Expression placeholder = new NameExpr("placeholder");
+        Statement clone = (Statement) statement.accept(new CloneVisitor() {
+            @Override
+            public Visitable visit(ConditionalExpr n, Object arg) {
+                return n == conditionalExpr ? placeholder : super.visit(n, arg);
+            }
+        }, null);
+        if (!placeholder.getParentNode().isPresent()) {
+            throw new NoSuchElementException(conditionalExpr + " is not in " + statement);
+        }
+        return Pair.with(clone, placeholder);
     }
 
     private Pair<Statement, Statement> extractConditionalDeclaration(ConditionalExpr conditionalExpr, Statement parent, VariableDeclarationExpr varDecExpr) {
         Statement newParent = null;
         Statement newStatement = null;
         if (parent.getParentNode().isPresent() && parent.getParentNode().get() instanceof BlockStmt blockStmt) {
-            int parentIndex = blockStmt.getStatements().indexOf(parent);
+            // NodeList.indexOf compares statements by their contents, and this only needs to find parent itself
+            int parentIndex = 0;
+            while (blockStmt.getStatement(parentIndex) != parent) {
+                parentIndex++;
+            }
 
             VariableDeclarator condDeclarator = conditionalExpr.findAncestor(VariableDeclarator.class).orElseThrow();
             NodeList<VariableDeclarator> irrelevantVariables = new NodeList<>();
@@ -140,10 +199,11 @@ public class CondExprToIfConverter {
         return Pair.with(newParent, newStatement);
     }
 
-    private void rewriteSwitchOrLambda(ExpressionStmt e, ConditionalExpr condExpr) {
+    private Node rewriteSwitchOrLambda(ExpressionStmt e, ConditionalExpr condExpr) {
         // if parent belongs to a switch entry, make each branch use yield statement
         // if parent belongs to a lambda expression, make each branch a return statement
 
+        Node parent = e.getParentNode().orElse(null);
         IfStmt ifStmt = new IfStmt().setCondition(condExpr.getCondition());
         BlockStmt blockStmt = new BlockStmt(new NodeList<>(ifStmt));
 
@@ -156,5 +216,6 @@ public class CondExprToIfConverter {
                   .setElseStmt(new ReturnStmt(condExpr.getElseExpr()));
             lambdaExpr.setBody(blockStmt);
         }
+        return parent;
     }
 }
@@ -0,0 +1,42 @@
+package edu.ncsu.edm.graphgenerator;
+
+import com.opencsv.bean.CsvToBean;
+import com.opencsv.bean.CsvToBeanBuilder;
+
+import java.io.*;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads a CSV file into beans one row at a time. opencsv's {@code CsvToBean.stream()} parses the file on a background
+ * thread into an unbounded queue, so whenever the consumer is slower than the parser (which is always the case for
+ * generate) the whole file ends up on the heap. Iterating the {@link CsvToBean} instead only reads a row when the next
+ * bean is asked for, which keeps the heap flat no matter how large the file is.
+ */
+public class CsvBeanReader {
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * @return a lazy, ordered stream of the rows of {@code file}, which closes the file when the stream is closed
+     */
+    public static <T> Stream<T> stream(File file, Class<T> type, int bufferSize) throws FileNotFoundException {
+        BufferedReader reader = new BufferedReader(new FileReader(file), bufferSize);
+        CsvToBean<T> csvToBean = new CsvToBeanBuilder<T>(reader).withType(type).build();
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(csvToBean.iterator(), Spliterator.ORDERED | Spliterator.NONNULL),
+                false
+        ).onClose(() -> {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    public static <T> Stream<T> stream(File file, Class<T> type) throws FileNotFoundException {
+        return stream(file, type, DEFAULT_BUFFER_SIZE);
+    }
+}
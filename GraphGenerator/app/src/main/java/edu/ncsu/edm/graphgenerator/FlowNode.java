@@ -18,6 +18,7 @@ public class FlowNode {
     private final Optional<String> label;
     private final Optional<String> name;
     private final Map<String, String> metadata;
+    private final int hash;
 
     public FlowNode(Node optNode) {
         this(optNode, null);
@@ -28,6 +29,7 @@ public class FlowNode {
         this.name = Optional.empty();
         this.label = Optional.ofNullable(label);
         this.metadata = new HashMap<>();
+        this.hash = System.identityHashCode(optNode);
     }
 
     public FlowNode(String name) {
@@ -35,6 +37,7 @@ public class FlowNode {
         this.name = Optional.of(name);
         this.label = Optional.empty();
         this.metadata = new HashMap<>();
+        this.hash = name.hashCode();
     }
 
     public Optional<Node> getNode() {
@@ -278,17 +281,37 @@ public class FlowNode {
         return sb;
     }
 
+    private static final CanonicalLabelPrinter PLAIN_LABELS = new CanonicalLabelPrinter(CanonicalLabelPrinter.Canonicalization.NONE);
+
     @Override
     public String toString() {
+        return this.toString(PLAIN_LABELS);
+    }
+
+    /**
+     * @return the node's label, with the node printed by the given printer
+     */
+    public String toString(CanonicalLabelPrinter printer) {
         if (this.node.isPresent()) {
-            return this.label.map(s -> s + this.node.get())
-                    .orElseGet(() -> this.node.get().toString());
+            return this.label.map(s -> s + printer.print(this.node.get()))
+                    .orElseGet(() -> printer.print(this.node.get()));
         } else if (this.name.isPresent())
             return this.name.get();
         else
             throw new IllegalStateException("Either Node or Name should be set");
     }
 
+    /**
+     * Like {@link #toString(CanonicalLabelPrinter)}, but may return the printer's buffer, which is only valid until
+     * the thread prints its next label.
+     */
+    public CharSequence toCharSequence(CanonicalLabelPrinter printer) {
+        if (this.node.isPresent() && this.label.isEmpty()) {
+            return printer.printInPlace(this.node.get());
+        }
+        return this.toString(printer);
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj == null || obj.getClass() != this.getClass()) {
@@ -303,15 +326,14 @@ public class FlowNode {
         return this.name.isPresent() && other.name.isPresent() && this.name.get().equals(other.name.get());
     }
 
+    /**
+     * Nodes are compared by identity in {@link #equals(Object)}, so they are hashed by identity too. Node.hashCode()
+     * walks the node's whole subtree on every call and changes whenever canonicalization rewrites the node, which
+     * would make graph lookups slow and could lose vertices that are already stored in the graph.
+     */
     @Override
     public int hashCode() {
-        if (this.node.isPresent()) {
-            return this.node.get().hashCode();
-        } else if (this.name.isPresent()) {
-            return this.name.get().hashCode();
-        } else {
-            throw new IllegalStateException("Neither Node nor Name are present");
-        }
+        return this.hash;
     }
 
     public Optional<String> getLabel() {
@@ -0,0 +1,126 @@
+package edu.ncsu.edm.graphgenerator;
+
+import org.jgrapht.Graph;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A finished control flow graph in CSR layout. The {@link CfgBuilder} a CFG is built in keeps a map of vertices, edge
+ * lists per vertex and the edges it removed, none of which is needed once the graph is done, so
+ * {@link App#createGraph} freezes it into this. Nodes are numbered from 0 in the built graph's vertex order, and the
+ * edges from node v are {@code targets[offsets[v]:offsets[v + 1]]} with their conditions encoded as in
+ * {@link BinaryGraphWriter}'s EDGE_CONDITIONS section. A jgrapht graph can be frozen the same way with {@link #of}.
+ *
+ * <p>The edges of a node keep the order they were added in, and {@link #edgeId} gives each edge's position in the
+ * built graph's edge order, so the graph is written out exactly as it was built.
+ *
+ * <p>Only the graph's structure is compact. Its FlowNodes still hold their AST nodes, and through them the code
+ * state's whole CompilationUnit, because labels are printed from the AST and canonicalization looks at the nodes
+ * around each one. A frozen benchmark method retains about 84 KB, nearly all of it AST, against about 1.3 KB for its
+ * {@link RenderedGraph}. generate and walk render a code state's graphs on the worker that froze them and then drop
+ * them, so only the code states in flight keep their ASTs. A FrozenGraph shouldn't be held any longer than that.
+ */
+final class FrozenGraph {
+    static final byte UNCONDITIONAL = 0;
+    static final byte WHEN_TRUE = 1;
+    static final byte WHEN_FALSE = 2;
+
+    private final FlowNode[] nodes;
+    private final int[] offsets;
+    private final int[] targets;
+    private final byte[] conditions;
+    private final int[] edgeIds;
+
+    FrozenGraph(FlowNode[] nodes, int[] offsets, int[] targets, byte[] conditions, int[] edgeIds) {
+        this.nodes = nodes;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.conditions = conditions;
+        this.edgeIds = edgeIds;
+    }
+
+    public static FrozenGraph of(Graph<FlowNode, FlowEdge> g) {
+        FlowNode[] nodes = new FlowNode[g.vertexSet().size()];
+        Map<FlowNode, Integer> nodeIds = new HashMap<>();
+        int id = 0;
+        for (FlowNode n : g.vertexSet()) {
+            nodeIds.put(n, id);
+            nodes[id] = n;
+            id += 1;
+        }
+
+        int numEdges = g.edgeSet().size();
+        int[] sources = new int[numEdges];
+        int[] offsets = new int[nodes.length + 1];
+        int e = 0;
+        for (FlowEdge edge : g.edgeSet()) {
+            sources[e] = nodeIds.get(g.getEdgeSource(edge));
+            offsets[sources[e] + 1]++;
+            e += 1;
+        }
+        for (int v = 0; v < nodes.length; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+
+        int[] next = new int[nodes.length];
+        System.arraycopy(offsets, 0, next, 0, nodes.length);
+        int[] targets = new int[numEdges];
+        byte[] conditions = new byte[numEdges];
+        int[] edgeIds = new int[numEdges];
+        e = 0;
+        for (FlowEdge edge : g.edgeSet()) {
+            int slot = next[sources[e]]++;
+            targets[slot] = nodeIds.get(g.getEdgeTarget(edge));
+            conditions[slot] = edge.getFlowCondition().map(c -> c ? WHEN_TRUE : WHEN_FALSE).orElse(UNCONDITIONAL);
+            edgeIds[slot] = e;
+            e += 1;
+        }
+        return new FrozenGraph(nodes, offsets, targets, conditions, edgeIds);
+    }
+
+    public int numNodes() {
+        return this.nodes.length;
+    }
+
+    public int numEdges() {
+        return this.targets.length;
+    }
+
+    public FlowNode node(int v) {
+        return this.nodes[v];
+    }
+
+    /**
+     * @return the index of node v's first edge; its edges run up to the first edge of node v + 1
+     */
+    public int firstEdge(int v) {
+        return this.offsets[v];
+    }
+
+    public int target(int edge) {
+        return this.targets[edge];
+    }
+
+    public byte condition(int edge) {
+        return this.conditions[edge];
+    }
+
+    /**
+     * @return the edge's position among the edges of the graph it was frozen from
+     */
+    public int edgeId(int edge) {
+        return this.edgeIds[edge];
+    }
+
+    /**
+     * @return the edge's label as {@link FlowEdge#toString()} has it
+     */
+    public String edgeLabel(int edge) {
+        return switch (this.conditions[edge]) {
+            case WHEN_TRUE -> "true";
+            case WHEN_FALSE -> "false";
+            default -> "";
+        };
+    }
+}
@@ -0,0 +1,244 @@
+package edu.ncsu.edm.graphgenerator;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The command line options of the generate subcommand. Options start with {@code --} and may appear anywhere among
+ * the data directories, e.g. {@code generate --threads 8 path/to/data/dir/1/ path/to/data/dir/2/}.
+ */
+public class GenerateOptions {
+    public static final String USAGE = "generate [--threads N] [--queue-capacity N] [--read-buffer BYTES] [--dedup emit|aliases] [--dedup-cache N] [--cache DIR] [--format csv|binary|both] [--label-ids] [--write-buffer BYTES] [--flush-rows N] [--writer-queue N] [--compress gzip[:LEVEL]] [--compress-threads N] [--shards N] [--progress SECONDS] [--metrics FILE|none] path/to/data/dir/1/ ... path/to/data/dir/n/";
+
+    private int threads = 1;
+    private int queueCapacity = -1;
+    private int readBufferSize = CsvBeanReader.DEFAULT_BUFFER_SIZE;
+    private CodeStateDeduplicator.Mode dedupMode = null;
+    private int dedupCacheSize = CodeStateDeduplicator.DEFAULT_CACHE_SIZE;
+    private Path cacheDir = null;
+    private CanonicalizationStrategy.OutputFormat outputFormat = CanonicalizationStrategy.OutputFormat.CSV;
+    private boolean labelIds = false;
+    private int writeBufferSize = CanonicalizationStrategy.OutputSettings.DEFAULT_WRITE_BUFFER_SIZE;
+    private int flushRows = CanonicalizationStrategy.OutputSettings.DEFAULT_FLUSH_ROWS;
+    private int writerQueue = CanonicalizationStrategy.OutputSettings.DEFAULT_WRITER_QUEUE;
+    private int compressionLevel = -1;
+    private int compressionThreads = Runtime.getRuntime().availableProcessors();
+    private int shards = 1;
+    private int progressSeconds = PipelineMetrics.DEFAULT_PROGRESS_SECONDS;
+    private Path metricsFile = Path.of(PipelineMetrics.DEFAULT_REPORT_FILE);
+    private final List<String> dataDirs = new ArrayList<>();
+
+    public static GenerateOptions parse(List<String> args) {
+        GenerateOptions options = new GenerateOptions();
+        for (int i = 0; i < args.size(); i++) {
+            String arg = args.get(i);
+            switch (arg) {
+                case "--threads" -> options.threads = parsePositiveInt(arg, args, ++i);
+                case "--queue-capacity" -> options.queueCapacity = parsePositiveInt(arg, args, ++i);
+                case "--read-buffer" -> options.readBufferSize = parsePositiveInt(arg, args, ++i);
+                case "--dedup" -> options.dedupMode = switch (valueOf(arg, args, ++i)) {
+                    case "emit" -> CodeStateDeduplicator.Mode.EMIT;
+                    case "aliases" -> CodeStateDeduplicator.Mode.ALIASES;
+                    default -> throw new IllegalArgumentException("--dedup expects emit or aliases but got " + args.get(i));
+                };
+                case "--dedup-cache" -> options.dedupCacheSize = parsePositiveInt(arg, args, ++i);
+                case "--cache" -> options.cacheDir = Path.of(valueOf(arg, args, ++i));
+                case "--format" -> options.outputFormat = switch (valueOf(arg, args, ++i)) {
+                    case "csv" -> CanonicalizationStrategy.OutputFormat.CSV;
+                    case "binary" -> CanonicalizationStrategy.OutputFormat.BINARY;
+                    case "both" -> CanonicalizationStrategy.OutputFormat.BOTH;
+                    default -> throw new IllegalArgumentException("--format expects csv, binary or both but got " + args.get(i));
+                };
+                case "--label-ids" -> options.labelIds = true;
+                case "--write-buffer" -> options.writeBufferSize = parseNonNegativeInt(arg, args, ++i);
+                case "--flush-rows" -> options.flushRows = parsePositiveInt(arg, args, ++i);
+                case "--writer-queue" -> options.writerQueue = parseNonNegativeInt(arg, args, ++i);
+                case "--compress" -> options.compressionLevel = parseCompression(arg, args, ++i);
+                case "--compress-threads" -> options.compressionThreads = parseNonNegativeInt(arg, args, ++i);
+                case "--shards" -> options.shards = parsePositiveInt(arg, args, ++i);
+                case "--progress" -> options.progressSeconds = parseNonNegativeInt(arg, args, ++i);
+                case "--metrics" -> {
+                    String file = valueOf(arg, args, ++i);
+                    options.metricsFile = file.equals("none") ? null : Path.of(file);
+                }
+                default -> {
+                    if (arg.startsWith("--")) {
+                        throw new IllegalArgumentException("Unknown option for generate: " + arg);
+                    }
+                    options.dataDirs.add(arg);
+                }
+            }
+        }
+
+        if (options.dataDirs.isEmpty()) {
+            throw new IllegalArgumentException("generate needs at least one data directory");
+        }
+        return options;
+    }
+
+    static String valueOf(String option, List<String> args, int index) {
+        if (index >= args.size()) {
+            throw new IllegalArgumentException("Missing value for " + option);
+        }
+        return args.get(index);
+    }
+
+    /**
+     * Parses {@code gzip} or {@code gzip:LEVEL} into the gzip level.
+     */
+    static int parseCompression(String option, List<String> args, int index) {
+        String value = valueOf(option, args, index);
+        if (value.equals("gzip")) {
+            return CanonicalizationStrategy.Compression.DEFAULT_LEVEL;
+        }
+        if (value.matches("gzip:[0-9]")) {
+            return value.charAt(value.length() - 1) - '0';
+        }
+        throw new IllegalArgumentException(option + " expects gzip or gzip:LEVEL with a level from 0 to 9 but got " + value);
+    }
+
+    static int parseNonNegativeInt(String option, List<String> args, int index) {
+        String value = valueOf(option, args, index);
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed >= 0) {
+                return parsed;
+            }
+        } catch (NumberFormatException ignored) {
+            // Reported below along with the negative values
+        }
+        throw new IllegalArgumentException(option + " expects a non-negative integer but got " + value);
+    }
+
+    static int parsePositiveInt(String option, List<String> args, int index) {
+        String value = valueOf(option, args, index);
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed > 0) {
+                return parsed;
+            }
+        } catch (NumberFormatException ignored) {
+            // Reported below along with the non-positive values
+        }
+        throw new IllegalArgumentException(option + " expects a positive integer but got " + value);
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * How many code states may be parsed or waiting to be written at once. Defaults to four per worker thread so the
+     * workers stay busy while the writer catches up.
+     */
+    public int getQueueCapacity() {
+        return queueCapacity > 0 ? queueCapacity : threads * 4;
+    }
+
+    /**
+     * The size in bytes of the buffer CodeStates.csv is read through.
+     */
+    public int getReadBufferSize() {
+        return readBufferSize;
+    }
+
+    /**
+     * @return how duplicate code states are handled, or null if they aren't looked for
+     */
+    public CodeStateDeduplicator.Mode getDedupMode() {
+        return dedupMode;
+    }
+
+    /**
+     * How many distinct code states' rendered graphs are kept around to emit for their duplicates.
+     */
+    public int getDedupCacheSize() {
+        return dedupCacheSize;
+    }
+
+    /**
+     * @return the directory of the graph cache carried over between runs, or null if graphs aren't cached
+     */
+    public Path getCacheDir() {
+        return cacheDir;
+    }
+
+    /**
+     * Whether the graphs are written to the Nodes and Edges CSVs, the binary graph files, or both.
+     */
+    public CanonicalizationStrategy.OutputFormat getOutputFormat() {
+        return outputFormat;
+    }
+
+    /**
+     * Whether the Nodes CSVs hold label ids from a {@link LabelDictionary} written next to them instead of the labels.
+     */
+    public boolean isLabelIds() {
+        return labelIds;
+    }
+
+    /**
+     * The size in bytes of the buffers each output CSV is written through.
+     */
+    public int getWriteBufferSize() {
+        return writeBufferSize;
+    }
+
+    /**
+     * How many node and edge rows a strategy collects before handing them to its CSV writers.
+     */
+    public int getFlushRows() {
+        return flushRows;
+    }
+
+    /**
+     * How many graphs may wait for each strategy's writer thread, or 0 if the strategies are written on the thread that
+     * collects the pipeline's results.
+     */
+    public int getWriterQueue() {
+        return writerQueue;
+    }
+
+    /**
+     * @return how the Nodes and Edges CSVs are compressed, or null if they are written uncompressed. Each call makes a
+     * new pool of compressing threads, which the caller closes.
+     */
+    public CanonicalizationStrategy.Compression getCompression() {
+        return compressionLevel < 0 ? null : CanonicalizationStrategy.Compression.of(compressionLevel, compressionThreads);
+    }
+
+    /**
+     * How many shards each strategy's graphs are split across by CodeStateId, or 1 if they aren't sharded.
+     */
+    public int getShards() {
+        return shards;
+    }
+
+    /**
+     * How many seconds apart the progress line is printed, or 0 if it isn't.
+     */
+    public int getProgressSeconds() {
+        return progressSeconds;
+    }
+
+    /**
+     * @return the file the JSON report of {@link PipelineMetrics} is written to at the end, or null if it isn't
+     */
+    public Path getMetricsFile() {
+        return metricsFile;
+    }
+
+    /**
+     * @return how the strategies write their files, with a new {@link #getCompression()} shared by every strategy
+     * given these settings
+     */
+    public CanonicalizationStrategy.OutputSettings getOutputSettings() {
+        return new CanonicalizationStrategy.OutputSettings(outputFormat, labelIds, writeBufferSize, flushRows,
+                writerQueue, getCompression(), shards);
+    }
+
+    public List<String> getDataDirs() {
+        return dataDirs;
+    }
+}
@@ -0,0 +1,263 @@
+package edu.ncsu.edm.graphgenerator;
+
+import com.google.common.hash.HashCode;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import edu.ncsu.edm.graphgenerator.CanonicalizationStrategyCollection.RenderedCodeState;
+
+/**
+ * Keeps the rendered graphs of every code state generate has built in a file on disk, so a later run only parses and
+ * converts code states that are new or whose code changed. The graphs are kept with the code state's count of methods
+ * with a conditional expression and its rejected methods, so the stats and rejects don't depend on what was cached.
+ * Entries are keyed by CodeStateId and hold the same hash of the code that {@link CodeStateDeduplicator} uses, and the
+ * file records the generator version and number of strategies it was written with. A file written by a different
+ * version is discarded.
+ *
+ * <p>The file is append-only: a header followed by one record per rendered code state. Opening it scans the records
+ * once to index them by id, dropping a partly written record left at the end by a crash. Changed code states are
+ * appended again and the index points at their newest record. Lookups read records with positional reads and appends
+ * are serialized, so the cache can be used from all the pipeline's workers at once.
+ */
+public class GraphCache implements Closeable {
+    public static final String FILE_NAME = "graphs.cache";
+
+    private static final long MAGIC = 0x4346_4743_4143_4845L;
+    private static final int FORMAT_VERSION = 2;
+
+    private record Entry(HashCode key, long offset, int length) {}
+
+    private final Path file;
+    private final FileChannel channel;
+    private final int numStrategies;
+    private final Map<String, Entry> index = new ConcurrentHashMap<>();
+    private long end;
+
+    private final AtomicInteger hits = new AtomicInteger(0);
+    private final AtomicInteger misses = new AtomicInteger(0);
+
+    private GraphCache(Path file, FileChannel channel, int numStrategies) {
+        this.file = file;
+        this.channel = channel;
+        this.numStrategies = numStrategies;
+    }
+
+    public static GraphCache open(Path dir, String generatorVersion, int numStrategies) throws IOException {
+        Files.createDirectories(dir);
+        Path file = dir.resolve(FILE_NAME);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        GraphCache cache = new GraphCache(file, channel, numStrategies);
+        try {
+            if (!cache.load(generatorVersion)) {
+                cache.reset(generatorVersion);
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return cache;
+    }
+
+    /**
+     * @return the cached rendering of the code state if its code hasn't changed, and otherwise renders it with
+     * {@code render} and caches the result
+     */
+    public RenderedCodeState render(CodeState cs, Function<CodeState, RenderedCodeState> render) {
+        HashCode key = CodeStateDeduplicator.keyOf(cs);
+        Entry entry = this.index.get(cs.getCodeStateId());
+        if (entry != null && entry.key().equals(key)) {
+            try {
+                RenderedCodeState cached = this.read(cs.getCodeStateId(), entry);
+                this.hits.incrementAndGet();
+                return cached;
+            } catch (IOException e) {
+                System.err.println("Couldn't read " + cs.getCodeStateId() + " from the graph cache, rebuilding it: " + e);
+            }
+        }
+
+        this.misses.incrementAndGet();
+        RenderedCodeState rendered = render.apply(cs);
+        try {
+            this.append(cs.getCodeStateId(), key, rendered);
+        } catch (IOException e) {
+            System.err.println("Couldn't add " + cs.getCodeStateId() + " to the graph cache: " + e);
+        }
+        return rendered;
+    }
+
+    public int getHits() {
+        return hits.get();
+    }
+
+    public int getMisses() {
+        return misses.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.force(false);
+        this.channel.close();
+    }
+
+    private boolean load(String generatorVersion) throws IOException {
+        if (this.channel.size() == 0) {
+            return false;
+        }
+
+        this.channel.position(0);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(this.channel)));
+        long position;
+        try {
+            if (in.readLong() != MAGIC || in.readInt() != FORMAT_VERSION
+                    || !readString(in).equals(generatorVersion) || in.readInt() != this.numStrategies) {
+                System.out.println("The graph cache at " + this.file + " was written by a different version and will be rebuilt");
+                return false;
+            }
+            position = headerLength(generatorVersion);
+        } catch (EOFException e) {
+            return false;
+        }
+
+        while (true) {
+            try {
+                String id = readString(in);
+                byte[] key = new byte[16];
+                in.readFully(key);
+                int length = in.readInt();
+                if (length < 0) {
+                    break;
+                }
+                long offset = position + 4 + id.getBytes(StandardCharsets.UTF_8).length + key.length + 4;
+                // skip() stops at the end of what's buffered, while this only stops short at the end of the file
+                in.skipNBytes(length);
+                this.index.put(id, new Entry(HashCode.fromBytes(key), offset, length));
+                position = offset + length;
+            } catch (EOFException e) {
+                break;
+            }
+        }
+
+        // Anything past the last complete record was cut off mid-write or is corrupt
+        this.channel.truncate(position);
+        this.end = position;
+        return true;
+    }
+
+    private void reset(String generatorVersion) throws IOException {
+        this.index.clear();
+        this.channel.truncate(0);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        writeString(out, generatorVersion);
+        out.writeInt(this.numStrategies);
+        this.end = writeFully(ByteBuffer.wrap(bytes.toByteArray()), 0);
+    }
+
+    private RenderedCodeState read(String codeStateId, Entry entry) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(entry.length());
+        while (buffer.hasRemaining()) {
+            if (this.channel.read(buffer, entry.offset() + buffer.position()) < 0) {
+                throw new EOFException("The graph cache ends in the middle of " + codeStateId);
+            }
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(buffer.array()));
+        int methodsWithCondExpr = in.readInt();
+        int numRejects = in.readInt();
+        List<RejectWriter.Reject> rejects = new ArrayList<>(numRejects);
+        for (int r = 0; r < numRejects; r++) {
+            rejects.add(new RejectWriter.Reject(in.readInt(),
+                    readString(in), readString(in), readString(in), readString(in)));
+        }
+        int numGraphs = in.readInt();
+        List<RenderedGraph[]> graphs = new ArrayList<>(numGraphs);
+        for (int g = 0; g < numGraphs; g++) {
+            RenderedGraph[] byStrategy = new RenderedGraph[this.numStrategies];
+            for (int s = 0; s < this.numStrategies; s++) {
+                byStrategy[s] = in.readBoolean() ? RenderedGraph.readFrom(in) : null;
+            }
+            graphs.add(byStrategy);
+        }
+        return new RenderedCodeState(codeStateId, graphs, methodsWithCondExpr, rejects);
+    }
+
+    private void append(String codeStateId, HashCode key, RenderedCodeState rendered) throws IOException {
+        ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream();
+        DataOutputStream payload = new DataOutputStream(payloadBytes);
+        payload.writeInt(rendered.methodsWithCondExpr());
+        payload.writeInt(rendered.rejects().size());
+        for (RejectWriter.Reject reject : rendered.rejects()) {
+            payload.writeInt(reject.methodIndex());
+            writeString(payload, reject.exception());
+            writeString(payload, reject.message());
+            writeString(payload, reject.construct());
+            writeString(payload, reject.line());
+        }
+        payload.writeInt(rendered.graphs().size());
+        for (RenderedGraph[] byStrategy : rendered.graphs()) {
+            for (RenderedGraph graph : byStrategy) {
+                payload.writeBoolean(graph != null);
+                if (graph != null) {
+                    graph.writeTo(payload);
+                }
+            }
+        }
+
+        ByteArrayOutputStream recordBytes = new ByteArrayOutputStream(payloadBytes.size() + 128);
+        DataOutputStream record = new DataOutputStream(recordBytes);
+        writeString(record, codeStateId);
+        record.write(key.asBytes());
+        record.writeInt(payloadBytes.size());
+        int headerLength = recordBytes.size();
+        payloadBytes.writeTo(record);
+
+        synchronized (this) {
+            long offset = this.end;
+            this.end += writeFully(ByteBuffer.wrap(recordBytes.toByteArray()), offset);
+            this.index.put(codeStateId, new Entry(key, offset + headerLength, payloadBytes.size()));
+        }
+    }
+
+    private long writeFully(ByteBuffer buffer, long position) throws IOException {
+        int length = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            this.channel.write(buffer, position + buffer.position());
+        }
+        return length;
+    }
+
+    private static long headerLength(String generatorVersion) {
+        return 8 + 4 + 4 + generatorVersion.getBytes(StandardCharsets.UTF_8).length + 4;
+    }
+
+    private static void writeString(DataOutput out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > (1 << 20)) {
+            throw new EOFException("Implausible string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
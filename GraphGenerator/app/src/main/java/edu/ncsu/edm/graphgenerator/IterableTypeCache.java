@@ -0,0 +1,345 @@
+package edu.ncsu.edm.graphgenerator;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.expr.VariableDeclarationExpr;
+import com.github.javaparser.ast.stmt.*;
+import com.github.javaparser.ast.type.ArrayType;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.ast.type.Type;
+import com.github.javaparser.ast.type.TypeParameter;
+import com.github.javaparser.resolution.UnsolvedSymbolException;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.types.ResolvedArrayType;
+import com.github.javaparser.resolution.types.ResolvedType;
+import com.github.javaparser.resolution.types.parametrization.ResolvedTypeParametersMap;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Works out what a foreach loop iterates over for {@link AstToGraphConverter}, which only needs to know whether it is
+ * an array, a String or an Iterable and, for an Iterable, the qualified name of its element type. Resolving the
+ * iterable with the symbol solver goes through reflection every time, even though most loops iterate over a local
+ * variable or parameter declared as one of a handful of types like {@code int[]}, {@code String} or
+ * {@code List<Integer>}.
+ *
+ * <p>So the declaration of an iterable that names a local variable or parameter is looked up in the method's syntax
+ * tree. Arrays of primitives and Strings are recognized from the declared type alone, and any other declared type is
+ * resolved once per scope, meaning the imports and the method's type parameters it is resolved against, and kept in a
+ * bounded LRU cache shared by every thread. The cache holds {@link IterableType}s rather than the resolved types, which
+ * belong to the type solver of the thread that resolved them. Iterables that aren't a plain name, or whose name could
+ * refer to a type declared in the code state, are resolved by the symbol solver as before.
+ */
+final class IterableTypeCache {
+    public static final int DEFAULT_SIZE = 1024;
+
+    private static final String UNRESOLVED = "Foreach loops are only supported if their types can be resolved to something known";
+
+    enum Kind { ARRAY, STRING, ITERABLE, UNSUPPORTED }
+
+    /**
+     * @param elementType the qualified name of the elements of an ITERABLE
+     * @param failure     why an UNSUPPORTED iterable can't be converted
+     */
+    record IterableType(Kind kind, String elementType, String failure) {
+        static final IterableType ARRAY = new IterableType(Kind.ARRAY, null, null);
+        static final IterableType STRING = new IterableType(Kind.STRING, null, null);
+
+        /**
+         * @throws UnsupportedOperationException for an UNSUPPORTED iterable
+         */
+        IterableType orElseThrow() {
+            if (this.kind == Kind.UNSUPPORTED) {
+                throw new UnsupportedOperationException(this.failure);
+            }
+            return this;
+        }
+    }
+
+    private final Map<String, IterableType> cache;
+    private final AtomicInteger declared = new AtomicInteger(0);
+    private final AtomicInteger hits = new AtomicInteger(0);
+    private final AtomicInteger misses = new AtomicInteger(0);
+    private final AtomicInteger uncached = new AtomicInteger(0);
+
+    public IterableTypeCache(int size) {
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, IterableType> eldest) {
+                return this.size() > size;
+            }
+        });
+    }
+
+    /**
+     * @return what the loop iterates over; an UNSUPPORTED iterable is only returned, not thrown
+     */
+    public IterableType of(ForEachStmt forEachStmt) {
+        Expression iterable = forEachStmt.getIterable();
+        // findAncestor takes its classes as generic varargs, and its one overload that doesn't is deprecated
+        @SuppressWarnings("unchecked")
+        Optional<MethodDeclaration> md = forEachStmt.findAncestor(MethodDeclaration.class);
+        Optional<String> scope = md.flatMap(IterableTypeCache::scopeOf);
+        if (iterable instanceof NameExpr name && scope.isPresent()) {
+            Optional<Parameter> parameter = Optional.empty();
+            Optional<Type> type = Optional.empty();
+            Optional<Node> declaration = findDeclaration(name);
+            if (declaration.isPresent() && declaration.get() instanceof Parameter p) {
+                parameter = Optional.of(p);
+                type = Optional.of(p.getType());
+            } else if (declaration.isPresent() && declaration.get() instanceof VariableDeclarator v) {
+                type = Optional.of(v.getType());
+            }
+
+            if (type.isPresent() && !type.get().isVarType()) {
+                boolean varArgs = parameter.isPresent() && parameter.get().isVarArgs();
+                IterableType known = fromDeclaredType(type.get(), varArgs, md.get());
+                if (known != null) {
+                    this.declared.incrementAndGet();
+                    return known;
+                }
+
+                String key = scope.get() + '\0' + type.get() + (varArgs ? "..." : "");
+                IterableType cached = this.cache.get(key);
+                if (cached != null) {
+                    this.hits.incrementAndGet();
+                    return cached;
+                }
+                this.misses.incrementAndGet();
+                Type declaredType = type.get();
+                IterableType resolved = resolve(() -> varArgs
+                        ? new ResolvedArrayType(declaredType.resolve())
+                        : declaredType.resolve());
+                this.cache.put(key, resolved);
+                return resolved;
+            }
+        }
+
+        this.uncached.incrementAndGet();
+        return resolve(iterable);
+    }
+
+    /**
+     * @return what the iterable is according to the symbol solver, without looking at its declaration
+     */
+    static IterableType resolve(Expression iterable) {
+        return resolve(iterable::calculateResolvedType);
+    }
+
+    /**
+     * The same checks the converter made on the resolved type of the iterable.
+     */
+    private static IterableType resolve(Supplier<ResolvedType> resolver) {
+        ResolvedType iterableType;
+        try {
+            iterableType = resolver.get();
+        } catch (UnsolvedSymbolException ignored) {
+            return new IterableType(Kind.UNSUPPORTED, null, UNRESOLVED);
+        }
+
+        try {
+            Optional<ResolvedReferenceTypeDeclaration> itType = Optional.empty();
+            if (iterableType.isReferenceType()) {
+                itType = iterableType.asReferenceType().getTypeDeclaration();
+            }
+            if (itType.isPresent() && itType.get().getClassName().equals("String")) {
+                return IterableType.STRING;
+            }
+            if (iterableType.isArray()) {
+                return IterableType.ARRAY;
+            }
+
+            ResolvedTypeParametersMap itTypeParams = iterableType.asReferenceType().typeParametersMap();
+            if (itTypeParams.getTypes().size() != 1) {
+                return new IterableType(Kind.UNSUPPORTED, null,
+                        "An iterable with more than one type was given: " + itTypeParams);
+            }
+            return new IterableType(Kind.ITERABLE,
+                    itTypeParams.getTypes().get(0).asReferenceType().getQualifiedName(), null);
+        } catch (RuntimeException e) {
+            return new IterableType(Kind.UNSUPPORTED, null, e.toString());
+        }
+    }
+
+    /**
+     * @return ARRAY for an array of primitives and STRING for a String, which resolve the same way in every scope, or
+     * null if the declared type has to be resolved
+     */
+    private static IterableType fromDeclaredType(Type type, boolean varArgs, MethodDeclaration md) {
+        if (type instanceof ArrayType || varArgs) {
+            return type.getElementType().isPrimitiveType() ? IterableType.ARRAY : null;
+        }
+        if (type instanceof ClassOrInterfaceType classType && classType.getTypeArguments().isEmpty()
+                && (classType.getNameWithScope().equals("String") || classType.getNameWithScope().equals("java.lang.String"))
+                && !mayShadowString(md)) {
+            return IterableType.STRING;
+        }
+        return null;
+    }
+
+    private static boolean mayShadowString(MethodDeclaration md) {
+        return md.getTypeParameters().stream().anyMatch(t -> t.getNameAsString().equals("String"))
+                || md.findCompilationUnit().map(cu -> cu.getImports().stream()
+                        .anyMatch(i -> !i.isAsterisk() && i.getName().getIdentifier().equals("String")))
+                .orElse(true);
+    }
+
+    /**
+     * @return what the declared types around the loop are resolved against, or empty if the code state declares types
+     * of its own that they might refer to
+     */
+    private static Optional<String> scopeOf(MethodDeclaration md) {
+        Optional<CompilationUnit> cu = md.findCompilationUnit();
+        if (cu.isEmpty() || cu.get().getTypes().size() != 1) {
+            return Optional.empty();
+        }
+        TypeDeclaration<?> type = cu.get().getType(0);
+        if (type.getMembers().stream().anyMatch(BodyDeclaration::isTypeDeclaration)
+                || md.findFirst(LocalClassDeclarationStmt.class).isPresent()
+                || md.findFirst(LocalRecordDeclarationStmt.class).isPresent()
+                || md.findFirst(ObjectCreationExpr.class, o -> o.getAnonymousClassBody().isPresent()).isPresent()) {
+            return Optional.empty();
+        }
+        return Optional.of(cu.get().getImports().stream().map(ImportDeclaration::toString).map(String::strip)
+                .collect(Collectors.joining()) + md.getTypeParameters().stream().map(TypeParameter::toString)
+                .collect(Collectors.joining(",", "<", ">")));
+    }
+
+    /**
+     * @return the local variable or parameter of the method that the name refers to, if it is declared in the method
+     */
+    private static Optional<Node> findDeclaration(NameExpr name) {
+        String identifier = name.getNameAsString();
+        Node child = name;
+        Optional<Node> parent = child.getParentNode();
+        while (parent.isPresent()) {
+            Node p = parent.get();
+            Optional<Node> found = Optional.empty();
+            if (p instanceof BlockStmt block) {
+                found = findInStatements(block.getStatements(), child, identifier);
+            } else if (p instanceof SwitchEntry entry) {
+                found = findInStatements(entry.getStatements(), child, identifier);
+            } else if (p instanceof ForStmt forStmt && !containsNode(forStmt.getInitialization(), child)) {
+                found = findInDeclarations(forStmt.getInitialization(), identifier);
+            } else if (p instanceof ForEachStmt forEach && child == forEach.getBody()) {
+                found = findInDeclarations(List.of(forEach.getVariable()), identifier);
+            } else if (p instanceof TryStmt tryStmt && !containsNode(tryStmt.getResources(), child)) {
+                found = findInDeclarations(tryStmt.getResources(), identifier);
+            } else if (p instanceof CatchClause catchClause) {
+                found = findInParameters(List.of(catchClause.getParameter()), identifier);
+            } else if (p instanceof MethodDeclaration md) {
+                return findInParameters(md.getParameters(), identifier);
+            } else if (p instanceof TypeDeclaration || p instanceof ObjectCreationExpr || p instanceof Expression
+                    && !(p instanceof VariableDeclarationExpr)) {
+                // Lambdas and anonymous classes bring names of their own into scope
+                return Optional.empty();
+            }
+            if (found.isPresent()) {
+                return found;
+            }
+            child = p;
+            parent = child.getParentNode();
+        }
+        return Optional.empty();
+    }
+
+    // NodeList.contains compares nodes by structure rather than identity. Nodes are gathered in plain lists, since
+    // putting a node in a NodeList of its own would take it out of the method.
+    private static boolean containsNode(List<? extends Node> nodes, Node node) {
+        return nodes.stream().anyMatch(n -> n == node);
+    }
+
+    private static Optional<Node> findInStatements(List<Statement> statements, Node before, String identifier) {
+        for (Statement stmt : statements) {
+            if (stmt == before) {
+                break;
+            }
+            if (stmt instanceof ExpressionStmt expressionStmt) {
+                Optional<Node> found = findInDeclarations(List.of(expressionStmt.getExpression()), identifier);
+                if (found.isPresent()) {
+                    return found;
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static Optional<Node> findInDeclarations(List<Expression> expressions, String identifier) {
+        for (Expression expr : expressions) {
+            if (expr instanceof VariableDeclarationExpr declarations) {
+                for (VariableDeclarator v : declarations.getVariables()) {
+                    if (v.getNameAsString().equals(identifier)) {
+                        return Optional.of(v);
+                    }
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static Optional<Node> findInParameters(List<Parameter> parameters, String identifier) {
+        for (Parameter parameter : parameters) {
+            if (parameter.getNameAsString().equals(identifier)) {
+                return Optional.of(parameter);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * @return how many iterables were recognized from their declared type without resolving anything
+     */
+    public int getDeclared() {
+        return this.declared.get();
+    }
+
+    public int getHits() {
+        return this.hits.get();
+    }
+
+    public int getMisses() {
+        return this.misses.get();
+    }
+
+    /**
+     * @return how many iterables were resolved by the symbol solver because they couldn't be cached
+     */
+    public int getUncached() {
+        return this.uncached.get();
+    }
+
+    public int getLookups() {
+        return this.getDeclared() + this.getHits() + this.getMisses() + this.getUncached();
+    }
+
+    /**
+     * @return the share of lookups answered without the symbol solver
+     */
+    public double getHitRate() {
+        int lookups = this.getLookups();
+        return lookups == 0 ? 0 : (double) (this.getDeclared() + this.getHits()) / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d foreach loops typed from their declaration, %d from the cache, %d resolved into the "
+                        + "cache and %d resolved without it (%.1f%% without resolving)", this.getDeclared(),
+                this.getHits(), this.getMisses(), this.getUncached(), 100 * this.getHitRate());
+    }
+}
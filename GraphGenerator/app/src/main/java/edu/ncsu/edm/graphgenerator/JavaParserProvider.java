@@ -0,0 +1,69 @@
+package edu.ncsu.edm.graphgenerator;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.stmt.Statement;
+import com.github.javaparser.symbolsolver.JavaSymbolSolver;
+import com.github.javaparser.symbolsolver.model.resolution.TypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+
+/**
+ * Hands out preconfigured {@link JavaParser}s, one per thread, in place of the process-wide {@code StaticJavaParser}.
+ * A JavaParser keeps its generated parser between calls, so reusing one per thread avoids rebuilding it for every
+ * code state, but it must never be used by two threads at once.
+ *
+ * <p>Each thread also gets its own symbol solver. The solvers could share a single {@link ReflectionTypeSolver}, but
+ * JavaParserFacade caches resolved types per type solver in maps that aren't thread-safe, so sharing one would let
+ * the workers corrupt each other's caches.
+ */
+public class JavaParserProvider {
+    private final ParserConfiguration.LanguageLevel languageLevel;
+    private final ThreadLocal<JavaParser> parsers = ThreadLocal.withInitial(this::createParser);
+
+    public JavaParserProvider() {
+        this(ParserConfiguration.LanguageLevel.JAVA_17_PREVIEW);
+    }
+
+    public JavaParserProvider(ParserConfiguration.LanguageLevel languageLevel) {
+        this.languageLevel = languageLevel;
+    }
+
+    private JavaParser createParser() {
+        TypeSolver reflectionSolver = new ReflectionTypeSolver();
+        JavaSymbolSolver symbolSolver = new JavaSymbolSolver(reflectionSolver);
+        return new JavaParser(new ParserConfiguration()
+                .setLanguageLevel(this.languageLevel)
+                .setSymbolResolver(symbolSolver)
+                .setAttributeComments(false));
+    }
+
+    /**
+     * @return the parser for the calling thread
+     */
+    public JavaParser get() {
+        return this.parsers.get();
+    }
+
+    public CompilationUnit parse(String code) {
+        return handleResult(this.get().parse(code));
+    }
+
+    public Statement parseStatement(String statement) {
+        return handleResult(this.get().parseStatement(statement));
+    }
+
+    public Expression parseExpression(String expression) {
+        return handleResult(this.get().parseExpression(expression));
+    }
+
+    private static <T> T handleResult(ParseResult<T> result) {
+        if (result.isSuccessful() && result.getResult().isPresent()) {
+            return result.getResult().get();
+        }
+        throw new ParseProblemException(result.getProblems());
+    }
+}
@@ -0,0 +1,120 @@
+package edu.ncsu.edm.graphgenerator;
+
+import com.opencsv.CSVWriter;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Numbers the distinct node labels of one strategy. Canonicalized labels repeat across nearly every code state, so
+ * with a dictionary the Nodes CSV holds each node's label id and every label is written once to
+ * {@code <strategy>}{@value #FILE_SUFFIX}, as a LabelId and Label row, the first time a node with it is written.
+ *
+ * <p>Workers {@link #intern(CharSequence)} labels as they render graphs, so every rendered graph that is still waiting
+ * to be written or is kept for duplicates shares one copy of each label. A label is looked up by its text straight from
+ * {@link LabelRenderer}'s reused buffer, so a label that was seen before costs no allocation, only rendering it. It is
+ * still rendered for every node, since telling two nodes' labels apart without rendering would take a walk of their
+ * ASTs that costs about as much. Nodes LabelRenderer leaves to the pretty printer are still pretty printed every time.
+ * Ids are only handed out by {@link #idOf(String)} on the writer thread, so they follow the order of the output and
+ * don't depend on how many threads there are.
+ */
+class LabelDictionary implements Closeable {
+    public static final String FILE_SUFFIX = "Labels.csv";
+
+    private static final class Entry {
+        private final String label;
+        // Only read and written on the writer thread
+        private int id = -1;
+
+        private Entry(String label) {
+            this.label = label;
+        }
+    }
+
+    /**
+     * A label's text as a map key. A thread looks labels up with a {@link #PROBE} pointed at the text it has, and only
+     * a new label is copied into a key of its own.
+     */
+    private static final class Key {
+        private CharSequence text;
+        private int hash;
+
+        private Key(CharSequence text) {
+            this.set(text);
+        }
+
+        private Key set(CharSequence text) {
+            int hash = 0;
+            for (int i = 0; i < text.length(); i++) {
+                hash = 31 * hash + text.charAt(i);
+            }
+            this.text = text;
+            this.hash = hash;
+            return this;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key other
+                    && other.hash == this.hash && CharSequence.compare(other.text, this.text) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+
+    private static final ThreadLocal<Key> PROBE = ThreadLocal.withInitial(() -> new Key(""));
+
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final CSVWriter labels;
+    private int nextId = 0;
+
+    public LabelDictionary(String fileName) throws IOException {
+        this.labels = new CSVWriter(new BufferedWriter(new FileWriter(fileName)));
+        this.labels.writeNext(new String[] { "LabelId", "Label" });
+    }
+
+    /**
+     * @return the copy of the label that every other node with the same label shares
+     */
+    public String intern(CharSequence label) {
+        return this.entryOf(label).label;
+    }
+
+    private Entry entryOf(CharSequence label) {
+        Key probe = PROBE.get().set(label);
+        Entry entry = this.entries.get(probe);
+        probe.text = "";
+        if (entry != null) {
+            return entry;
+        }
+        String copy = label.toString();
+        return this.entries.computeIfAbsent(new Key(copy), key -> new Entry(copy));
+    }
+
+    /**
+     * @return the label's id, writing it to the dictionary file if it is new
+     */
+    public int idOf(String label) {
+        Entry entry = this.entryOf(label);
+        if (entry.id < 0) {
+            entry.id = this.nextId++;
+            this.labels.writeNext(new String[] { String.valueOf(entry.id), entry.label });
+        }
+        return entry.id;
+    }
+
+    public int size() {
+        return this.entries.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.labels.close();
+    }
+}
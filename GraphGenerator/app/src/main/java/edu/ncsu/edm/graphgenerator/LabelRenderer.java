@@ -0,0 +1,771 @@
+package edu.ncsu.edm.graphgenerator;
+
+import com.github.javaparser.ast.ArrayCreationLevel;
+import com.github.javaparser.ast.Modifier;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.*;
+import com.github.javaparser.ast.nodeTypes.NodeWithTypeArguments;
+import com.github.javaparser.ast.stmt.*;
+import com.github.javaparser.ast.type.*;
+
+import edu.ncsu.edm.graphgenerator.CanonicalLabelPrinter.Canonicalization;
+
+/**
+ * Renders node labels exactly as {@link CanonicalLabelPrinter}'s pretty printer prints them, for the statements and
+ * expressions that methods are made of, into a {@link StringBuilder} that each thread reuses. The pretty printer sets
+ * up a printer, a visitor and their buffers for every label, looks its configuration up for every operator and
+ * argument list, and prints the type of every variable declaration once more to find the type its variables share.
+ *
+ * <p>A node this doesn't cover, like a lambda, an anonymous class, a try statement or anything with a comment, makes
+ * {@link #render} return null, and the whole label is left to the pretty printer.
+ */
+final class LabelRenderer {
+    private static final ThreadLocal<LabelRenderer> RENDERERS = ThreadLocal.withInitial(LabelRenderer::new);
+
+    // The defaults of DefaultPrinterConfiguration, which Node.toString() prints with
+    private static final String INDENT = "    ";
+    private static final String EOL = System.lineSeparator();
+
+    /**
+     * Thrown without a stack trace when a label holds a node that isn't covered, so falling back stays cheap.
+     */
+    private static final class Unsupported extends RuntimeException {
+        private Unsupported() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final Unsupported UNSUPPORTED = new Unsupported();
+
+    private final StringBuilder label = new StringBuilder(256);
+    private final StringBuilder scratch = new StringBuilder(64);
+    private StringBuilder out = this.label;
+    private int indentLevel;
+    private boolean indented;
+
+    private boolean variables;
+    private boolean literals;
+    // Whether the closest statement, field access, method call or method reference around the current node is a
+    // statement, which is when VariableCanonicalizationConverter replaces names
+    private boolean inStatement;
+    private boolean inDeclaratorType;
+
+    private LabelRenderer() {
+    }
+
+    /**
+     * @return the node printed with the given canonicalization, or null if it has to be left to the pretty printer
+     */
+    static String render(Node node, Canonicalization canonicalization) {
+        CharSequence label = renderInPlace(node, canonicalization);
+        return label == null ? null : label.toString();
+    }
+
+    /**
+     * Like {@link #render}, but returns the thread's buffer instead of a copy of the label, which is only valid until
+     * the thread renders its next label.
+     */
+    static CharSequence renderInPlace(Node node, Canonicalization canonicalization) {
+        return RENDERERS.get().renderLabel(node, canonicalization);
+    }
+
+    private CharSequence renderLabel(Node node, Canonicalization canonicalization) {
+        this.label.setLength(0);
+        this.out = this.label;
+        this.indentLevel = 0;
+        this.indented = false;
+        this.variables = canonicalization != Canonicalization.NONE;
+        this.literals = canonicalization == Canonicalization.LITERALS;
+        this.startWithin(node);
+        try {
+            this.node(node);
+        } catch (Unsupported e) {
+            return null;
+        }
+        return this.label;
+    }
+
+    // Names are canonicalized depending on what is around them, which for the nodes of a label starts outside of it
+    private void startWithin(Node node) {
+        this.inStatement = false;
+        this.inDeclaratorType = false;
+        boolean foundScope = false;
+        Node child = node;
+        Node parent = node.getParentNode().orElse(null);
+        while (parent != null) {
+            if (!foundScope && (parent instanceof Statement || parent instanceof FieldAccessExpr
+                    || parent instanceof MethodCallExpr || parent instanceof MethodReferenceExpr)) {
+                foundScope = true;
+                this.inStatement = parent instanceof Statement;
+            }
+            if (parent instanceof VariableDeclarator declarator && declarator.getType() == child) {
+                this.inDeclaratorType = true;
+            }
+            child = parent;
+            parent = parent.getParentNode().orElse(null);
+        }
+    }
+
+    private void print(String s) {
+        if (!this.indented) {
+            for (int i = 0; i < this.indentLevel; i++) {
+                this.out.append(INDENT);
+            }
+            this.indented = true;
+        }
+        this.out.append(s);
+    }
+
+    private void println() {
+        this.out.append(EOL);
+        this.indented = false;
+    }
+
+    // The parser doesn't attribute comments, but the pretty printer would print any that a node is given into its label
+    private static void checkComments(Node n) {
+        if (n.getComment().isPresent() || !n.getOrphanComments().isEmpty()) {
+            throw UNSUPPORTED;
+        }
+        Node parent = n.getParentNode().orElse(null);
+        if (parent != null && !parent.getOrphanComments().isEmpty()) {
+            throw UNSUPPORTED;
+        }
+    }
+
+    private static void checkNoAnnotations(NodeList<AnnotationExpr> annotations) {
+        if (!annotations.isEmpty()) {
+            throw UNSUPPORTED;
+        }
+    }
+
+    private void node(Node n) {
+        switch (n) {
+            case Statement s -> this.statement(s);
+            case Expression e -> this.expression(e);
+            case Type t -> this.type(t);
+            case SwitchEntry e -> this.switchEntry(e);
+            case MethodDeclaration m -> this.method(m);
+            default -> throw UNSUPPORTED;
+        }
+    }
+
+    private void name(SimpleName n) {
+        checkComments(n);
+        this.print(this.variables && this.inStatement && !this.inDeclaratorType
+                ? VariableCanonicalizationConverter.PLACEHOLDER
+                : n.getIdentifier());
+    }
+
+    private void qualifiedName(Name n) {
+        checkComments(n);
+        if (n.getQualifier().isPresent()) {
+            this.qualifiedName(n.getQualifier().get());
+            this.print(".");
+        }
+        this.print(n.getIdentifier());
+    }
+
+    private void modifiers(NodeList<Modifier> modifiers) {
+        for (Modifier modifier : modifiers) {
+            this.print(modifier.getKeyword().asString());
+            this.print(" ");
+        }
+    }
+
+    private void method(MethodDeclaration n) {
+        checkComments(n);
+        checkNoAnnotations(n.getAnnotations());
+        if (!n.getTypeParameters().isEmpty() || n.getReceiverParameter().isPresent()) {
+            throw UNSUPPORTED;
+        }
+        this.modifiers(n.getModifiers());
+        this.type(n.getType());
+        this.print(" ");
+        this.name(n.getName());
+        this.print("(");
+        for (int i = 0; i < n.getParameters().size(); i++) {
+            if (i > 0) {
+                this.print(", ");
+            }
+            this.parameter(n.getParameter(i));
+        }
+        this.print(")");
+        if (!n.getThrownExceptions().isEmpty()) {
+            this.print(" throws ");
+            this.types(n.getThrownExceptions());
+        }
+        if (n.getBody().isPresent()) {
+            this.print(" ");
+            this.statement(n.getBody().get());
+        } else {
+            this.print(";");
+        }
+    }
+
+    private void parameter(Parameter n) {
+        checkComments(n);
+        checkNoAnnotations(n.getAnnotations());
+        this.modifiers(n.getModifiers());
+        this.type(n.getType());
+        if (n.isVarArgs()) {
+            checkNoAnnotations(n.getVarArgsAnnotations());
+            this.print("...");
+        }
+        if (!(n.getType() instanceof UnknownType)) {
+            this.print(" ");
+        }
+        this.name(n.getName());
+    }
+
+    private void statement(Statement n) {
+        checkComments(n);
+        boolean wasInStatement = this.inStatement;
+        this.inStatement = true;
+        switch (n) {
+            case ExpressionStmt s -> {
+                this.expression(s.getExpression());
+                this.print(";");
+            }
+            case BlockStmt s -> {
+                this.print("{");
+                this.println();
+                this.indentLevel++;
+                for (Statement statement : s.getStatements()) {
+                    this.statement(statement);
+                    this.println();
+                }
+                this.indentLevel--;
+                this.print("}");
+            }
+            case IfStmt s -> this.ifStatement(s);
+            case WhileStmt s -> {
+                this.print("while (");
+                this.expression(s.getCondition());
+                this.print(") ");
+                this.statement(s.getBody());
+            }
+            case DoStmt s -> {
+                this.print("do ");
+                this.statement(s.getBody());
+                this.print(" while (");
+                this.expression(s.getCondition());
+                this.print(");");
+            }
+            case ForStmt s -> {
+                this.print("for (");
+                this.expressions(s.getInitialization());
+                this.print("; ");
+                if (s.getCompare().isPresent()) {
+                    this.expression(s.getCompare().get());
+                }
+                this.print("; ");
+                this.expressions(s.getUpdate());
+                this.print(") ");
+                this.statement(s.getBody());
+            }
+            case ForEachStmt s -> {
+                this.print("for (");
+                this.expression(s.getVariable());
+                this.print(" : ");
+                this.expression(s.getIterable());
+                this.print(") ");
+                this.statement(s.getBody());
+            }
+            case ReturnStmt s -> {
+                this.print("return");
+                if (s.getExpression().isPresent()) {
+                    this.print(" ");
+                    this.expression(s.getExpression().get());
+                }
+                this.print(";");
+            }
+            case BreakStmt s -> {
+                this.print("break");
+                this.jumpLabel(s.getLabel().orElse(null));
+            }
+            case ContinueStmt s -> {
+                this.print("continue");
+                this.jumpLabel(s.getLabel().orElse(null));
+            }
+            case LabeledStmt s -> {
+                this.name(s.getLabel());
+                this.print(": ");
+                this.statement(s.getStatement());
+            }
+            case SwitchStmt s -> {
+                this.print("switch(");
+                this.expression(s.getSelector());
+                this.print(") {");
+                this.println();
+                this.indentLevel++;
+                for (SwitchEntry entry : s.getEntries()) {
+                    this.switchEntry(entry);
+                }
+                this.indentLevel--;
+                this.print("}");
+            }
+            case ThrowStmt s -> {
+                this.print("throw ");
+                this.expression(s.getExpression());
+                this.print(";");
+            }
+            case YieldStmt s -> {
+                this.print("yield ");
+                this.expression(s.getExpression());
+                this.print(";");
+            }
+            case AssertStmt s -> {
+                this.print("assert ");
+                this.expression(s.getCheck());
+                if (s.getMessage().isPresent()) {
+                    this.print(" : ");
+                    this.expression(s.getMessage().get());
+                }
+                this.print(";");
+            }
+            case SynchronizedStmt s -> {
+                this.print("synchronized (");
+                this.expression(s.getExpression());
+                this.print(") ");
+                this.statement(s.getBody());
+            }
+            case ExplicitConstructorInvocationStmt s -> {
+                if (s.isThis()) {
+                    this.typeArguments(s);
+                    this.print("this");
+                } else {
+                    if (s.getExpression().isPresent()) {
+                        this.expression(s.getExpression().get());
+                        this.print(".");
+                    }
+                    this.typeArguments(s);
+                    this.print("super");
+                }
+                this.arguments(s.getArguments());
+                this.print(";");
+            }
+            case EmptyStmt s -> this.print(";");
+            default -> throw UNSUPPORTED;
+        }
+        this.inStatement = wasInStatement;
+    }
+
+    // The pretty printer prints the labels of break and continue without visiting them
+    private void jumpLabel(SimpleName label) {
+        if (label != null) {
+            this.print(" ");
+            this.print(this.variables ? VariableCanonicalizationConverter.PLACEHOLDER : label.getIdentifier());
+        }
+        this.print(";");
+    }
+
+    private void ifStatement(IfStmt n) {
+        this.print("if (");
+        this.expression(n.getCondition());
+        boolean thenBlock = n.getThenStmt() instanceof BlockStmt;
+        if (thenBlock) {
+            this.print(") ");
+        } else {
+            this.print(")");
+            this.println();
+            this.indentLevel++;
+        }
+        this.statement(n.getThenStmt());
+        if (!thenBlock) {
+            this.indentLevel--;
+        }
+        if (n.getElseStmt().isPresent()) {
+            Statement elseStmt = n.getElseStmt().get();
+            if (thenBlock) {
+                this.print(" ");
+            } else {
+                this.println();
+            }
+            boolean sameLine = elseStmt instanceof IfStmt || elseStmt instanceof BlockStmt;
+            if (sameLine) {
+                this.print("else ");
+            } else {
+                this.print("else");
+                this.println();
+                this.indentLevel++;
+            }
+            this.statement(elseStmt);
+            if (!sameLine) {
+                this.indentLevel--;
+            }
+        }
+    }
+
+    private void switchEntry(SwitchEntry n) {
+        checkComments(n);
+        String separator = n.getType() == SwitchEntry.Type.STATEMENT_GROUP ? ":" : " ->";
+        if (n.getLabels().isEmpty()) {
+            this.print("default");
+            this.print(separator);
+        } else {
+            this.print("case ");
+            this.expressions(n.getLabels());
+            this.print(separator);
+        }
+        this.println();
+        this.indentLevel++;
+        for (Statement statement : n.getStatements()) {
+            this.statement(statement);
+            this.println();
+        }
+        this.indentLevel--;
+    }
+
+    private void expressions(NodeList<Expression> expressions) {
+        for (int i = 0; i < expressions.size(); i++) {
+            if (i > 0) {
+                this.print(", ");
+            }
+            this.expression(expressions.get(i));
+        }
+    }
+
+    private void arguments(NodeList<Expression> arguments) {
+        this.print("(");
+        this.expressions(arguments);
+        this.print(")");
+    }
+
+    private void expression(Expression n) {
+        checkComments(n);
+        switch (n) {
+            case NameExpr e -> this.name(e.getName());
+            case LiteralExpr e -> this.literal(e);
+            case BinaryExpr e -> {
+                this.expression(e.getLeft());
+                this.print(" ");
+                this.print(e.getOperator().asString());
+                this.print(" ");
+                this.expression(e.getRight());
+            }
+            case UnaryExpr e -> {
+                if (e.getOperator().isPrefix()) {
+                    this.print(e.getOperator().asString());
+                }
+                this.expression(e.getExpression());
+                if (e.getOperator().isPostfix()) {
+                    this.print(e.getOperator().asString());
+                }
+            }
+            case AssignExpr e -> {
+                this.expression(e.getTarget());
+                this.print(" ");
+                this.print(e.getOperator().asString());
+                this.print(" ");
+                this.expression(e.getValue());
+            }
+            case MethodCallExpr e -> {
+                boolean wasInStatement = this.inStatement;
+                this.inStatement = false;
+                if (e.getScope().isPresent()) {
+                    this.expression(e.getScope().get());
+                    this.print(".");
+                }
+                this.typeArguments(e);
+                this.name(e.getName());
+                this.arguments(e.getArguments());
+                this.inStatement = wasInStatement;
+            }
+            case FieldAccessExpr e -> {
+                boolean wasInStatement = this.inStatement;
+                this.inStatement = false;
+                this.expression(e.getScope());
+                this.print(".");
+                this.name(e.getName());
+                this.inStatement = wasInStatement;
+            }
+            case ArrayAccessExpr e -> {
+                this.expression(e.getName());
+                this.print("[");
+                this.expression(e.getIndex());
+                this.print("]");
+            }
+            case EnclosedExpr e -> {
+                this.print("(");
+                this.expression(e.getInner());
+                this.print(")");
+            }
+            case CastExpr e -> {
+                this.print("(");
+                this.type(e.getType());
+                this.print(") ");
+                this.expression(e.getExpression());
+            }
+            case ConditionalExpr e -> {
+                this.expression(e.getCondition());
+                this.print(" ? ");
+                this.expression(e.getThenExpr());
+                this.print(" : ");
+                this.expression(e.getElseExpr());
+            }
+            case InstanceOfExpr e -> {
+                if (e.getPattern().isPresent()) {
+                    throw UNSUPPORTED;
+                }
+                this.expression(e.getExpression());
+                this.print(" instanceof ");
+                this.type(e.getType());
+            }
+            case ObjectCreationExpr e -> {
+                if (e.getAnonymousClassBody().isPresent()) {
+                    throw UNSUPPORTED;
+                }
+                if (e.getScope().isPresent()) {
+                    this.expression(e.getScope().get());
+                    this.print(".");
+                }
+                this.print("new ");
+                this.typeArguments(e);
+                if (e.getTypeArguments().isPresent() && !e.getTypeArguments().get().isEmpty()) {
+                    this.print(" ");
+                }
+                this.type(e.getType());
+                this.arguments(e.getArguments());
+            }
+            case ArrayCreationExpr e -> {
+                this.print("new ");
+                this.type(e.getElementType());
+                for (ArrayCreationLevel level : e.getLevels()) {
+                    checkComments(level);
+                    checkNoAnnotations(level.getAnnotations());
+                    this.print("[");
+                    if (level.getDimension().isPresent()) {
+                        this.expression(level.getDimension().get());
+                    }
+                    this.print("]");
+                }
+                if (e.getInitializer().isPresent()) {
+                    this.print(" ");
+                    this.expression(e.getInitializer().get());
+                }
+            }
+            case ArrayInitializerExpr e -> {
+                this.print("{");
+                if (!e.getValues().isEmpty()) {
+                    this.print(" ");
+                    this.expressions(e.getValues());
+                    this.print(" ");
+                }
+                this.print("}");
+            }
+            case VariableDeclarationExpr e -> this.variableDeclaration(e);
+            case ClassExpr e -> {
+                this.type(e.getType());
+                this.print(".class");
+            }
+            case ThisExpr e -> {
+                if (e.getTypeName().isPresent()) {
+                    this.qualifiedName(e.getTypeName().get());
+                    this.print(".");
+                }
+                this.print("this");
+            }
+            case SuperExpr e -> {
+                if (e.getTypeName().isPresent()) {
+                    this.qualifiedName(e.getTypeName().get());
+                    this.print(".");
+                }
+                this.print("super");
+            }
+            default -> throw UNSUPPORTED;
+        }
+    }
+
+    private void literal(LiteralExpr n) {
+        // LiteralCanonicalizationConverter can only replace literals that have a parent to replace them in
+        if (this.literals && n.getParentNode().isPresent() && !(n instanceof NullLiteralExpr)) {
+            this.print(LiteralCanonicalizationConverter.placeholderOf(n));
+            return;
+        }
+        switch (n) {
+            case NullLiteralExpr e -> this.print("null");
+            case BooleanLiteralExpr e -> this.print(e.getValue() ? "true" : "false");
+            case CharLiteralExpr e -> {
+                this.print("'");
+                this.print(e.getValue());
+                this.print("'");
+            }
+            case StringLiteralExpr e -> {
+                this.print("\"");
+                this.print(e.getValue());
+                this.print("\"");
+            }
+            case IntegerLiteralExpr e -> this.print(e.getValue());
+            case LongLiteralExpr e -> this.print(e.getValue());
+            case DoubleLiteralExpr e -> this.print(e.getValue());
+            default -> throw UNSUPPORTED;
+        }
+    }
+
+    private void variableDeclaration(VariableDeclarationExpr n) {
+        checkNoAnnotations(n.getAnnotations());
+        this.modifiers(n.getModifiers());
+        Type commonType = n.getVariables().isEmpty() ? null : commonType(n.getVariables());
+        if (commonType != null) {
+            this.declaratorType(commonType);
+        }
+        this.print(" ");
+        for (int i = 0; i < n.getVariables().size(); i++) {
+            if (i > 0) {
+                this.print(", ");
+            }
+            this.declarator(n.getVariable(i), commonType);
+        }
+    }
+
+    private void declarator(VariableDeclarator n, Type commonType) {
+        checkComments(n);
+        checkComments(n.getName());
+        this.print(this.variables ? VariableCanonicalizationConverter.PLACEHOLDER : n.getNameAsString());
+        if (commonType != null) {
+            Type type = n.getType();
+            int arrayLevel = type.getArrayLevel();
+            for (int i = commonType.getArrayLevel(); i < arrayLevel; i++) {
+                checkNoAnnotations(type.getAnnotations());
+                this.print("[]");
+                type = ((ArrayType) type).getComponentType();
+            }
+        }
+        if (n.getInitializer().isPresent()) {
+            this.print(" = ");
+            this.expression(n.getInitializer().get());
+        }
+    }
+
+    private void declaratorType(Type type) {
+        boolean wasInDeclaratorType = this.inDeclaratorType;
+        this.inDeclaratorType = true;
+        this.type(type);
+        this.inDeclaratorType = wasInDeclaratorType;
+    }
+
+    /**
+     * The type NodeWithVariables#getMaximumCommonType() finds: the variables' type with as many array levels as all
+     * of them print the same with, or null if they don't even share their element type.
+     */
+    private Type commonType(NodeList<VariableDeclarator> variables) {
+        Type first = variables.get(0).getType();
+        if (variables.size() == 1) {
+            return first;
+        }
+        int level = 0;
+        while (this.sameAtLevel(variables, level)) {
+            level++;
+        }
+        return toArrayLevel(first, level - 1);
+    }
+
+    private boolean sameAtLevel(NodeList<VariableDeclarator> variables, int level) {
+        String printed = null;
+        for (VariableDeclarator variable : variables) {
+            Type type = toArrayLevel(variable.getType(), level);
+            if (type == null) {
+                return false;
+            }
+            String typeString = this.typeString(type);
+            if (printed != null && !printed.equals(typeString)) {
+                return false;
+            }
+            printed = typeString;
+        }
+        return true;
+    }
+
+    private static Type toArrayLevel(Type type, int level) {
+        if (level > type.getArrayLevel()) {
+            return null;
+        }
+        for (int i = type.getArrayLevel(); i > level; i--) {
+            if (!(type instanceof ArrayType arrayType)) {
+                return null;
+            }
+            type = arrayType.getComponentType();
+        }
+        return type;
+    }
+
+    // Types are compared as Node.toString() prints them, which never canonicalizes them
+    private String typeString(Type type) {
+        StringBuilder out = this.out;
+        boolean indented = this.indented;
+        boolean wasInDeclaratorType = this.inDeclaratorType;
+        this.scratch.setLength(0);
+        this.out = this.scratch;
+        this.indented = true;
+        this.inDeclaratorType = true;
+        try {
+            this.type(type);
+        } finally {
+            this.out = out;
+            this.indented = indented;
+            this.inDeclaratorType = wasInDeclaratorType;
+        }
+        return this.scratch.toString();
+    }
+
+    private void types(NodeList<? extends Type> types) {
+        for (int i = 0; i < types.size(); i++) {
+            if (i > 0) {
+                this.print(", ");
+            }
+            this.type(types.get(i));
+        }
+    }
+
+    private void typeArguments(NodeWithTypeArguments<?> n) {
+        if (n.getTypeArguments().isPresent() && !n.getTypeArguments().get().isEmpty()) {
+            this.print("<");
+            this.types(n.getTypeArguments().get());
+            this.print(">");
+        }
+    }
+
+    private void type(Type n) {
+        checkComments(n);
+        checkNoAnnotations(n.getAnnotations());
+        switch (n) {
+            case ClassOrInterfaceType t -> {
+                if (t.getScope().isPresent()) {
+                    this.type(t.getScope().get());
+                    this.print(".");
+                }
+                this.name(t.getName());
+                if (t.isUsingDiamondOperator()) {
+                    this.print("<>");
+                } else {
+                    this.typeArguments(t);
+                }
+            }
+            case PrimitiveType t -> this.print(t.getType().asString());
+            case ArrayType t -> {
+                this.type(t.getComponentType());
+                this.print("[]");
+            }
+            case VarType t -> this.print("var");
+            case VoidType t -> this.print("void");
+            case WildcardType t -> {
+                this.print("?");
+                if (t.getExtendedType().isPresent()) {
+                    this.print(" extends ");
+                    this.type(t.getExtendedType().get());
+                }
+                if (t.getSuperType().isPresent()) {
+                    this.print(" super ");
+                    this.type(t.getSuperType().get());
+                }
+            }
+            case UnknownType t -> {
+            }
+            default -> throw UNSUPPORTED;
+        }
+    }
+}
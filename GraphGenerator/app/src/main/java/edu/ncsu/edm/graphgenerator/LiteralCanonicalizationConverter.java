@@ -1,6 +1,5 @@
 package edu.ncsu.edm.graphgenerator;
 
-import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.body.VariableDeclarator;
 import com.github.javaparser.ast.expr.*;
@@ -10,65 +9,64 @@ import java.util.Set;
 
 public class LiteralCanonicalizationConverter extends VoidVisitorAdapter<Set<String>> {
 
-    private static void replaceNode(Node baseNode, Node replaceWith) {
+    private static void replaceNode(LiteralExpr baseNode) {
         baseNode.getParentNode().ifPresent(
-                parent -> parent.replace(baseNode, replaceWith)
+                parent -> parent.replace(baseNode, new NameExpr(placeholderOf(baseNode)))
         );
     }
 
-    private static final Node boolLit = StaticJavaParser.parseExpression("BOOL_LIT");
+    static String placeholderOf(LiteralExpr literalExpr) {
+        return switch (literalExpr) {
+            case BooleanLiteralExpr ignored -> "BOOL_LIT";
+            case CharLiteralExpr ignored -> "CHAR_LIT";
+            case DoubleLiteralExpr ignored -> "DOUBLE_LIT";
+            case IntegerLiteralExpr ignored -> "INT_LIT";
+            case LongLiteralExpr ignored -> "LONG_LIT";
+            case StringLiteralExpr ignored -> "STR_LIT";
+            case TextBlockLiteralExpr ignored -> "TEXT_BLOCK_LIT";
+            default -> throw new IllegalArgumentException("Unknown Literal Type: " + literalExpr.getClass().getName());
+        };
+    }
 
     @Override
     public void visit(BooleanLiteralExpr booleanLiteralExpr, Set<String> ignored) {
-        replaceNode(booleanLiteralExpr, boolLit.clone());
+        replaceNode(booleanLiteralExpr);
         super.visit(booleanLiteralExpr, ignored);
     }
 
-    private static final Node charLit = StaticJavaParser.parseExpression("CHAR_LIT");
-
     @Override
     public void visit(CharLiteralExpr charLiteralExpr, Set<String> ignored) {
-        replaceNode(charLiteralExpr, charLit.clone());
+        replaceNode(charLiteralExpr);
         super.visit(charLiteralExpr, ignored);
     }
 
-    private static final Node doubleLit = StaticJavaParser.parseExpression("DOUBLE_LIT");
-
     @Override
     public void visit(DoubleLiteralExpr doubleLiteralExpr, Set<String> ignored) {
-        replaceNode(doubleLiteralExpr, doubleLit.clone());
+        replaceNode(doubleLiteralExpr);
         super.visit(doubleLiteralExpr, ignored);
     }
 
-    private static final Node intLit = StaticJavaParser.parseExpression("INT_LIT");
-
     @Override
     public void visit(IntegerLiteralExpr integerLiteralExpr, Set<String> ignored) {
-        replaceNode(integerLiteralExpr, intLit.clone());
+        replaceNode(integerLiteralExpr);
         super.visit(integerLiteralExpr, ignored);
     }
 
-    private static final Node longLit = StaticJavaParser.parseExpression("LONG_LIT");
-
     @Override
     public void visit(LongLiteralExpr longLiteralExpr, Set<String> ignored) {
-        replaceNode(longLiteralExpr, longLit.clone());
+        replaceNode(longLiteralExpr);
         super.visit(longLiteralExpr, ignored);
     }
 
-    private static final Node stringLit = StaticJavaParser.parseExpression("STR_LIT");
-
     @Override
     public void visit(StringLiteralExpr stringLiteralExpr, Set<String> ignored) {
-        replaceNode(stringLiteralExpr, stringLit.clone());
+        replaceNode(stringLiteralExpr);
         super.visit(stringLiteralExpr, ignored);
     }
 
-    private static final Node textBlockLit = StaticJavaParser.parseExpression("TEXT_BLOCK_LIT");
-
     @Override
     public void visit(TextBlockLiteralExpr textBlockLiteralExpr, Set<String> ignored) {
-        replaceNode(textBlockLiteralExpr, textBlockLit.clone());
+        replaceNode(textBlockLiteralExpr);
         super.visit(textBlockLiteralExpr, ignored);
     }
 }
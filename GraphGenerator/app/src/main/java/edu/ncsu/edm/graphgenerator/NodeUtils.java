@@ -1,7 +1,6 @@
 package edu.ncsu.edm.graphgenerator;
 
 import com.github.javaparser.ast.stmt.*;
-import org.jgrapht.Graph;
 
 import java.util.*;
 import java.util.function.Predicate;
@@ -11,21 +10,22 @@ public class NodeUtils {
         return (Statement) stmt.findAncestor(t -> true, new Class[]{DoStmt.class, ForEachStmt.class, ForStmt.class, IfStmt.class, WhileStmt.class}).orElseThrow();
     }
 
-    private static FlowNode getNearestAncestorByConditional(Graph<FlowNode, FlowEdge> graph,
+    private static FlowNode getNearestAncestorByConditional(CfgBuilder graph,
                                                             FlowNode start, Predicate<FlowNode> condition,
                                                             String condString) {
-        Stack<FlowEdge> ancestorEdges = new Stack<>();
-        ancestorEdges.addAll(graph.incomingEdgesOf(start));
-        Set<FlowEdge> seenEdges = new HashSet<>();
+        Stack<Integer> ancestorEdges = new Stack<>();
+        Arrays.stream(graph.incomingEdgesOf(start)).forEach(ancestorEdges::push);
+        Set<Integer> seenEdges = new HashSet<>();
 
         while (!ancestorEdges.isEmpty()) {
-            FlowEdge current = ancestorEdges.pop();
+            int current = ancestorEdges.pop();
             FlowNode ancestor = graph.getEdgeSource(current);
             if (condition.test(ancestor)) {
                 return ancestor;
             }
-            ancestorEdges.addAll(graph.incomingEdgesOf(ancestor).stream().filter(e -> !seenEdges.contains(e)).toList());
-            seenEdges.addAll(graph.incomingEdgesOf(ancestor));
+            int[] incomingEdges = graph.incomingEdgesOf(ancestor);
+            Arrays.stream(incomingEdges).filter(e -> !seenEdges.contains(e)).forEach(ancestorEdges::push);
+            Arrays.stream(incomingEdges).forEach(seenEdges::add);
         }
 
         throw new UnsupportedOperationException("You asked for ancestor from a graph that didn't have an ancestor that " +
@@ -33,7 +33,7 @@ public class NodeUtils {
 
     }
 
-    public static FlowNode getNearestContinuableAncestor(Graph<FlowNode, FlowEdge> graph, FlowNode start) {
+    public static FlowNode getNearestContinuableAncestor(CfgBuilder graph, FlowNode start) {
         return getNearestAncestorByConditional (graph, start, ancestor ->
                 ancestor.getNode().isPresent() && ancestor.getNode().get() instanceof Statement ancestorNode &&
                 (ancestorNode.isForStmt() || ancestorNode.isForEachStmt() ||
@@ -53,20 +53,20 @@ public class NodeUtils {
                 );
     }
 
-    public static FlowNode getNearestBreakableAncestor(Graph<FlowNode, FlowEdge> graph, FlowNode start) {
+    public static FlowNode getNearestBreakableAncestor(CfgBuilder graph, FlowNode start) {
         return getNearestAncestorByConditional (graph, start, NodeUtils::isBreakableNode,
                 "Can break to this ancestor"
         );
     }
 
-    public static FlowNode getLabeledAncestor(Graph<FlowNode, FlowEdge> graph, FlowNode start, String label) {
+    public static FlowNode getLabeledAncestor(CfgBuilder graph, FlowNode start, String label) {
         return getNearestAncestorByConditional(graph, start, ancestor ->
                 ancestor.getLabel().isPresent() && ancestor.getLabel().get().equals(label),
                 "Has label " + label);
     }
 
-    public static FlowNode getNearestReturnableAncestor(Graph<FlowNode, FlowEdge> graph, FlowNode start) {
-        for (FlowNode n: graph.vertexSet()) {
+    public static FlowNode getNearestReturnableAncestor(CfgBuilder graph, FlowNode start) {
+        for (FlowNode n: graph.vertexList()) {
             if (n.getName().isPresent() && n.getName().get().startsWith("after")) {
                 return n;
             }
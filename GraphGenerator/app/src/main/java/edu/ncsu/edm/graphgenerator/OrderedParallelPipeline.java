@@ -0,0 +1,99 @@
+package edu.ncsu.edm.graphgenerator;
+
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Applies a function to a stream of inputs on a pool of worker threads and hands the results to a single consumer on
+ * the calling thread in the same order as the inputs. The inputs are pulled on their own reader thread and at most
+ * {@code capacity} of them are in flight at once, so a slow consumer throttles the reader instead of letting finished
+ * results pile up in memory.
+ */
+public class OrderedParallelPipeline {
+    private final int numThreads;
+    private final int capacity;
+
+    public OrderedParallelPipeline(int numThreads, int capacity) {
+        if (numThreads < 1) {
+            throw new IllegalArgumentException("The pipeline needs at least one thread, got " + numThreads);
+        }
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The pipeline needs a capacity of at least one, got " + capacity);
+        }
+        this.numThreads = numThreads;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Closes inputs once they have all been read, or once the pipeline has stopped early because of a failure.
+     */
+    public <T, R> void run(Stream<T> inputs, Function<T, R> work, Consumer<R> sink) {
+        if (this.numThreads == 1) {
+            try (inputs) {
+                inputs.map(work).forEachOrdered(sink);
+            }
+            return;
+        }
+
+        ExecutorService workers = Executors.newFixedThreadPool(this.numThreads, r -> {
+            Thread t = new Thread(r, "graph-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        BlockingQueue<Future<R>> pending = new ArrayBlockingQueue<>(this.capacity);
+        Future<R> endOfInput = new CompletableFuture<>();
+        CompletableFuture<Void> readerResult = new CompletableFuture<>();
+
+        Thread reader = new Thread(() -> {
+            try (inputs) {
+                inputs.forEachOrdered(input -> {
+                    try {
+                        pending.put(workers.submit(() -> work.apply(input)));
+                    } catch (InterruptedException e) {
+                        // Keeps the interrupt so signalling the end below doesn't wait on a queue nobody takes from
+                        Thread.currentThread().interrupt();
+                        throw new CancellationException("The reader was interrupted");
+                    }
+                });
+                readerResult.complete(null);
+            } catch (Throwable t) {
+                readerResult.completeExceptionally(t);
+            } finally {
+                try {
+                    pending.put(endOfInput);
+                } catch (InterruptedException ignored) {
+                    // The consumer has already given up and is no longer waiting on the queue
+                }
+            }
+        }, "graph-reader");
+        reader.setDaemon(true);
+        reader.start();
+
+        try {
+            Future<R> next = pending.take();
+            while (next != endOfInput) {
+                sink.accept(next.get());
+                next = pending.take();
+            }
+            readerResult.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting on the graph workers");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            reader.interrupt();
+            workers.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package edu.ncsu.edm.graphgenerator;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Writes a gzip file whose blocks are compressed on a pool of threads, the way pigz does it. The data is cut into
+ * blocks of {@link #BLOCK_SIZE} bytes that are deflated independently, each primed with the last 32 KiB of the block
+ * before it so the file compresses about as well as with a single {@link java.util.zip.GZIPOutputStream}. Every block
+ * but the last ends on a sync flush, so the compressed blocks simply follow each other in one ordinary gzip member
+ * that any gzip reader can open.
+ *
+ * <p>The checksum is taken on the writing thread and the compressed blocks are written in order as they finish. The
+ * compressing threads come from a pool that every stream of a run shares, made by {@link #newCompressors}, so opening
+ * many files doesn't multiply the threads. Each stream only has a few of its blocks in flight at a time, so a slow
+ * disk holds back the writer rather than filling up memory.
+ */
+class ParallelGzipOutputStream extends OutputStream {
+    static final int BLOCK_SIZE = 1 << 17;
+    private static final int DICTIONARY_SIZE = 1 << 15;
+    private static final byte[] HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0 };
+
+    private record Compressed(byte[] bytes, int length) {}
+
+    private final OutputStream out;
+    private final int level;
+    private final ExecutorService compressors;
+    private final int maxInFlight;
+    private final Deque<Future<Compressed>> inFlight = new ArrayDeque<>();
+    private final CRC32 crc = new CRC32();
+    private long totalBytes = 0;
+    private byte[] previous = null;
+    private byte[] block = new byte[BLOCK_SIZE];
+    private int count = 0;
+    private boolean closed = false;
+
+    /**
+     * @param level       the deflate level from 0 to 9
+     * @param compressors the pool the blocks are compressed on, which the stream doesn't shut down, or null to
+     *                    compress them on the thread that writes them
+     * @param maxInFlight how many of the stream's blocks may be waiting on the pool at once
+     */
+    public ParallelGzipOutputStream(OutputStream out,
+                                    int level,
+                                    @Nullable ExecutorService compressors,
+                                    int maxInFlight) throws IOException {
+        if (level < 0 || level > 9) {
+            throw new IllegalArgumentException("The gzip level must be between 0 and 9, got " + level);
+        }
+        this.out = out;
+        this.level = level;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.compressors = compressors;
+        out.write(HEADER);
+    }
+
+    /**
+     * Makes a pool of daemon threads for any number of streams to compress their blocks on.
+     */
+    public static ExecutorService newCompressors(int threads) {
+        AtomicInteger count = new AtomicInteger(0);
+        return Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "gzip-compressor-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        this.write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (this.closed) {
+            throw new IOException("The stream is already closed");
+        }
+        this.crc.update(b, off, len);
+        this.totalBytes += len;
+        while (len > 0) {
+            int n = Math.min(len, BLOCK_SIZE - this.count);
+            System.arraycopy(b, off, this.block, this.count, n);
+            this.count += n;
+            off += n;
+            len -= n;
+            if (this.count == BLOCK_SIZE) {
+                this.submitBlock(false);
+            }
+        }
+    }
+
+    /**
+     * Writes out the blocks that are already compressed. The block being filled is kept back, since cutting it short
+     * would cost compression.
+     */
+    @Override
+    public void flush() throws IOException {
+        while (!this.inFlight.isEmpty() && this.inFlight.peekFirst().isDone()) {
+            this.writeNext();
+        }
+        this.out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        try {
+            this.submitBlock(true);
+            while (!this.inFlight.isEmpty()) {
+                this.writeNext();
+            }
+            byte[] trailer = new byte[8];
+            writeIntLE(trailer, 0, (int) this.crc.getValue());
+            writeIntLE(trailer, 4, (int) this.totalBytes);
+            this.out.write(trailer);
+        } finally {
+            this.out.close();
+        }
+    }
+
+    private void submitBlock(boolean last) throws IOException {
+        byte[] dictionary = this.previous;
+        byte[] data = this.block;
+        int length = this.count;
+        if (this.compressors == null) {
+            Compressed compressed = compress(this.level, dictionary, data, length, last);
+            this.out.write(compressed.bytes(), 0, compressed.length());
+        } else {
+            if (this.inFlight.size() >= this.maxInFlight) {
+                this.writeNext();
+            }
+            this.inFlight.addLast(this.compressors.submit(() -> compress(this.level, dictionary, data, length, last)));
+        }
+        this.previous = data;
+        this.block = last ? null : new byte[BLOCK_SIZE];
+        this.count = 0;
+    }
+
+    private void writeNext() throws IOException {
+        Compressed compressed;
+        try {
+            compressed = this.inFlight.removeFirst().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting on a gzip block");
+        } catch (ExecutionException e) {
+            throw new IOException("Couldn't compress a gzip block", e.getCause());
+        }
+        this.out.write(compressed.bytes(), 0, compressed.length());
+    }
+
+    private static Compressed compress(int level, byte[] dictionary, byte[] data, int length, boolean last) {
+        Deflater deflater = new Deflater(level, true);
+        try {
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary, dictionary.length - DICTIONARY_SIZE, DICTIONARY_SIZE);
+            }
+            deflater.setInput(data, 0, length);
+            if (last) {
+                deflater.finish();
+            }
+            byte[] buffer = new byte[length / 2 + 64];
+            int size = 0;
+            while (true) {
+                int room = buffer.length - size;
+                int n = deflater.deflate(buffer, size, room, last ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH);
+                size += n;
+                if (last ? deflater.finished() : n < room) {
+                    return new Compressed(buffer, size);
+                }
+                if (size == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+            }
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void writeIntLE(byte[] b, int offset, int value) {
+        b[offset] = (byte) value;
+        b[offset + 1] = (byte) (value >>> 8);
+        b[offset + 2] = (byte) (value >>> 16);
+        b[offset + 3] = (byte) (value >>> 24);
+    }
+}
@@ -0,0 +1,367 @@
+package edu.ncsu.edm.graphgenerator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Times each stage of the generate pipeline and counts what went through it, so a long run can report its progress
+ * as it goes and leave a JSON report behind when it ends. Every stage keeps a histogram of how long one item took in
+ * it, and code states that don't parse and methods whose CFG couldn't be built are counted, the latter by the type of
+ * exception that stopped them.
+ *
+ * <p>The stages run on the pipeline's reader, workers and writer at once, so everything is recorded into atomics and
+ * adders and can be read at any time, e.g. by the thread that prints the progress line.
+ */
+public class PipelineMetrics {
+    public static final String DEFAULT_REPORT_FILE = "generateMetrics.json";
+    public static final int DEFAULT_PROGRESS_SECONDS = 30;
+
+    /**
+     * The stages an item is timed in. Labels are canonicalized as the nodes are printed, so canonicalizing and
+     * rendering a graph are the one {@link #RENDER} stage.
+     */
+    public enum Stage {
+        /** Reading one row of CodeStates.csv. */
+        READ("read"),
+        /** Parsing one code state. */
+        PARSE("parse"),
+        /** Rewriting the conditional expressions of one method. */
+        REWRITE("condRewrite"),
+        /** Converting one method into its CFG. */
+        BUILD("cfgBuild"),
+        /** Canonicalizing and rendering the graphs of one code state for every strategy. */
+        RENDER("render"),
+        /** Handing the rendered graphs of one code state to the strategies' writers. */
+        WRITE("write");
+
+        private final String key;
+
+        Stage(String key) {
+            this.key = key;
+        }
+
+        public String key() {
+            return this.key;
+        }
+    }
+
+    /**
+     * Counts durations in nanoseconds into log-linear buckets: exact up to 16ns, then eight buckets per power of two,
+     * so a percentile is off by at most an eighth of its value.
+     */
+    static final class Histogram {
+        private static final int SUB_BUCKET_BITS = 3;
+        private static final int LINEAR_LIMIT = 2 << SUB_BUCKET_BITS;
+        private static final int NUM_BUCKETS = LINEAR_LIMIT + (63 - SUB_BUCKET_BITS - 1) * (1 << SUB_BUCKET_BITS);
+
+        private final AtomicLongArray counts = new AtomicLongArray(NUM_BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long nanos) {
+            nanos = Math.max(nanos, 0);
+            this.counts.incrementAndGet(bucketOf(nanos));
+            this.count.increment();
+            this.total.add(nanos);
+            this.max.accumulateAndGet(nanos, Math::max);
+        }
+
+        static int bucketOf(long nanos) {
+            if (nanos < LINEAR_LIMIT) {
+                return (int) nanos;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+            int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & ((1 << SUB_BUCKET_BITS) - 1);
+            return LINEAR_LIMIT + (exponent - SUB_BUCKET_BITS - 1) * (1 << SUB_BUCKET_BITS) + subBucket;
+        }
+
+        /**
+         * @return the largest duration that falls into the bucket
+         */
+        static long upperBoundOf(int bucket) {
+            if (bucket < LINEAR_LIMIT) {
+                return bucket;
+            }
+            int exponent = (bucket - LINEAR_LIMIT) / (1 << SUB_BUCKET_BITS) + SUB_BUCKET_BITS + 1;
+            long subBucket = (bucket - LINEAR_LIMIT) % (1 << SUB_BUCKET_BITS);
+            long width = 1L << (exponent - SUB_BUCKET_BITS);
+            return ((1L << SUB_BUCKET_BITS) + subBucket) * width + width - 1;
+        }
+
+        long count() {
+            return this.count.sum();
+        }
+
+        long total() {
+            return this.total.sum();
+        }
+
+        long max() {
+            return this.max.get();
+        }
+
+        double mean() {
+            long count = this.count();
+            return count == 0 ? 0 : (double) this.total() / count;
+        }
+
+        /**
+         * @return the duration that the fraction {@code q} of the recorded ones don't exceed, rounded up to the end of
+         * its bucket but never past the longest one recorded
+         */
+        long percentile(double q) {
+            long count = this.count();
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(q * count));
+            long seen = 0;
+            for (int bucket = 0; bucket < NUM_BUCKETS; bucket++) {
+                seen += this.counts.get(bucket);
+                if (seen >= rank) {
+                    return Math.min(upperBoundOf(bucket), this.max());
+                }
+            }
+            return this.max();
+        }
+    }
+
+    private final long startNanos = System.nanoTime();
+    private final Histogram[] stages = new Histogram[Stage.values().length];
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder unparsable = new LongAdder();
+    private final LongAdder graphs = new LongAdder();
+    private final Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+
+    public PipelineMetrics() {
+        for (int i = 0; i < this.stages.length; i++) {
+            this.stages[i] = new Histogram();
+        }
+    }
+
+    /**
+     * @return the time to pass to {@link #record} once the item is through the stage
+     */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    public void record(Stage stage, long start) {
+        this.stages[stage.ordinal()].record(System.nanoTime() - start);
+    }
+
+    Histogram histogram(Stage stage) {
+        return this.stages[stage.ordinal()];
+    }
+
+    /**
+     * @return the stream with the time it takes to produce each of its elements recorded under the stage
+     */
+    public <T> Stream<T> timed(Stage stage, Stream<T> stream) {
+        Iterator<T> elements = stream.iterator();
+        Iterator<T> timed = new Iterator<>() {
+            // The element may be read ahead when asking whether there is one, so that is timed too
+            private boolean started = false;
+            private long start;
+
+            @Override
+            public boolean hasNext() {
+                this.startOnce();
+                return elements.hasNext();
+            }
+
+            @Override
+            public T next() {
+                this.startOnce();
+                T next = elements.next();
+                PipelineMetrics.this.record(stage, this.start);
+                this.started = false;
+                return next;
+            }
+
+            private void startOnce() {
+                if (!this.started) {
+                    this.start = PipelineMetrics.this.start();
+                    this.started = true;
+                }
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(timed, Spliterator.ORDERED), false)
+                .onClose(stream::close);
+    }
+
+    /**
+     * @return the sink with every item it takes counted as a completed code state
+     */
+    public <T> Consumer<T> completing(Consumer<T> sink) {
+        return item -> {
+            sink.accept(item);
+            this.completed.increment();
+        };
+    }
+
+    public void unparsable() {
+        this.unparsable.increment();
+    }
+
+    public void built() {
+        this.graphs.increment();
+    }
+
+    public void failed(Throwable cause) {
+        this.failures.computeIfAbsent(cause.getClass().getName(), k -> new LongAdder()).increment();
+    }
+
+    public long getCompleted() {
+        return this.completed.sum();
+    }
+
+    public long getUnparsable() {
+        return this.unparsable.sum();
+    }
+
+    public long getGraphs() {
+        return this.graphs.sum();
+    }
+
+    public long getFailed() {
+        return this.failures.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    /**
+     * @return the number of failed methods by the name of the exception that stopped them
+     */
+    public Map<String, Long> getFailures() {
+        Map<String, Long> failures = new TreeMap<>();
+        this.failures.forEach((type, count) -> failures.put(type, count.sum()));
+        return failures;
+    }
+
+    public double getElapsedSeconds() {
+        return (System.nanoTime() - this.startNanos) / 1e9;
+    }
+
+    /**
+     * @return the code states completed per second since the metrics were created
+     */
+    public double getThroughput() {
+        double elapsed = this.getElapsedSeconds();
+        return elapsed <= 0 ? 0 : this.getCompleted() / elapsed;
+    }
+
+    /**
+     * @return e.g. {@code Progress: 1200 code states in 35s (34.3/s), 1180 graphs, 3 failed, 17 unparsable; mean parse
+     * 1.21ms, condRewrite 0.01ms, ...}
+     */
+    public String progressLine() {
+        StringBuilder line = new StringBuilder(String.format("Progress: %d code states in %ds (%.1f/s), %d graphs, %d failed, %d unparsable; mean",
+                this.getCompleted(), (long) this.getElapsedSeconds(), this.getThroughput(), this.getGraphs(),
+                this.getFailed(), this.getUnparsable()));
+        for (Stage stage : Stage.values()) {
+            line.append(stage.ordinal() == 0 ? " " : ", ").append(stage.key())
+                    .append(String.format(" %.2fms", this.histogram(stage).mean() / 1e6));
+        }
+        return line.toString();
+    }
+
+    /**
+     * Prints {@link #progressLine()} every {@code seconds} on a daemon thread until the returned handle is closed.
+     */
+    public Closeable reportEvery(int seconds, PrintStream out) {
+        ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-progress");
+            t.setDaemon(true);
+            return t;
+        });
+        timer.scheduleAtFixedRate(() -> out.println(this.progressLine()), seconds, seconds, TimeUnit.SECONDS);
+        return timer::shutdownNow;
+    }
+
+    /**
+     * Writes the counters and, for every stage, its count, total and mean time and percentiles as a JSON object.
+     * Times are in microseconds except for the totals, which are in milliseconds.
+     */
+    public void writeJson(Path file, String generatorVersion) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write(this.toJson(generatorVersion));
+        }
+    }
+
+    String toJson(String generatorVersion) {
+        StringBuilder json = new StringBuilder("{\n");
+        json.append("  \"generatorVersion\": ").append(quote(generatorVersion)).append(",\n");
+        json.append("  \"elapsedSeconds\": ").append(number(this.getElapsedSeconds())).append(",\n");
+        json.append("  \"codeStates\": { \"completed\": ").append(this.getCompleted())
+                .append(", \"unparsable\": ").append(this.getUnparsable())
+                .append(", \"perSecond\": ").append(number(this.getThroughput())).append(" },\n");
+        json.append("  \"graphs\": { \"built\": ").append(this.getGraphs())
+                .append(", \"failed\": ").append(this.getFailed()).append(" },\n");
+
+        json.append("  \"failures\": {");
+        String separator = "\n";
+        for (Map.Entry<String, Long> failure : this.getFailures().entrySet()) {
+            json.append(separator).append("    ").append(quote(failure.getKey())).append(": ").append(failure.getValue());
+            separator = ",\n";
+        }
+        json.append(separator.equals("\n") ? "},\n" : "\n  },\n");
+
+        json.append("  \"stages\": {");
+        for (Stage stage : Stage.values()) {
+            Histogram h = this.histogram(stage);
+            json.append(stage.ordinal() == 0 ? "\n" : ",\n").append("    ").append(quote(stage.key())).append(": { ")
+                    .append("\"count\": ").append(h.count())
+                    .append(", \"totalMillis\": ").append(number(h.total() / 1e6))
+                    .append(", \"meanMicros\": ").append(number(h.mean() / 1e3))
+                    .append(", \"p50Micros\": ").append(number(h.percentile(0.5) / 1e3))
+                    .append(", \"p90Micros\": ").append(number(h.percentile(0.9) / 1e3))
+                    .append(", \"p99Micros\": ").append(number(h.percentile(0.99) / 1e3))
+                    .append(", \"maxMicros\": ").append(number(h.max() / 1e3)).append(" }");
+        }
+        return json.append("\n  }\n}\n").toString();
+    }
+
+    private static String number(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> quoted.append("\\\"");
+                case '\\' -> quoted.append("\\\\");
+                case '\n' -> quoted.append("\\n");
+                default -> {
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+                }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
@@ -0,0 +1,194 @@
+package edu.ncsu.edm.graphgenerator;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Takes DeepWalk and node2vec random walks over one control flow graph, the way embed_methods' RandomWalker does over
+ * the networkx graph of every code state: every node starts {@code numWalks} walks, and a walk follows a random
+ * successor until it has {@code length} nodes or reaches a node without successors. Parallel edges count once, as
+ * they do in a networkx DiGraph.
+ *
+ * <p>The successors are kept in CSR layout, sorted within each node. With p and q of 1 every successor is equally
+ * likely. Otherwise the first step is still uniform, since every edge weighs the same, and the step after an edge
+ * t -> v picks the successor x of v with weight 1/p if x is t, 1 if there is an edge x -> t and 1/q otherwise. Those
+ * weights are turned into an alias table for every edge up front, so each step is drawn in constant time.
+ */
+final class RandomWalker {
+    private final int numNodes;
+    // The successors of node v are successors[offsets[v]:offsets[v + 1]]
+    private final int[] offsets;
+    private final int[] successors;
+    // The alias table for the step after edge e, the e-th entry of successors, starts at tableOffsets[e] and has an
+    // entry for every successor of the edge's target. Null for unbiased walks.
+    private final int[] tableOffsets;
+    private final double[] accept;
+    private final int[] alias;
+
+    public RandomWalker(RenderedGraph g, double p, double q) {
+        this.numNodes = g.numNodes();
+        this.offsets = new int[this.numNodes + 1];
+        int[] sources = g.edgeSources();
+        int[] targets = g.edgeTargets();
+        for (int source : sources) {
+            this.offsets[source + 1]++;
+        }
+        for (int v = 0; v < this.numNodes; v++) {
+            this.offsets[v + 1] += this.offsets[v];
+        }
+        int[] next = Arrays.copyOf(this.offsets, this.numNodes);
+        int[] all = new int[sources.length];
+        for (int e = 0; e < sources.length; e++) {
+            all[next[sources[e]]++] = targets[e];
+        }
+
+        // Sort each node's successors and drop the parallel edges, compacting the array as we go
+        int size = 0;
+        for (int v = 0; v < this.numNodes; v++) {
+            int from = this.offsets[v];
+            int to = this.offsets[v + 1];
+            Arrays.sort(all, from, to);
+            this.offsets[v] = size;
+            for (int i = from; i < to; i++) {
+                if (i == from || all[i] != all[i - 1]) {
+                    all[size++] = all[i];
+                }
+            }
+        }
+        this.offsets[this.numNodes] = size;
+        this.successors = Arrays.copyOf(all, size);
+
+        if (p == 1 && q == 1) {
+            this.tableOffsets = null;
+            this.accept = null;
+            this.alias = null;
+            return;
+        }
+        this.tableOffsets = new int[size + 1];
+        for (int e = 0; e < size; e++) {
+            this.tableOffsets[e + 1] = this.tableOffsets[e] + this.degree(this.successors[e]);
+        }
+        this.accept = new double[this.tableOffsets[size]];
+        this.alias = new int[this.tableOffsets[size]];
+        double[] weights = new double[this.maxDegree()];
+        for (int t = 0; t < this.numNodes; t++) {
+            for (int e = this.offsets[t]; e < this.offsets[t + 1]; e++) {
+                int v = this.successors[e];
+                int degree = this.degree(v);
+                for (int i = 0; i < degree; i++) {
+                    int x = this.successors[this.offsets[v] + i];
+                    weights[i] = x == t ? 1 / p : this.hasEdge(x, t) ? 1 : 1 / q;
+                }
+                this.buildAliasTable(weights, degree, this.tableOffsets[e]);
+            }
+        }
+    }
+
+    private int degree(int v) {
+        return this.offsets[v + 1] - this.offsets[v];
+    }
+
+    private int maxDegree() {
+        int max = 0;
+        for (int v = 0; v < this.numNodes; v++) {
+            max = Math.max(max, this.degree(v));
+        }
+        return max;
+    }
+
+    private boolean hasEdge(int from, int to) {
+        return Arrays.binarySearch(this.successors, this.offsets[from], this.offsets[from + 1], to) >= 0;
+    }
+
+    /**
+     * Vose's alias method: every entry keeps its own share {@code accept} of one column and fills up the rest with
+     * its {@code alias}.
+     */
+    private void buildAliasTable(double[] weights, int n, int base) {
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += weights[i];
+        }
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int numSmall = 0;
+        int numLarge = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / sum;
+            if (scaled[i] < 1) {
+                small[numSmall++] = i;
+            } else {
+                large[numLarge++] = i;
+            }
+        }
+        while (numSmall > 0 && numLarge > 0) {
+            int s = small[--numSmall];
+            int l = large[--numLarge];
+            this.accept[base + s] = scaled[s];
+            this.alias[base + s] = l;
+            scaled[l] -= 1 - scaled[s];
+            if (scaled[l] < 1) {
+                small[numSmall++] = l;
+            } else {
+                large[numLarge++] = l;
+            }
+        }
+        // What is left only differs from a full column by rounding
+        while (numLarge > 0) {
+            this.accept[base + large[--numLarge]] = 1;
+        }
+        while (numSmall > 0) {
+            this.accept[base + small[--numSmall]] = 1;
+        }
+    }
+
+    /**
+     * @return {@code numWalks} rounds of walks of the node ids, each round starting one walk at every node in a
+     * shuffled order
+     */
+    public int[][] walks(int numWalks, int length, SplittableRandom random) {
+        int[][] walks = new int[numWalks * this.numNodes][];
+        int[] order = new int[this.numNodes];
+        for (int v = 0; v < this.numNodes; v++) {
+            order[v] = v;
+        }
+        int[] buffer = new int[length];
+        int w = 0;
+        for (int round = 0; round < numWalks; round++) {
+            for (int i = this.numNodes - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = order[i];
+                order[i] = order[j];
+                order[j] = swap;
+            }
+            for (int start : order) {
+                walks[w++] = this.walk(start, buffer, random);
+            }
+        }
+        return walks;
+    }
+
+    private int[] walk(int start, int[] buffer, SplittableRandom random) {
+        buffer[0] = start;
+        int size = 1;
+        int edge = -1;
+        while (size < buffer.length) {
+            int v = buffer[size - 1];
+            int degree = this.degree(v);
+            if (degree == 0) {
+                break;
+            }
+            int i = random.nextInt(degree);
+            if (this.tableOffsets != null && edge >= 0) {
+                int column = this.tableOffsets[edge] + i;
+                if (random.nextDouble() >= this.accept[column]) {
+                    i = this.alias[column];
+                }
+            }
+            edge = this.offsets[v] + i;
+            buffer[size++] = this.successors[edge];
+        }
+        return Arrays.copyOf(buffer, size);
+    }
+}
@@ -0,0 +1,200 @@
+package edu.ncsu.edm.graphgenerator;
+
+import com.github.javaparser.ast.Node;
+import com.opencsv.CSVWriter;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the methods whose CFG couldn't be built, one row each in {@value #FILE_NAME} with the CodeStateId, the
+ * method's position in the code state, the exception with its message cut short, and the construct that was being
+ * converted with its line in the method. Failures are counted by construct and exception as they are rejected, and
+ * the counts, most common first, are written to {@value #STATS_FILE_NAME} when the writer is closed.
+ *
+ * <p>The rows are written on a thread of its own, so rejecting a method only costs queueing its row. A full queue
+ * makes the caller wait for room rather than lose the row, since every rejected method has to be there to be triaged.
+ * Failures are rare, so the queue only fills up when a run rejects a burst of methods faster than they are written.
+ */
+class RejectWriter implements Closeable {
+    public static final String FILE_NAME = "rejectedMethods.csv";
+    public static final String STATS_FILE_NAME = "rejectedMethodStats.csv";
+    public static final int MESSAGE_LIMIT = 200;
+    public static final int DEFAULT_QUEUE = 1024;
+
+    /**
+     * How many methods failed with the exception while converting the construct.
+     */
+    public record Count(String construct, String exception, long count) {}
+
+    /**
+     * A method that couldn't be converted, described while its AST is still at hand. A code state keeps its rejects
+     * with its rendered graphs, so a cached or duplicate code state reports them again under its own id.
+     *
+     * @param methodIndex the method's position among the methods of the code state, counting from 1
+     * @param construct   the simple name of the AST node that was being converted, or "" if that isn't known
+     * @param line        the construct's line within the method, or "" if that isn't known
+     */
+    public record Reject(int methodIndex, String exception, String message, String construct, String line) {
+        /**
+         * @param method    the method that couldn't be converted
+         * @param construct the part of the method that was being converted when it failed, or null if that isn't known
+         */
+        public static Reject of(int methodIndex, Node method, Exception cause, @Nullable Node construct) {
+            return new Reject(
+                    methodIndex,
+                    cause.getClass().getName(),
+                    truncate(cause.getMessage()),
+                    construct == null ? "" : construct.getClass().getSimpleName(),
+                    construct == null ? "" : lineInMethod(method, construct)
+            );
+        }
+
+        /**
+         * A method whose graph was built but couldn't be labelled, which isn't down to a construct.
+         */
+        public static Reject of(int methodIndex, Exception cause) {
+            return new Reject(methodIndex, cause.getClass().getName(), truncate(cause.getMessage()), "", "");
+        }
+    }
+
+    private record Key(String construct, String exception) {}
+
+    private static final String[] END = new String[0];
+
+    private final String statsFileName;
+    private final CSVWriter rejects;
+    private final BlockingQueue<String[]> queue;
+    private final Thread thread;
+    private final Map<Key, LongAdder> counts = new ConcurrentHashMap<>();
+    private volatile IOException failure;
+    private volatile boolean closed = false;
+
+    public RejectWriter() throws IOException {
+        this(new FileWriter(FILE_NAME), STATS_FILE_NAME, DEFAULT_QUEUE);
+    }
+
+    RejectWriter(Writer rejects, String statsFileName, int capacity) {
+        this.statsFileName = statsFileName;
+        this.rejects = new CSVWriter(rejects);
+        this.rejects.writeNext(new String[] { "CodeStateId", "MethodIndex", "Exception", "Message", "Construct", "Line" });
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.thread = new Thread(this::drain, "reject-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    private void drain() {
+        try {
+            String[] row = this.queue.take();
+            while (row != END) {
+                this.rejects.writeNext(row);
+                row = this.queue.take();
+            }
+            this.rejects.close();
+        } catch (InterruptedException e) {
+            this.failure = new InterruptedIOException("Interrupted while writing " + FILE_NAME);
+        } catch (IOException e) {
+            this.failure = e;
+        }
+    }
+
+    /**
+     * Queues the reject's row, waiting for room if the queue is full.
+     *
+     * @throws IllegalStateException if the writer has been closed or has stopped writing
+     */
+    public void reject(String codeStateId, Reject reject) {
+        if (this.closed) {
+            throw new IllegalStateException(FILE_NAME + " has already been closed");
+        }
+        this.counts.computeIfAbsent(new Key(reject.construct(), reject.exception()), k -> new LongAdder()).increment();
+
+        String[] row = {
+                codeStateId,
+                String.valueOf(reject.methodIndex()),
+                reject.exception(),
+                reject.message(),
+                reject.construct(),
+                reject.line()
+        };
+        try {
+            while (!this.queue.offer(row, 1, TimeUnit.SECONDS)) {
+                if (!this.thread.isAlive()) {
+                    throw new IllegalStateException(FILE_NAME + " is no longer being written", this.failure);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while queueing a reject of " + codeStateId);
+        }
+    }
+
+    static String truncate(String message) {
+        if (message == null) {
+            return "";
+        }
+        String line = message.replaceAll("\\s+", " ").strip();
+        return line.length() <= MESSAGE_LIMIT ? line : line.substring(0, MESSAGE_LIMIT - 3) + "...";
+    }
+
+    private static String lineInMethod(Node method, Node construct) {
+        if (method.getBegin().isEmpty() || construct.getBegin().isEmpty()) {
+            return "";
+        }
+        return String.valueOf(construct.getBegin().get().line - method.getBegin().get().line + 1);
+    }
+
+    /**
+     * @return the number of failures by construct and exception, most common first
+     */
+    public List<Count> getCounts() {
+        List<Count> counts = new ArrayList<>();
+        this.counts.forEach((key, count) -> counts.add(new Count(key.construct(), key.exception(), count.sum())));
+        counts.sort(Comparator.comparingLong(Count::count).reversed()
+                .thenComparing(Count::construct).thenComparing(Count::exception));
+        return counts;
+    }
+
+    /**
+     * Waits until every queued row has been written and the file is closed, then writes the counts.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        try {
+            this.queue.put(END);
+            this.thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting on " + this.thread.getName());
+        }
+        if (this.failure != null) {
+            throw this.failure;
+        }
+
+        try (CSVWriter stats = new CSVWriter(new FileWriter(this.statsFileName))) {
+            stats.writeNext(new String[] { "Construct", "Exception", "Count" });
+            for (Count count : this.getCounts()) {
+                stats.writeNext(new String[] { count.construct(), count.exception(), String.valueOf(count.count()) });
+            }
+        }
+    }
+}
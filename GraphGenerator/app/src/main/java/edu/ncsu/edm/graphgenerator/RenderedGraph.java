@@ -0,0 +1,101 @@
+package edu.ncsu.edm.graphgenerator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+/**
+ * The labels of a finished control flow graph as one canonicalization strategy writes them out. Node ids are the
+ * positions in {@code nodeLabels}, which follow the vertex order of the graph the CFG was built in, and edges are
+ * kept in its edge order.
+ */
+public record RenderedGraph(String[] nodeLabels, int[] edgeSources, int[] edgeTargets, String[] edgeLabels) {
+
+    public static RenderedGraph of(FrozenGraph g) {
+        return of(g, FlowNode::toString);
+    }
+
+    public static RenderedGraph of(FrozenGraph g, Function<FlowNode, String> label) {
+        int[] edgeSources = new int[g.numEdges()];
+        int[] edgeTargets = new int[g.numEdges()];
+        String[] edgeLabels = new String[g.numEdges()];
+        for (int v = 0; v < g.numNodes(); v++) {
+            for (int edge = g.firstEdge(v); edge < g.firstEdge(v + 1); edge++) {
+                int e = g.edgeId(edge);
+                edgeSources[e] = v;
+                edgeTargets[e] = g.target(edge);
+                edgeLabels[e] = g.edgeLabel(edge);
+            }
+        }
+        return new RenderedGraph(labelNodes(g, label), edgeSources, edgeTargets, edgeLabels);
+    }
+
+    /**
+     * @return the same graph with its nodes labeled by {@code label} instead. The edges are shared with this graph,
+     * so {@code g} must be the graph this was rendered from.
+     */
+    public RenderedGraph relabel(FrozenGraph g, Function<FlowNode, String> label) {
+        return new RenderedGraph(labelNodes(g, label), this.edgeSources, this.edgeTargets, this.edgeLabels);
+    }
+
+    private static String[] labelNodes(FrozenGraph g, Function<FlowNode, String> label) {
+        String[] nodeLabels = new String[g.numNodes()];
+        for (int v = 0; v < g.numNodes(); v++) {
+            nodeLabels[v] = label.apply(g.node(v));
+        }
+        return nodeLabels;
+    }
+
+    public int numNodes() {
+        return this.nodeLabels.length;
+    }
+
+    public int numEdges() {
+        return this.edgeSources.length;
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(this.numNodes());
+        for (String label : this.nodeLabels) {
+            writeString(out, label);
+        }
+        out.writeInt(this.numEdges());
+        for (int e = 0; e < this.numEdges(); e++) {
+            out.writeInt(this.edgeSources[e]);
+            out.writeInt(this.edgeTargets[e]);
+            writeString(out, this.edgeLabels[e]);
+        }
+    }
+
+    public static RenderedGraph readFrom(DataInput in) throws IOException {
+        String[] nodeLabels = new String[in.readInt()];
+        for (int n = 0; n < nodeLabels.length; n++) {
+            nodeLabels[n] = readString(in);
+        }
+        int numEdges = in.readInt();
+        int[] edgeSources = new int[numEdges];
+        int[] edgeTargets = new int[numEdges];
+        String[] edgeLabels = new String[numEdges];
+        for (int e = 0; e < numEdges; e++) {
+            edgeSources[e] = in.readInt();
+            edgeTargets[e] = in.readInt();
+            edgeLabels[e] = readString(in);
+        }
+        return new RenderedGraph(nodeLabels, edgeSources, edgeTargets, edgeLabels);
+    }
+
+    // DataOutput.writeUTF caps strings at 64KB, which the label of a large switch or loop can exceed
+    private static void writeString(DataOutput out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
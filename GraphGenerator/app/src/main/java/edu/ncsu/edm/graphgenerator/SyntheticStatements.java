@@ -0,0 +1,139 @@
+package edu.ncsu.edm.graphgenerator;
+
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.expr.*;
+import com.github.javaparser.ast.stmt.ExpressionStmt;
+import com.github.javaparser.ast.stmt.Statement;
+import com.github.javaparser.ast.type.ArrayType;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.ast.type.PrimitiveType;
+import com.github.javaparser.ast.type.Type;
+
+import javax.lang.model.SourceVersion;
+
+/**
+ * Builds the statements and conditions {@link AstToGraphConverter} lowers a foreach loop into, such as
+ * {@code int index0 = 0;} or {@code iterator0.hasNext()}. They used to be written out as code and parsed, a full
+ * parser round trip for each of the five or six nodes of every loop, so now they are put together from AST nodes and
+ * clones of the loop's own variable type and iterable.
+ *
+ * <p>Each node is built exactly as parsing its code would have. That holds as long as the iterable reads the same
+ * with a {@code [i]} or {@code .length} after it, as names, field accesses, method calls and the like do, and the
+ * types are ones the parser accepts. Anything else is still written out and parsed, so it parses, or fails to, just
+ * as before.
+ */
+final class SyntheticStatements {
+    private final JavaParserProvider parserProvider;
+
+    public SyntheticStatements(JavaParserProvider parserProvider) {
+        this.parserProvider = parserProvider;
+    }
+
+    /**
+     * @return {@code type name;}, with the type as {@link Type#asString()} prints it, which leaves out annotations
+     * and moves the brackets of {@code int a[]} to the type
+     */
+    public Statement declareVariable(Type type, String name) {
+        if (type.isVarType() || type.findFirst(AnnotationExpr.class).isPresent()
+                || type.findFirst(ArrayType.class, a -> a.getOrigin() == ArrayType.Origin.NAME).isPresent()) {
+            return this.parserProvider.parseStatement(type.asString() + " " + name + ";");
+        }
+        return new ExpressionStmt(new VariableDeclarationExpr(type.clone(), name));
+    }
+
+    /**
+     * @return {@code int index = 0;}
+     */
+    public Statement declareIndex(String index) {
+        VariableDeclarationExpr declaration = new VariableDeclarationExpr(PrimitiveType.intType(), index);
+        declaration.getVariable(0).setInitializer(new IntegerLiteralExpr("0"));
+        return new ExpressionStmt(declaration);
+    }
+
+    /**
+     * @return {@code name = iterable[index];}, or {@code name = iterable.get(index);} for a String
+     */
+    public Statement assignElement(String name, Expression iterable, String index, boolean isString) {
+        if (!isPrimary(iterable)) {
+            return this.parserProvider.parseStatement(name + " = " + iterable +
+                    (isString ? ".get(" + index + ");" : "[" + index + "];"));
+        }
+        Expression element = isString
+                ? new MethodCallExpr(iterable.clone(), "get", NodeList.nodeList(new NameExpr(index)))
+                : new ArrayAccessExpr(iterable.clone(), new NameExpr(index));
+        return new ExpressionStmt(new AssignExpr(new NameExpr(name), element, AssignExpr.Operator.ASSIGN));
+    }
+
+    /**
+     * @return {@code index++;}
+     */
+    public Statement increment(String index) {
+        return new ExpressionStmt(new UnaryExpr(new NameExpr(index), UnaryExpr.Operator.POSTFIX_INCREMENT));
+    }
+
+    /**
+     * @return {@code index < iterable.length}, or {@code index < iterable.length()} for a String
+     */
+    public Expression indexInBounds(String index, Expression iterable, boolean isString) {
+        if (!isPrimary(iterable)) {
+            return this.parserProvider.parseExpression(index + " < " + iterable + (isString ? ".length()" : ".length"));
+        }
+        Expression length = isString
+                ? new MethodCallExpr(iterable.clone(), "length")
+                : new FieldAccessExpr(iterable.clone(), "length");
+        return new BinaryExpr(new NameExpr(index), length, BinaryExpr.Operator.LESS);
+    }
+
+    /**
+     * @return {@code Iterator<elementType> iterator = iterable.iterator();}
+     */
+    public Statement declareIterator(String elementType, String iterator, Expression iterable) {
+        ClassOrInterfaceType element = qualifiedType(elementType);
+        if (element == null || !isPrimary(iterable)) {
+            return this.parserProvider.parseStatement("Iterator<" + elementType + "> " + iterator + " = " + iterable
+                    + ".iterator();");
+        }
+        ClassOrInterfaceType type = new ClassOrInterfaceType(null, new SimpleName("Iterator"), NodeList.nodeList(element));
+        VariableDeclarationExpr declaration = new VariableDeclarationExpr(type, iterator);
+        declaration.getVariable(0).setInitializer(new MethodCallExpr(iterable.clone(), "iterator"));
+        return new ExpressionStmt(declaration);
+    }
+
+    /**
+     * @return {@code name = iterator.next();}
+     */
+    public Statement assignNext(String name, String iterator) {
+        return new ExpressionStmt(new AssignExpr(new NameExpr(name), new MethodCallExpr(new NameExpr(iterator), "next"),
+                AssignExpr.Operator.ASSIGN));
+    }
+
+    /**
+     * @return {@code iterator.hasNext()}
+     */
+    public Expression hasNext(String iterator) {
+        return new MethodCallExpr(new NameExpr(iterator), "hasNext");
+    }
+
+    /**
+     * @return whether the expression parses back into itself when followed by an array access, field access or
+     * method call
+     */
+    private static boolean isPrimary(Expression expr) {
+        return expr.isNameExpr() || expr.isFieldAccessExpr() || expr.isMethodCallExpr() || expr.isArrayAccessExpr()
+                || expr.isEnclosedExpr() || expr.isThisExpr() || expr.isStringLiteralExpr();
+    }
+
+    /**
+     * @return the type a qualified name like {@code java.lang.Integer} parses into, or null if it isn't one
+     */
+    private static ClassOrInterfaceType qualifiedType(String name) {
+        ClassOrInterfaceType type = null;
+        for (String identifier : name.split("\\.", -1)) {
+            if (!SourceVersion.isIdentifier(identifier) || SourceVersion.isKeyword(identifier)) {
+                return null;
+            }
+            type = new ClassOrInterfaceType(type, identifier);
+        }
+        return type;
+    }
+}
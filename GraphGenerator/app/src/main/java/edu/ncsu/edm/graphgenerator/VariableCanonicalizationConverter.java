@@ -1,6 +1,5 @@
 package edu.ncsu.edm.graphgenerator;
 
-import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.body.VariableDeclarator;
 import com.github.javaparser.ast.expr.*;
@@ -11,10 +10,11 @@ import java.util.Optional;
 import java.util.Set;
 
 public class VariableCanonicalizationConverter extends VoidVisitorAdapter<Void> {
+    static final String PLACEHOLDER = "VAR";
 
     @Override
     public void visit(VariableDeclarator variableDeclarator, Void ignored) {
-        variableDeclarator.setName("VAR");
+        variableDeclarator.setName(PLACEHOLDER);
         if (variableDeclarator.getInitializer().isPresent()) {
             variableDeclarator.getInitializer().get().accept(this, ignored);
         }
@@ -22,13 +22,21 @@ public class VariableCanonicalizationConverter extends VoidVisitorAdapter<Void>
 
     @Override
     public void visit(SimpleName simpleName, Void ignored) {
+        if (isCanonicalized(simpleName)) {
+            simpleName.setIdentifier(PLACEHOLDER);
+        }
+        super.visit(simpleName, ignored);
+    }
+
+    /**
+     * @return whether a name this visits is replaced: names used within a statement, but not those of fields or
+     * methods, or within a method call
+     */
+    static boolean isCanonicalized(SimpleName simpleName) {
         Optional<Object> possibleAncestor = simpleName.findAncestor(t -> true, new Class[] {
                 Statement.class, FieldAccessExpr.class,
                 MethodCallExpr.class, MethodReferenceExpr.class
         });
-        if (possibleAncestor.isPresent() && possibleAncestor.get() instanceof Statement) {
-            simpleName.setIdentifier("VAR");
-        }
-        super.visit(simpleName, ignored);
+        return possibleAncestor.isPresent() && possibleAncestor.get() instanceof Statement;
     }
 }
@@ -0,0 +1,190 @@
+package edu.ncsu.edm.graphgenerator;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.javatuples.Pair;
+
+import edu.ncsu.edm.graphgenerator.CanonicalLabelPrinter.Canonicalization;
+import edu.ncsu.edm.graphgenerator.CanonicalizationStrategy.Compression;
+import edu.ncsu.edm.graphgenerator.WalkOptions.Corpus;
+
+/**
+ * Writes the random walk corpora of every strategy. For each strategy and {@link Corpus} there is a
+ * {@code <strategy><corpus>}{@value #WALKS_SUFFIX} with one walk per line as the space separated ids of its nodes'
+ * labels, ready for word2vec, and for each strategy a {@code <strategy>}{@value #LABELS_SUFFIX} with the LabelId and
+ * Label of every id its corpora use.
+ *
+ * <p>Workers {@link #walk} the graphs of a code state: the walks of each corpus are taken once per graph, with a
+ * {@link RandomWalker} seeded from the CodeStateId and the graph's position among the code state's graphs, and then
+ * labelled by every strategy. A graph that fails to render still takes up its position, so it doesn't change the
+ * walks of the graphs after it.
+ * {@link #write} runs on the pipeline's consumer thread and is the only one handing out label ids, so the corpora
+ * don't depend on how many threads took the walks.
+ */
+class WalkCorpusWriter implements Closeable {
+    public static final String WALKS_SUFFIX = "Walks.txt";
+    public static final String LABELS_SUFFIX = "WalkLabels.csv";
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The walks of one graph, as {@code walks[corpus][walk]} node ids, and its node labels as
+     * {@code labels[strategy][node]}.
+     */
+    record WalkedGraph(String[][] labels, int[][][] walks) {}
+
+    record WalkedCodeState(String codeStateId, List<WalkedGraph> graphs) {}
+
+    private final CanonicalLabelPrinter[] printers;
+    private final LabelDictionary[] labels;
+    // One per strategy and corpus
+    private final Writer[][] walkFiles;
+    private final List<Corpus> corpora;
+    // Shared by every walk file
+    private final Compression compression;
+    private final int numWalks;
+    private final int walkLength;
+    private final long seed;
+    private final StringBuilder line = new StringBuilder();
+
+    public WalkCorpusWriter(String[] strategies,
+                            Canonicalization[] canonicalizations,
+                            WalkOptions options) throws IOException {
+        this.corpora = options.getCorpora();
+        this.compression = options.getCompression();
+        this.numWalks = options.getNumWalks();
+        this.walkLength = options.getWalkLength();
+        this.seed = options.getSeed();
+        this.printers = new CanonicalLabelPrinter[strategies.length];
+        this.labels = new LabelDictionary[strategies.length];
+        this.walkFiles = new Writer[strategies.length][this.corpora.size()];
+        try {
+            for (int s = 0; s < strategies.length; s++) {
+                this.printers[s] = new CanonicalLabelPrinter(canonicalizations[s]);
+                this.labels[s] = new LabelDictionary(strategies[s] + LABELS_SUFFIX);
+                for (int c = 0; c < this.corpora.size(); c++) {
+                    this.walkFiles[s][c] = openWalks(strategies[s] + this.corpora.get(c).name() + WALKS_SUFFIX,
+                            this.compression);
+                }
+            }
+        } catch (IOException e) {
+            this.close();
+            throw e;
+        }
+    }
+
+    private static Writer openWalks(String fileName, Compression compression) throws IOException {
+        OutputStream file = new FileOutputStream(fileName + (compression == null ? "" : Compression.FILE_SUFFIX));
+        file = compression == null
+                ? new BufferedOutputStream(file, BUFFER_SIZE)
+                : compression.open(file);
+        return new BufferedWriter(new OutputStreamWriter(file, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    /**
+     * Takes the walks of every corpus over each of the graphs. A graph that fails to render is rejected and left out.
+     *
+     * @param graphs   each graph with the index of its method, as it is reported in a {@link RejectWriter.Reject}
+     * @param rejected given every method whose graph couldn't be rendered
+     */
+    public WalkedCodeState walk(String codeStateId,
+                                Stream<Pair<Integer, FrozenGraph>> graphs,
+                                Consumer<RejectWriter.Reject> rejected) {
+        List<WalkedGraph> walked = new ArrayList<>();
+        int[] position = { 0 };
+        graphs.forEach(indexed -> {
+            FrozenGraph g = indexed.getValue1();
+            long graphSeed = this.seed ^ ((long) codeStateId.hashCode() << 32 | position[0]++);
+            try {
+                String[][] labels = new String[this.printers.length][];
+                RenderedGraph first = null;
+                for (int s = 0; s < this.printers.length; s++) {
+                    CanonicalLabelPrinter printer = this.printers[s];
+                    LabelDictionary dictionary = this.labels[s];
+                    RenderedGraph rendered = first == null
+                            ? RenderedGraph.of(g, n -> dictionary.intern(n.toCharSequence(printer)))
+                            : first.relabel(g, n -> dictionary.intern(n.toCharSequence(printer)));
+                    if (first == null) {
+                        first = rendered;
+                    }
+                    labels[s] = rendered.nodeLabels();
+                }
+
+                SplittableRandom random = new SplittableRandom(graphSeed);
+                int[][][] walks = new int[this.corpora.size()][][];
+                for (int c = 0; c < walks.length; c++) {
+                    Corpus corpus = this.corpora.get(c);
+                    walks[c] = new RandomWalker(first, corpus.p(), corpus.q())
+                            .walks(this.numWalks, this.walkLength, random);
+                }
+                walked.add(new WalkedGraph(labels, walks));
+            } catch (Exception e) {
+                rejected.accept(RejectWriter.Reject.of(indexed.getValue0(), e));
+            }
+        });
+        return new WalkedCodeState(codeStateId, walked);
+    }
+
+    public boolean write(WalkedCodeState codeState) {
+        boolean allWritten = true;
+        for (WalkedGraph graph : codeState.graphs()) {
+            for (int s = 0; s < this.labels.length; s++) {
+                String[] nodeLabels = graph.labels()[s];
+                for (int c = 0; c < this.corpora.size(); c++) {
+                    try {
+                        this.writeWalks(this.walkFiles[s][c], this.labels[s], nodeLabels, graph.walks()[c]);
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                        allWritten = false;
+                    }
+                }
+            }
+        }
+        return allWritten;
+    }
+
+    private void writeWalks(Writer file, LabelDictionary dictionary, String[] nodeLabels, int[][] walks)
+            throws IOException {
+        for (int[] walk : walks) {
+            this.line.setLength(0);
+            for (int step = 0; step < walk.length; step++) {
+                if (step > 0) {
+                    this.line.append(' ');
+                }
+                this.line.append(dictionary.idOf(nodeLabels[walk[step]]));
+            }
+            this.line.append('\n');
+            file.append(this.line);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (int s = 0; s < this.labels.length; s++) {
+            for (Writer file : this.walkFiles[s]) {
+                if (file != null) {
+                    file.close();
+                }
+            }
+            if (this.labels[s] != null) {
+                this.labels[s].close();
+            }
+        }
+        if (this.compression != null) {
+            this.compression.close();
+        }
+    }
+}
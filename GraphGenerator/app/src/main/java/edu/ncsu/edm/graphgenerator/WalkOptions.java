@@ -0,0 +1,152 @@
+package edu.ncsu.edm.graphgenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The command line options of the walk subcommand, which writes the random walk corpora that DeepWalk and node2vec
+ * train on, e.g. {@code walk --threads 8 --corpus deepwalk --corpus node2vec:1.5:1.5 path/to/data/dir/1/}. Without a
+ * {@code --corpus} the corpora of embed_graphs.py are written.
+ */
+public class WalkOptions {
+    public static final String USAGE = "walk [--threads N] [--queue-capacity N] [--read-buffer BYTES] [--walks N] [--length N] [--corpus NAME[:P:Q]]... [--seed N] [--compress gzip[:LEVEL]] [--compress-threads N] path/to/data/dir/1/ ... path/to/data/dir/n/";
+
+    /**
+     * One corpus of walks, written to {@code <strategy><name>Walks.txt} with p and q as in node2vec. A p and q of 1
+     * makes it a DeepWalk corpus.
+     */
+    public record Corpus(String name, double p, double q) {
+        public static final List<Corpus> DEFAULT = List.of(
+                new Corpus("deepwalk", 1, 1),
+                new Corpus("node2vec", 1.5, 1.5));
+    }
+
+    private int threads = 1;
+    private int queueCapacity = -1;
+    private int readBufferSize = CsvBeanReader.DEFAULT_BUFFER_SIZE;
+    private int numWalks = 20;
+    private int walkLength = 10;
+    private final List<Corpus> corpora = new ArrayList<>();
+    private long seed = 0;
+    private int compressionLevel = -1;
+    private int compressionThreads = Runtime.getRuntime().availableProcessors();
+    private final List<String> dataDirs = new ArrayList<>();
+
+    public static WalkOptions parse(List<String> args) {
+        WalkOptions options = new WalkOptions();
+        for (int i = 0; i < args.size(); i++) {
+            String arg = args.get(i);
+            switch (arg) {
+                case "--threads" -> options.threads = GenerateOptions.parsePositiveInt(arg, args, ++i);
+                case "--queue-capacity" -> options.queueCapacity = GenerateOptions.parsePositiveInt(arg, args, ++i);
+                case "--read-buffer" -> options.readBufferSize = GenerateOptions.parsePositiveInt(arg, args, ++i);
+                case "--walks" -> options.numWalks = GenerateOptions.parsePositiveInt(arg, args, ++i);
+                case "--length" -> options.walkLength = GenerateOptions.parsePositiveInt(arg, args, ++i);
+                case "--corpus" -> options.corpora.add(parseCorpus(arg, args, ++i));
+                case "--seed" -> options.seed = parseLong(arg, args, ++i);
+                case "--compress" -> options.compressionLevel = GenerateOptions.parseCompression(arg, args, ++i);
+                case "--compress-threads" -> options.compressionThreads = GenerateOptions.parseNonNegativeInt(arg, args, ++i);
+                default -> {
+                    if (arg.startsWith("--")) {
+                        throw new IllegalArgumentException("Unknown option for walk: " + arg);
+                    }
+                    options.dataDirs.add(arg);
+                }
+            }
+        }
+
+        if (options.dataDirs.isEmpty()) {
+            throw new IllegalArgumentException("walk needs at least one data directory");
+        }
+        return options;
+    }
+
+    /**
+     * Parses {@code NAME} into a DeepWalk corpus or {@code NAME:P:Q} into a node2vec one.
+     */
+    private static Corpus parseCorpus(String option, List<String> args, int index) {
+        String value = GenerateOptions.valueOf(option, args, index);
+        String[] parts = value.split(":");
+        if (parts[0].isEmpty() || (parts.length != 1 && parts.length != 3)) {
+            throw new IllegalArgumentException(option + " expects NAME or NAME:P:Q but got " + value);
+        }
+        if (parts.length == 1) {
+            return new Corpus(parts[0], 1, 1);
+        }
+        try {
+            double p = Double.parseDouble(parts[1]);
+            double q = Double.parseDouble(parts[2]);
+            if (p > 0 && q > 0) {
+                return new Corpus(parts[0], p, q);
+            }
+        } catch (NumberFormatException ignored) {
+            // Reported below along with the non-positive values
+        }
+        throw new IllegalArgumentException(option + " expects a positive P and Q but got " + value);
+    }
+
+    private static long parseLong(String option, List<String> args, int index) {
+        String value = GenerateOptions.valueOf(option, args, index);
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(option + " expects an integer but got " + value);
+        }
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * How many code states may be parsed or waiting to be written at once, four per worker thread by default.
+     */
+    public int getQueueCapacity() {
+        return queueCapacity > 0 ? queueCapacity : threads * 4;
+    }
+
+    /**
+     * The size in bytes of the buffer CodeStates.csv is read through.
+     */
+    public int getReadBufferSize() {
+        return readBufferSize;
+    }
+
+    /**
+     * How many walks start at every node.
+     */
+    public int getNumWalks() {
+        return numWalks;
+    }
+
+    /**
+     * How many nodes a walk has at most.
+     */
+    public int getWalkLength() {
+        return walkLength;
+    }
+
+    public List<Corpus> getCorpora() {
+        return corpora.isEmpty() ? Corpus.DEFAULT : corpora;
+    }
+
+    /**
+     * What the walks of every graph are drawn from along with its CodeStateId, so a corpus is the same no matter how
+     * many threads take the walks.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return how the walk files are compressed, or null if they are written uncompressed. Each call makes a new pool
+     * of compressing threads, which the caller closes.
+     */
+    public CanonicalizationStrategy.Compression getCompression() {
+        return compressionLevel < 0 ? null : CanonicalizationStrategy.Compression.of(compressionLevel, compressionThreads);
+    }
+
+    public List<String> getDataDirs() {
+        return dataDirs;
+    }
+}
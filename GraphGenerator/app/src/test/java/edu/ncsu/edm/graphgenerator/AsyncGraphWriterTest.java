@@ -0,0 +1,71 @@
+package edu.ncsu.edm.graphgenerator;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncGraphWriterTest {
+    private static final RenderedGraph GRAPH = new RenderedGraph(
+            new String[] { "ENTRY", "EXIT" }, new int[] { 0 }, new int[] { 1 }, new String[] { "" });
+
+    @Test void graphsAreWrittenInOrderBeforeCloseReturns() throws IOException {
+        List<String> written = new ArrayList<>();
+        AsyncGraphWriter writer = new AsyncGraphWriter("test-writer", 4, (id, graph) -> {
+            if (id.equals("13")) {
+                throw new IOException("skipped");
+            }
+            written.add(id);
+        });
+        for (int i = 0; i < 100; i++) {
+            writer.submit(String.valueOf(i), GRAPH);
+        }
+        writer.close();
+        assertEquals(IntStream.range(0, 100).filter(i -> i != 13).mapToObj(String::valueOf).toList(), written);
+    }
+
+    @Test void submittingWaitsWhileTheQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AsyncGraphWriter writer = new AsyncGraphWriter("test-writer", 1, (id, graph) -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        // The first graph is taken by the blocked sink and the second fills the queue
+        writer.submit("0", GRAPH);
+        writer.submit("1", GRAPH);
+        CountDownLatch submitted = new CountDownLatch(1);
+        Thread producer = new Thread(() -> {
+            try {
+                writer.submit("2", GRAPH);
+                submitted.countDown();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        producer.start();
+        assertFalse(submitted.await(200, TimeUnit.MILLISECONDS));
+        release.countDown();
+        assertTrue(submitted.await(5, TimeUnit.SECONDS));
+        writer.close();
+    }
+
+    @Test void closeReportsAWriterThatStopped() throws IOException {
+        AsyncGraphWriter writer = new AsyncGraphWriter("test-writer", 2, (id, graph) -> {
+            throw new OutOfMemoryError("pretend");
+        });
+        for (int i = 0; i < 10; i++) {
+            writer.submit(String.valueOf(i), GRAPH);
+        }
+        IOException e = assertThrows(IOException.class, writer::close);
+        assertInstanceOf(OutOfMemoryError.class, e.getCause());
+    }
+}
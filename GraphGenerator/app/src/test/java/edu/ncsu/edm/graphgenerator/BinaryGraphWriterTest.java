@@ -0,0 +1,60 @@
+package edu.ncsu.edm.graphgenerator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryGraphWriterTest {
+    @TempDir Path dir;
+
+    private static final RenderedGraph LOOP = new RenderedGraph(
+            new String[] { "ENTRY", "i < 10", "i++", "EXIT" },
+            new int[] { 0, 1, 2, 1 },
+            new int[] { 1, 2, 1, 3 },
+            new String[] { "", "true", "", "false" });
+
+    private static final RenderedGraph STRAIGHT = new RenderedGraph(
+            new String[] { "ENTRY", "return i++;" },
+            new int[] { 0 },
+            new int[] { 1 },
+            new String[] { "" });
+
+    @Test void graphsReadBackAsWritten() throws IOException {
+        Path file = dir.resolve("test" + BinaryGraphWriter.FILE_SUFFIX);
+        try (BinaryGraphWriter writer = new BinaryGraphWriter(file)) {
+            writer.addGraph("first", LOOP);
+            writer.addGraph("first", STRAIGHT);
+            writer.addGraph("second", LOOP);
+        }
+
+        try (BinaryGraphReader reader = new BinaryGraphReader(file)) {
+            assertEquals(3, reader.numGraphs());
+            // Two code state ids and five distinct labels, each stored once
+            assertEquals(7, reader.numStrings());
+            assertEquals("first", reader.codeStateId(1));
+            assertEquals("second", reader.codeStateId(2));
+            assertGraphEquals(LOOP, reader.graph(0));
+            assertGraphEquals(STRAIGHT, reader.graph(1));
+            assertGraphEquals(LOOP, reader.graph(2));
+        }
+    }
+
+    @Test void emptyFileHasNoGraphs() throws IOException {
+        Path file = dir.resolve("empty" + BinaryGraphWriter.FILE_SUFFIX);
+        new BinaryGraphWriter(file).close();
+        try (BinaryGraphReader reader = new BinaryGraphReader(file)) {
+            assertEquals(0, reader.numGraphs());
+        }
+    }
+
+    private static void assertGraphEquals(RenderedGraph expected, RenderedGraph actual) {
+        assertArrayEquals(expected.nodeLabels(), actual.nodeLabels());
+        assertArrayEquals(expected.edgeSources(), actual.edgeSources());
+        assertArrayEquals(expected.edgeTargets(), actual.edgeTargets());
+        assertArrayEquals(expected.edgeLabels(), actual.edgeLabels());
+    }
+}
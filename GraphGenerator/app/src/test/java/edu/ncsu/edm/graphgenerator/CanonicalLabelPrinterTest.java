@@ -0,0 +1,75 @@
+package edu.ncsu.edm.graphgenerator;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.stmt.Statement;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.ncsu.edm.graphgenerator.CanonicalLabelPrinter.Canonicalization;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CanonicalLabelPrinterTest {
+    private static final String SOURCE = """
+            import java.util.*;
+            public class MethodCompiler {
+                public int sum(int[] arr, List<String> names, String s) {
+                    int total = 0, j = 5;
+                    long big = 10L; double d = 1.5; char c = 'x'; boolean b = true;
+                    String t = "hi" + s.length() + names.get(0);
+                    Map<String, List<Integer>> m = new HashMap<>();
+                    outer:
+                    for (int i = 0; i < arr.length; i++) {
+                        if (arr[i] > 3 && b) { total += arr[i] * 2; continue outer; }
+                        else if (i == 7) break outer;
+                        while (total < 100) { total = total + Math.max(i, -1); }
+                    }
+                    for (String n : names) { System.out.println(n + "!"); }
+                    Runnable r = () -> { int q = 3; q++; };
+                    Object o = (Object) new ArrayList<String>();
+                    switch (j) { case 1: total++; break; default: total--; }
+                    return total > 0 ? total : -1;
+                }
+            }
+            """;
+
+    /**
+     * The vertices of a graph are the statements of a method plus the statements generated for foreach loops, which
+     * aren't attached to the method.
+     */
+    private static List<Node> vertices() {
+        CompilationUnit cu = App.PARSER_PROVIDER.parse(SOURCE);
+        List<Node> vertices = new ArrayList<>(cu.findAll(Statement.class));
+        vertices.add(App.PARSER_PROVIDER.parseStatement("String n;"));
+        vertices.add(App.PARSER_PROVIDER.parseStatement("int index0 = 0;"));
+        return vertices;
+    }
+
+    @Test void labelsMatchTheConvertedAst() {
+        List<Node> vertices = vertices();
+        CanonicalLabelPrinter variables = new CanonicalLabelPrinter(Canonicalization.VARIABLES);
+        CanonicalLabelPrinter literals = new CanonicalLabelPrinter(Canonicalization.LITERALS);
+        List<String> variableLabels = vertices.stream().map(variables::print).toList();
+        List<String> literalLabels = vertices.stream().map(literals::print).toList();
+
+        VariableCanonicalizationConverter variableConverter = new VariableCanonicalizationConverter();
+        vertices.forEach(v -> v.accept(variableConverter, null));
+        assertEquals(variableLabels, vertices.stream().map(Node::toString).toList());
+
+        LiteralCanonicalizationConverter literalConverter = new LiteralCanonicalizationConverter();
+        vertices.forEach(v -> v.accept(literalConverter, null));
+        assertEquals(literalLabels, vertices.stream().map(Node::toString).toList());
+    }
+
+    @Test void printingLeavesTheAstUnchanged() {
+        List<Node> vertices = vertices();
+        List<String> before = vertices.stream().map(Node::toString).toList();
+        CanonicalLabelPrinter literals = new CanonicalLabelPrinter(Canonicalization.LITERALS);
+        vertices.forEach(literals::print);
+        assertEquals(before, vertices.stream().map(Node::toString).toList());
+        assertEquals("int VAR = INT_LIT;", literals.print(vertices.get(vertices.size() - 1)));
+    }
+}
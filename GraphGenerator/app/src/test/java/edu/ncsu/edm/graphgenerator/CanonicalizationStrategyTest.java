@@ -0,0 +1,96 @@
+package edu.ncsu.edm.graphgenerator;
+
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import edu.ncsu.edm.graphgenerator.CanonicalLabelPrinter.Canonicalization;
+import edu.ncsu.edm.graphgenerator.CanonicalizationStrategy.Compression;
+import edu.ncsu.edm.graphgenerator.CanonicalizationStrategy.OutputFormat;
+import edu.ncsu.edm.graphgenerator.CanonicalizationStrategy.OutputSettings;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CanonicalizationStrategyTest {
+    @TempDir Path dir;
+
+    private static final RenderedGraph LOOP = new RenderedGraph(
+            new String[] { "ENTRY", "i < 10", "i++", "EXIT" },
+            new int[] { 0, 1, 2, 1 },
+            new int[] { 1, 2, 1, 3 },
+            new String[] { "", "true", "", "false" });
+
+    private static List<String[]> read(Path file) throws IOException, CsvException {
+        try (CSVReader reader = new CSVReader(new FileReader(file.toFile()))) {
+            List<String[]> rows = reader.readAll();
+            return rows.subList(1, rows.size());
+        }
+    }
+
+    @Test void shardsKeepEveryCodeStateTogether() throws IOException, CsvException {
+        OutputSettings settings = new OutputSettings(OutputFormat.CSV, false, 0, 1, 0, null, 4);
+        CanonicalizationStrategy strategy = new CanonicalizationStrategy(
+                dir.resolve("test").toString(), Canonicalization.NONE, settings);
+        for (int i = 0; i < 100; i++) {
+            strategy.write("state" + i, LOOP);
+            strategy.write("state" + i, LOOP);
+        }
+        strategy.close();
+
+        Map<String, Integer> shardOfCodeState = new HashMap<>();
+        long nodeRows = 0;
+        for (String[] entry : read(dir.resolve("test" + CanonicalizationStrategy.MANIFEST_SUFFIX))) {
+            Path file = dir.resolve(entry[1]);
+            assertEquals(Files.size(file), Long.parseLong(entry[2]));
+            List<String[]> rows = read(file);
+            assertEquals(rows.size(), Long.parseLong(entry[5]));
+            for (String[] row : rows) {
+                Integer shard = shardOfCodeState.putIfAbsent(row[0], Integer.valueOf(entry[0]));
+                assertTrue(shard == null || shard == Integer.parseInt(entry[0]), row[0] + " is in two shards");
+                assertEquals(strategy.shardOf(row[0]), Integer.parseInt(entry[0]));
+            }
+            if (entry[1].startsWith("testNodes-")) {
+                nodeRows += rows.size();
+                assertEquals(rows.stream().map(row -> row[0]).distinct().count(), Long.parseLong(entry[3]));
+            }
+        }
+        assertEquals(100, shardOfCodeState.size());
+        assertEquals(200L * LOOP.numNodes(), nodeRows);
+        assertFalse(Files.exists(dir.resolve("testNodes.csv")));
+    }
+
+    @Test void filesAreStillCompletedWhenTheWriterFails() throws IOException, CsvException {
+        OutputSettings settings = new OutputSettings(OutputFormat.CSV, false, 0, 1, 4, Compression.of(6, 0), 2);
+        CanonicalizationStrategy strategy = new CanonicalizationStrategy(
+                dir.resolve("test").toString(), Canonicalization.NONE, settings);
+        // Waiting on the writer thread fails straight away
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(InterruptedIOException.class, strategy::close);
+        } finally {
+            Thread.interrupted();
+        }
+
+        assertArrayEquals(new String[] { "0", "0", "0" }, read(dir.resolve("testStats.csv")).get(0));
+        List<String[]> manifest = read(dir.resolve("test" + CanonicalizationStrategy.MANIFEST_SUFFIX));
+        assertEquals(4, manifest.size());
+        for (String[] entry : manifest) {
+            try (InputStream in = new GZIPInputStream(new FileInputStream(dir.resolve(entry[1]).toFile()))) {
+                assertTrue(new String(in.readAllBytes()).startsWith("\"CodeStateId\""), entry[1]);
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package edu.ncsu.edm.graphgenerator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CfgBuilderTest {
+    @Test void edgesBetweenTheSameVerticesAreOnlyAddedOnce() {
+        CfgBuilder graph = new CfgBuilder();
+        FlowNode entry = new FlowNode("ENTRY");
+        FlowNode exit = new FlowNode("EXIT");
+        assertTrue(graph.addVertex(entry));
+        assertTrue(graph.addVertex(exit));
+        assertFalse(graph.addVertex(new FlowNode("EXIT")));
+
+        int edge = graph.addEdge(entry, exit, true);
+        assertEquals(-1, graph.addEdge(entry, exit));
+        assertArrayEquals(new int[] { edge }, graph.outgoingEdgesOf(entry));
+        assertEquals(FrozenGraph.WHEN_TRUE, graph.getEdgeCondition(edge));
+        assertThrows(IllegalArgumentException.class, () -> graph.addEdge(entry, new FlowNode("missing")));
+    }
+
+    @Test void reroutingKeepsConditionsAndRemovingKeepsOrder() {
+        CfgBuilder graph = new CfgBuilder();
+        FlowNode entry = new FlowNode("ENTRY");
+        FlowNode placeholder = new FlowNode("placeholder");
+        FlowNode condition = new FlowNode("i < 10");
+        FlowNode body = new FlowNode("i++");
+        FlowNode exit = new FlowNode("EXIT");
+        List.of(entry, placeholder, condition, body, exit).forEach(graph::addVertex);
+        graph.addEdge(entry, placeholder);
+        graph.addEdge(body, placeholder);
+        graph.addEdge(condition, exit, false);
+        graph.addEdge(condition, body, true);
+
+        graph.rerouteIncomingEdges(placeholder, condition);
+        graph.removeVertex(placeholder);
+
+        assertEquals(List.of(entry, condition, body, exit), graph.vertexList());
+        int[] incoming = graph.incomingEdgesOf(condition);
+        assertEquals(2, incoming.length);
+        assertSame(entry, graph.getEdgeSource(incoming[0]));
+        assertSame(body, graph.getEdgeSource(incoming[1]));
+
+        RenderedGraph rendered = RenderedGraph.of(graph.freeze());
+        assertArrayEquals(new String[] { "ENTRY", "i < 10", "i++", "EXIT" }, rendered.nodeLabels());
+        assertArrayEquals(new int[] { 1, 1, 0, 2 }, rendered.edgeSources());
+        assertArrayEquals(new int[] { 3, 2, 1, 1 }, rendered.edgeTargets());
+        assertArrayEquals(new String[] { "false", "true", "", "" }, rendered.edgeLabels());
+    }
+
+    @Test void everyFeatureFreezesLikeItsJgraphtCopy() {
+        for (String feature : App.testMethods.keySet()) {
+            CodeState codeState = new CodeState("Test", App.testMethods.get(feature),
+                    App.testImports.getOrDefault(feature, List.of()));
+            CfgBuilder graph = App.buildGraph(App.parseMethod(codeState).findFirst().orElseThrow());
+            assertNotNull(graph, feature);
+            RenderedGraph built = RenderedGraph.of(graph.freeze());
+            RenderedGraph copied = RenderedGraph.of(FrozenGraph.of(graph.toGraph()));
+            assertArrayEquals(copied.nodeLabels(), built.nodeLabels(), feature);
+            assertArrayEquals(copied.edgeSources(), built.edgeSources(), feature);
+            assertArrayEquals(copied.edgeTargets(), built.edgeTargets(), feature);
+            assertArrayEquals(copied.edgeLabels(), built.edgeLabels(), feature);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package edu.ncsu.edm.graphgenerator;
+
+import edu.ncsu.edm.graphgenerator.CanonicalizationStrategyCollection.RenderedCodeState;
+import edu.ncsu.edm.graphgenerator.CodeStateDeduplicator.Mode;
+import edu.ncsu.edm.graphgenerator.RejectWriter.Reject;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CodeStateDeduplicatorTest {
+    private static final String CODE = """
+            public int sortaSum(int a, int b) {
+                int sum = a + b;
+                return sum;
+            }
+            """;
+
+    @Test void keyIgnoresLineEndingsAndTrailingWhitespace() {
+        CodeState unix = new CodeState("a", CODE);
+        CodeState windows = new CodeState("b", "\r\n" + CODE.replace("\n", "  \r\n"));
+        assertEquals(CodeStateDeduplicator.keyOf(unix), CodeStateDeduplicator.keyOf(windows));
+    }
+
+    @Test void keyDependsOnCodeAndImports() {
+        CodeState original = new CodeState("a", CODE);
+        CodeState indented = new CodeState("b", CODE.replace("int sum", "int  sum"));
+        CodeState withImports = new CodeState("c", CODE, List.of("java.util.List"));
+        assertNotEquals(CodeStateDeduplicator.keyOf(original), CodeStateDeduplicator.keyOf(indented));
+        assertNotEquals(CodeStateDeduplicator.keyOf(original), CodeStateDeduplicator.keyOf(withImports));
+    }
+
+    private final AtomicInteger built = new AtomicInteger(0);
+    private final List<RenderedCodeState> written = new ArrayList<>();
+
+    private final Function<CodeState, RenderedCodeState> render = cs -> {
+        built.incrementAndGet();
+        RenderedGraph graph = new RenderedGraph(new String[] { "ENTRY", cs.getCode() },
+                new int[] { 0 }, new int[] { 1 }, new String[] { "" });
+        return new RenderedCodeState(cs.getCodeStateId(), List.<RenderedGraph[]>of(new RenderedGraph[] { graph }),
+                cs.getCode().length(), List.of(new Reject(2, "java.lang.IllegalStateException", "", "TryStmt", "3")));
+    };
+
+    private void run(CodeStateDeduplicator dedup) throws IOException {
+        try (dedup) {
+            Stream<CodeState> codeStates = Stream.of(new CodeState("a", CODE), new CodeState("b", CODE),
+                    new CodeState("c", "int x;"), new CodeState("d", CODE));
+            dedup.tag(codeStates).map(dedup::process).forEachOrdered(dedup::write);
+        }
+    }
+
+    @Test void emittedDuplicatesMatchTheirFirstOccurrence() throws IOException {
+        for (int cacheSize : new int[] { CodeStateDeduplicator.DEFAULT_CACHE_SIZE, 0 }) {
+            built.set(0);
+            written.clear();
+            run(new CodeStateDeduplicator(Mode.EMIT, cacheSize, render, written::add, null));
+
+            assertEquals(List.of("a", "b", "c", "d"), written.stream().map(RenderedCodeState::codeStateId).toList());
+            for (RenderedCodeState duplicate : List.of(written.get(1), written.get(3))) {
+                assertEquals(written.get(0).graphs().get(0)[0].nodeLabels()[1],
+                        duplicate.graphs().get(0)[0].nodeLabels()[1]);
+                assertEquals(written.get(0).methodsWithCondExpr(), duplicate.methodsWithCondExpr());
+                assertEquals(written.get(0).rejects(), duplicate.rejects());
+            }
+            // With nothing cached every duplicate has to be built again
+            assertEquals(cacheSize == 0 ? 4 : 2, built.get());
+        }
+    }
+
+    @Test void aliasedDuplicatesAreOnlyListed() throws IOException {
+        StringWriter aliases = new StringWriter();
+        run(new CodeStateDeduplicator(Mode.ALIASES, CodeStateDeduplicator.DEFAULT_CACHE_SIZE, render, written::add,
+                aliases));
+
+        assertEquals(List.of("a", "c"), written.stream().map(RenderedCodeState::codeStateId).toList());
+        assertEquals(2, built.get());
+        assertEquals(List.of("\"CodeStateId\",\"DuplicateOfCodeStateId\"", "\"b\",\"a\"", "\"d\",\"a\""),
+                aliases.toString().lines().toList());
+    }
+}
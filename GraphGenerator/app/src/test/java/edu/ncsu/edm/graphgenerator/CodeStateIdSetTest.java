@@ -0,0 +1,35 @@
+package edu.ncsu.edm.graphgenerator;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CodeStateIdSetTest {
+    private static String id(int i) {
+        return String.format("%064x", (long) i * 0x9E3779B97F4A7C15L);
+    }
+
+    @Test void containsEveryAddedIdAfterGrowing() {
+        CodeStateIdSet ids = new CodeStateIdSet();
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(ids.add(id(i)));
+        }
+        assertFalse(ids.add(id(42)));
+        assertEquals(10_000, ids.size());
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(ids.contains(id(i)));
+        }
+        assertFalse(ids.contains(id(10_000)));
+    }
+
+    @Test void keepsIdsThatAreNotHexDigests() {
+        CodeStateIdSet ids = new CodeStateIdSet();
+        String upper = id(7).toUpperCase();
+        ids.add("Test");
+        ids.add(upper);
+        assertTrue(ids.contains("Test"));
+        assertTrue(ids.contains(upper));
+        assertFalse(ids.contains(id(7)));
+        assertEquals(2, ids.size());
+    }
+}
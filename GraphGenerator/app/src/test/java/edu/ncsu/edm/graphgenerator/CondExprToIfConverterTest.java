@@ -0,0 +1,105 @@
+package edu.ncsu.edm.graphgenerator;
+
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.expr.ConditionalExpr;
+import com.github.javaparser.printer.configuration.DefaultPrinterConfiguration;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CondExprToIfConverterTest {
+    private static final JavaParserProvider PARSER_PROVIDER = new JavaParserProvider();
+
+    private static String rewrite(String body) {
+        MethodDeclaration md = PARSER_PROVIDER.parse("public class MethodCompiler {\nvoid m() {\n" + body + "\n}\n}")
+                .findFirst(MethodDeclaration.class).orElseThrow();
+        new CondExprToIfConverter().rewriteAllCondExprsToIf(md);
+        assertTrue(md.findFirst(ConditionalExpr.class).isEmpty(), md::toString);
+        return md.getBody().orElseThrow().toString(new DefaultPrinterConfiguration());
+    }
+
+    @Test void declarationsSwitchesAndLambdasAreRewritten() {
+        assertEquals("""
+                {
+                    int x = 5;
+                    int j;
+                    if (x % 2 == 1)
+                        if (x % 8 == 3)
+                            j = 1;
+                        else
+                            j = 8;
+                    else
+                        j = 1;
+                    int foo = switch(j) {
+                        case 3 ->
+                            4;
+                        case 12 ->
+                            {
+                                if (x % 7 == 2)
+                                    yield 4;
+                                else
+                                    yield 10;
+                            }
+                        default ->
+                            17;
+                    };
+                    int bar = IntStream.of(1, 2, 3).map(i -> {
+                        if (i % 2 == 0)
+                            return i * 2;
+                        else
+                            return i * 3;
+                    }).sum();
+                }""", rewrite("""
+                int x = 5;
+                int j = x % 2 == 1 ? x % 8 == 3? 1 : 8 : 1;
+                int foo = switch (j) {
+                    case 3 -> 4;
+                    case 12 -> x % 7 == 2 ? 4 : 10;
+                    default -> 17;
+                };
+                int bar = IntStream.of(1, 2, 3).map(i -> i % 2 == 0 ? i * 2 : i * 3).sum();
+                """));
+    }
+
+    @Test void outerAndEarlierExpressionsAreRewrittenFirst() {
+        assertEquals("""
+                {
+                    int v;
+                    if (a)
+                        v = 1;
+                    else if (b)
+                        v = 2;
+                    else if (c)
+                        v = 3;
+                    else
+                        v = 4;
+                    if (p)
+                        if (q)
+                            g((1) + (3));
+                        else
+                            g((1) + (4));
+                    else if (q)
+                        g((2) + (3));
+                    else
+                        g((2) + (4));
+                    if (n)
+                        for (int i = 0; i < (1); i++) {
+                            if (i > 2)
+                                s += i;
+                            else
+                                s += -i;
+                        }
+                    else
+                        for (int i = 0; i < (2); i++) {
+                            if (i > 2)
+                                s += i;
+                            else
+                                s += -i;
+                        }
+                }""", rewrite("""
+                int v = a ? 1 : b ? 2 : c ? 3 : 4;
+                g((p ? 1 : 2) + (q ? 3 : 4));
+                for (int i = 0; i < (n ? 1 : 2); i++) { s += i > 2 ? i : -i; }
+                """));
+    }
+}
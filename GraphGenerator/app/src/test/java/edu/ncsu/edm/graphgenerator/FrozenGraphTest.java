@@ -0,0 +1,37 @@
+package edu.ncsu.edm.graphgenerator;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrozenGraphTest {
+    @Test void frozenGraphRendersLikeTheGraphItWasBuiltIn() {
+        Graph<FlowNode, FlowEdge> graph = new DefaultDirectedGraph<>(FlowEdge.class);
+        FlowNode entry = new FlowNode("ENTRY");
+        FlowNode condition = new FlowNode("i < 10");
+        FlowNode body = new FlowNode("i++");
+        FlowNode exit = new FlowNode("EXIT");
+        List.of(entry, condition, body, exit).forEach(graph::addVertex);
+        // Added out of source order, so the CSR layout differs from the edge order
+        graph.addEdge(condition, exit, new FlowEdge(false));
+        graph.addEdge(entry, condition, new FlowEdge());
+        graph.addEdge(body, condition, new FlowEdge());
+        graph.addEdge(condition, body, new FlowEdge(true));
+
+        FrozenGraph frozen = FrozenGraph.of(graph);
+        assertEquals(4, frozen.numNodes());
+        assertEquals(4, frozen.numEdges());
+        assertSame(condition, frozen.node(1));
+        assertEquals(2, frozen.firstEdge(2) - frozen.firstEdge(1));
+
+        RenderedGraph rendered = RenderedGraph.of(frozen);
+        assertArrayEquals(new String[] { "ENTRY", "i < 10", "i++", "EXIT" }, rendered.nodeLabels());
+        assertArrayEquals(new int[] { 1, 0, 2, 1 }, rendered.edgeSources());
+        assertArrayEquals(new int[] { 3, 1, 1, 2 }, rendered.edgeTargets());
+        assertArrayEquals(new String[] { "false", "", "", "true" }, rendered.edgeLabels());
+    }
+}
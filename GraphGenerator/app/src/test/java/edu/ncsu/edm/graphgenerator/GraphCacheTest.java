@@ -0,0 +1,100 @@
+package edu.ncsu.edm.graphgenerator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import edu.ncsu.edm.graphgenerator.CanonicalizationStrategyCollection.RenderedCodeState;
+import edu.ncsu.edm.graphgenerator.RejectWriter.Reject;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphCacheTest {
+    @TempDir Path dir;
+
+    private final AtomicInteger built = new AtomicInteger(0);
+
+    private static final Reject REJECT = new Reject(2, "java.lang.IllegalStateException", "bad", "TryStmt", "3");
+
+    private final Function<CodeState, RenderedCodeState> render = cs -> {
+        built.incrementAndGet();
+        RenderedGraph graph = new RenderedGraph(new String[] { "ENTRY", cs.getCode() },
+                new int[] { 0 }, new int[] { 1 }, new String[] { "" });
+        return new RenderedCodeState(cs.getCodeStateId(), List.<RenderedGraph[]>of(new RenderedGraph[] { graph, null }),
+                cs.getCode().length(), List.of(REJECT));
+    };
+
+    private void renderAll(GraphCache cache, String... codes) {
+        for (int i = 0; i < codes.length; i++) {
+            RenderedCodeState rendered = cache.render(new CodeState("id" + i, codes[i]), render);
+            assertEquals("id" + i, rendered.codeStateId());
+            assertEquals(codes[i], rendered.graphs().get(0)[0].nodeLabels()[1]);
+            assertNull(rendered.graphs().get(0)[1]);
+            assertEquals(codes[i].length(), rendered.methodsWithCondExpr());
+            assertEquals(List.of(REJECT), rendered.rejects());
+        }
+    }
+
+    @Test void onlyNewAndChangedCodeStatesAreBuiltAgain() throws IOException {
+        try (GraphCache cache = GraphCache.open(dir, "1", 2)) {
+            renderAll(cache, "a", "b", "c");
+        }
+        try (GraphCache cache = GraphCache.open(dir, "1", 2)) {
+            renderAll(cache, "a", "changed", "c", "d");
+            assertEquals(2, cache.getHits());
+            assertEquals(2, cache.getMisses());
+        }
+        assertEquals(5, built.get());
+    }
+
+    @Test void otherGeneratorVersionsAreDiscarded() throws IOException {
+        try (GraphCache cache = GraphCache.open(dir, "1", 2)) {
+            renderAll(cache, "a", "b");
+        }
+        try (GraphCache cache = GraphCache.open(dir, "2", 2)) {
+            renderAll(cache, "a", "b");
+            assertEquals(0, cache.getHits());
+        }
+    }
+
+    @Test void partlyWrittenRecordIsDropped() throws IOException {
+        try (GraphCache cache = GraphCache.open(dir, "1", 2)) {
+            renderAll(cache, "a", "b");
+        }
+        Path file = dir.resolve(GraphCache.FILE_NAME);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(file) - 3);
+        }
+        try (GraphCache cache = GraphCache.open(dir, "1", 2)) {
+            renderAll(cache, "a", "b");
+            assertEquals(1, cache.getHits());
+            assertEquals(1, cache.getMisses());
+        }
+    }
+
+    @Test void recordsLargerThanTheReadBufferAreAllKept() throws IOException {
+        String[] codes = new String[20];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = String.valueOf((char) ('a' + i)).repeat(3000 + 1000 * i);
+        }
+        try (GraphCache cache = GraphCache.open(dir, "1", 2)) {
+            renderAll(cache, codes);
+        }
+        Path file = dir.resolve(GraphCache.FILE_NAME);
+        long size = Files.size(file);
+        try (GraphCache cache = GraphCache.open(dir, "1", 2)) {
+            renderAll(cache, codes);
+            assertEquals(codes.length, cache.getHits());
+            assertEquals(0, cache.getMisses());
+        }
+        assertEquals(size, Files.size(file));
+    }
+}
@@ -0,0 +1,79 @@
+package edu.ncsu.edm.graphgenerator;
+
+import com.github.javaparser.ast.stmt.ForEachStmt;
+import edu.ncsu.edm.graphgenerator.IterableTypeCache.IterableType;
+import edu.ncsu.edm.graphgenerator.IterableTypeCache.Kind;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IterableTypeCacheTest {
+    private static final JavaParserProvider PARSER_PROVIDER = new JavaParserProvider();
+
+    private static List<ForEachStmt> loops(String imports, String method) {
+        return PARSER_PROVIDER.parse(imports + "public class MethodCompiler {\n" + method + "\n}")
+                .findAll(ForEachStmt.class);
+    }
+
+    @Test void declaredTypesAreReadOrResolvedOncePerScope() {
+        IterableTypeCache cache = new IterableTypeCache(16);
+        String method = """
+                public void loops(String s, int... counts) {
+                    int[] n = { 1, 2 };
+                    List<Integer> xs = new ArrayList<>();
+                    for (int i : n) {}
+                    for (char c : s) {}
+                    for (int c : counts) {}
+                    for (int x : xs) {}
+                    for (Object o : missing) {}
+                }
+                """;
+        List<ForEachStmt> first = loops("import java.util.List;\n", method);
+        List<IterableType> types = first.stream().map(cache::of).toList();
+        assertEquals(Kind.ARRAY, types.get(0).kind());
+        assertEquals(Kind.STRING, types.get(1).kind());
+        assertEquals(Kind.ARRAY, types.get(2).kind());
+        assertEquals(new IterableType(Kind.ITERABLE, "java.lang.Integer", null), types.get(3));
+        assertEquals(Kind.UNSUPPORTED, types.get(4).kind());
+        assertThrows(UnsupportedOperationException.class, () -> types.get(4).orElseThrow());
+        assertEquals(3, cache.getDeclared());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getUncached());
+
+        cache.of(loops("import java.util.List;\n", method).get(3));
+        assertEquals(1, cache.getHits());
+        // List means something else without the import, so it is resolved again
+        assertEquals(Kind.UNSUPPORTED, cache.of(loops("", method).get(3)).kind());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test void cachedTypesMatchTheSymbolSolver() {
+        IterableTypeCache cache = new IterableTypeCache(16);
+        String method = """
+                public void loops(List<String> words, Map<String, Integer> counts, Integer[][] grid, String[] names) {
+                    Set<Character> seen = new HashSet<>();
+                    var letters = seen;
+                    for (String w : words) {
+                        for (char c : w) {}
+                    }
+                    for (Integer[] row : grid) {
+                        for (int cell : row) {}
+                    }
+                    for (String name : names) {}
+                    for (char c : seen) {}
+                    for (var e : counts) {}
+                    for (char c : letters) {}
+                    for (char c : words.get(0).toCharArray()) {}
+                }
+                """;
+        List<ForEachStmt> cached = loops("import java.util.*;\n", method);
+        List<ForEachStmt> resolved = loops("import java.util.*;\n", method);
+        for (int i = 0; i < cached.size(); i++) {
+            assertEquals(IterableTypeCache.resolve(resolved.get(i).getIterable()), cache.of(cached.get(i)),
+                    cached.get(i).getIterable().toString());
+        }
+        assertEquals(2, cache.getUncached());
+    }
+}
@@ -0,0 +1,48 @@
+package edu.ncsu.edm.graphgenerator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LabelDictionaryTest {
+    @TempDir Path dir;
+
+    @Test void internedLabelsAreShared() throws IOException {
+        try (LabelDictionary labels = new LabelDictionary(dir.resolve("test" + LabelDictionary.FILE_SUFFIX).toString())) {
+            String first = labels.intern(new String("VAR = INT_LIT;"));
+            assertSame(first, labels.intern(new String("VAR = INT_LIT;")));
+        }
+    }
+
+    @Test void labelsAreCopiedOutOfReusedBuffers() throws IOException {
+        try (LabelDictionary labels = new LabelDictionary(dir.resolve("test" + LabelDictionary.FILE_SUFFIX).toString())) {
+            StringBuilder buffer = new StringBuilder("VAR = INT_LIT;");
+            String first = labels.intern(buffer);
+            buffer.setLength(0);
+            buffer.append("return VAR;");
+            assertEquals("VAR = INT_LIT;", first);
+            assertSame(first, labels.intern("VAR = INT_LIT;"));
+            assertEquals("return VAR;", labels.intern(buffer));
+            assertEquals(2, labels.size());
+        }
+    }
+
+    @Test void idsFollowTheOrderLabelsAreWritten() throws IOException {
+        Path file = dir.resolve("test" + LabelDictionary.FILE_SUFFIX);
+        try (LabelDictionary labels = new LabelDictionary(file.toString())) {
+            // Interning on a worker doesn't give a label an id
+            labels.intern("return VAR;");
+            assertEquals(0, labels.idOf("VAR = INT_LIT;"));
+            assertEquals(1, labels.idOf("return VAR;"));
+            assertEquals(0, labels.idOf("VAR = INT_LIT;"));
+        }
+        assertEquals(List.of("\"LabelId\",\"Label\"", "\"0\",\"VAR = INT_LIT;\"", "\"1\",\"return VAR;\""),
+                Files.readAllLines(file));
+    }
+}
@@ -0,0 +1,67 @@
+package edu.ncsu.edm.graphgenerator;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.stmt.Statement;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.ncsu.edm.graphgenerator.CanonicalLabelPrinter.Canonicalization;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LabelRendererTest {
+    private static final String SOURCE = """
+            public class MethodCompiler {
+                public static int[] shift(final int[] nums, java.util.List<? extends Number> xs) throws Exception {
+                    int a[] = new int[nums.length], b = 0, c[][] = {};
+                    char q = 'q'; long l = 3L; double d = .5; String s = null;
+                    do b += nums[b] << 2; while (b < 10 && !(s instanceof String));
+                    if (b == 0)
+                        b = -b;
+                    else if (b > 1) return a;
+                    else
+                        b--;
+                    switch (b) {
+                        case 1, 2: a[0] = (int) d; break;
+                        default:
+                    }
+                    for (int i = 0, j = 1; ; i++, j--) { if (i > j) { break; } else { continue; } }
+                    Object o = b > 2 ? this.toString() : new java.util.ArrayList<Integer>(xs.size()).toString();
+                    System.out.println(String.class.getName() + xs.get(0).intValue() + super.hashCode());
+                    while (true) ;
+                }
+            }
+            """;
+
+    private static List<Node> nodes() {
+        CompilationUnit cu = App.PARSER_PROVIDER.parse(SOURCE);
+        List<Node> nodes = new ArrayList<>(cu.findAll(MethodDeclaration.class));
+        nodes.addAll(cu.findAll(Statement.class));
+        nodes.addAll(cu.findAll(Expression.class));
+        return nodes;
+    }
+
+    @Test void rendersNodesAsTheyPrint() {
+        for (Node node : nodes()) {
+            assertEquals(node.toString(), LabelRenderer.render(node, Canonicalization.NONE));
+        }
+    }
+
+    @Test void leavesUncoveredNodesToThePrettyPrinter() {
+        Statement lambda = App.PARSER_PROVIDER.parseStatement("Runnable r = () -> { int q = 3; };");
+        Statement commented = App.PARSER_PROVIDER.parseStatement("x++;");
+        commented.setLineComment("count");
+        for (Statement statement : List.of(lambda, commented)) {
+            assertNull(LabelRenderer.render(statement, Canonicalization.VARIABLES));
+            assertEquals(statement.toString(), new CanonicalLabelPrinter(Canonicalization.NONE).print(statement));
+        }
+        assertEquals("Runnable VAR = () -> {" + System.lineSeparator() + "    int VAR = INT_LIT;"
+                        + System.lineSeparator() + "};",
+                new CanonicalLabelPrinter(Canonicalization.LITERALS).print(lambda));
+    }
+}
@@ -0,0 +1,62 @@
+package edu.ncsu.edm.graphgenerator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderedParallelPipelineTest {
+    @Test void resultsArriveInInputOrder() {
+        List<Integer> expected = IntStream.range(0, 500).map(i -> i * i).boxed().toList();
+        List<Integer> actual = new ArrayList<>();
+        new OrderedParallelPipeline(8, 16).run(IntStream.range(0, 500).boxed(), i -> {
+            if (i % 7 == 0) {
+                Thread.onSpinWait();
+            }
+            return i * i;
+        }, actual::add);
+        assertEquals(expected, actual);
+    }
+
+    @Test void workerFailuresReachTheCaller() {
+        OrderedParallelPipeline pipeline = new OrderedParallelPipeline(4, 4);
+        assertThrows(IllegalStateException.class, () -> pipeline.run(IntStream.range(0, 100).boxed(), i -> {
+            if (i == 42) {
+                throw new IllegalStateException("boom");
+            }
+            return i;
+        }, i -> {}));
+    }
+
+    @Test void aFailingSinkStopsTheReaderAndClosesTheInputs() throws InterruptedException {
+        for (int threads : new int[] { 1, 4 }) {
+            AtomicBoolean closed = new AtomicBoolean(false);
+            Stream<Integer> inputs = IntStream.range(0, 1000).boxed().onClose(() -> closed.set(true));
+            assertThrows(IllegalStateException.class, () -> new OrderedParallelPipeline(threads, 2).run(inputs, i -> i, i -> {
+                // Gives the reader time to fill the queue behind the failing result
+                sleep(100);
+                throw new IllegalStateException("boom");
+            }));
+            for (Thread thread : Thread.getAllStackTraces().keySet()) {
+                if (thread.getName().equals("graph-reader")) {
+                    thread.join(5000);
+                    assertFalse(thread.isAlive(), "The reader is still blocked on the queue");
+                }
+            }
+            assertTrue(closed.get(), String.valueOf(threads));
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
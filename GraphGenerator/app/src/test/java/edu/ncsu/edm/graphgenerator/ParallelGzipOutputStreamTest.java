@@ -0,0 +1,100 @@
+package edu.ncsu.edm.graphgenerator;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelGzipOutputStreamTest {
+    private static byte[] rows(int count) {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            csv.append('"').append(i / 7).append("\",\"1\",\"").append(i % 7).append("\",\"x").append(i % 13)
+                    .append(" = x").append(i % 13).append(" + 1;\"\n");
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gzip(byte[] data, int threads) throws IOException {
+        ExecutorService compressors = threads > 0 ? ParallelGzipOutputStream.newCompressors(threads) : null;
+        try {
+            return gzip(data, compressors, threads * 2);
+        } finally {
+            if (compressors != null) {
+                compressors.shutdown();
+            }
+        }
+    }
+
+    private static byte[] gzip(byte[] data, ExecutorService compressors, int maxInFlight) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (ParallelGzipOutputStream out = new ParallelGzipOutputStream(compressed, 6, compressors, maxInFlight)) {
+            // Uneven writes so blocks fill up in the middle of them
+            for (int off = 0; off < data.length; off += 10_007) {
+                out.write(data, off, Math.min(10_007, data.length - off));
+            }
+        }
+        return compressed.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] compressed) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return in.readAllBytes();
+        }
+    }
+
+    @Test void blocksDecompressAsOneGzipStream() throws IOException {
+        byte[] data = rows(100_000);
+        assertTrue(data.length > 10 * ParallelGzipOutputStream.BLOCK_SIZE);
+        assertArrayEquals(data, gunzip(gzip(data, 4)));
+        assertArrayEquals(data, gunzip(gzip(data, 0)));
+    }
+
+    @Test void compressesAboutAsWellAsOneDeflater() throws IOException {
+        byte[] data = rows(100_000);
+        ByteArrayOutputStream single = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(single)) {
+            out.write(data);
+        }
+        assertTrue(gzip(data, 4).length < single.size() * 1.05);
+    }
+
+    @Test void emptyStreamIsStillGzip() throws IOException {
+        assertArrayEquals(new byte[0], gunzip(gzip(new byte[0], 2)));
+    }
+
+    @Test void streamsShareOnePoolOfCompressors() throws Exception {
+        ExecutorService compressors = ParallelGzipOutputStream.newCompressors(2);
+        ExecutorService writers = Executors.newFixedThreadPool(8);
+        try {
+            List<byte[]> data = new ArrayList<>();
+            List<Future<byte[]>> compressed = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                byte[] rows = rows(20_000 + i * 1000);
+                data.add(rows);
+                compressed.add(writers.submit(() -> gzip(rows, compressors, 4)));
+            }
+            for (int i = 0; i < data.size(); i++) {
+                assertArrayEquals(data.get(i), gunzip(compressed.get(i).get()));
+            }
+            // Closing the streams leaves the pool to the next ones
+            assertFalse(compressors.isShutdown());
+            assertArrayEquals(data.get(0), gunzip(gzip(data.get(0), compressors, 4)));
+        } finally {
+            writers.shutdown();
+            compressors.shutdown();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package edu.ncsu.edm.graphgenerator;
+
+import edu.ncsu.edm.graphgenerator.PipelineMetrics.Histogram;
+import edu.ncsu.edm.graphgenerator.PipelineMetrics.Stage;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PipelineMetricsTest {
+    @Test void percentilesAreWithinAnEighthOfTheRecordedTimes() {
+        for (long nanos : new long[] { 0, 15, 16, 17, 1000, 123_456_789, Long.MAX_VALUE }) {
+            int bucket = Histogram.bucketOf(nanos);
+            assertTrue(Histogram.upperBoundOf(bucket) >= nanos, String.valueOf(nanos));
+            assertTrue(bucket == 0 || Histogram.upperBoundOf(bucket - 1) < nanos, String.valueOf(nanos));
+        }
+
+        Histogram histogram = new Histogram();
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros * 1000);
+        }
+        assertEquals(1000, histogram.count());
+        assertEquals(500_500, histogram.mean(), 1e-9);
+        assertEquals(1_000_000, histogram.max());
+        assertEquals(1_000_000, histogram.percentile(1));
+        for (double q : new double[] { 0.5, 0.9, 0.99 }) {
+            long exact = (long) (q * 1_000_000);
+            long percentile = histogram.percentile(q);
+            assertTrue(percentile >= exact && percentile <= exact * 9 / 8, q + ": " + percentile);
+        }
+    }
+
+    @Test void stagesCountersAndFailuresEndUpInTheReport() {
+        PipelineMetrics metrics = new PipelineMetrics();
+        List<String> written = new ArrayList<>();
+        try (Stream<String> rows = metrics.timed(Stage.READ, Stream.of("a", "b", "c"))) {
+            rows.forEach(metrics.completing(written::add));
+        }
+        assertEquals(List.of("a", "b", "c"), written);
+        assertEquals(3, metrics.histogram(Stage.READ).count());
+        assertEquals(3, metrics.getCompleted());
+
+        metrics.record(Stage.PARSE, metrics.start());
+        metrics.unparsable();
+        metrics.built();
+        metrics.failed(new UnsupportedOperationException());
+        metrics.failed(new UnsupportedOperationException());
+        metrics.failed(new IllegalStateException());
+        assertEquals(Map.of("java.lang.IllegalStateException", 1L, "java.lang.UnsupportedOperationException", 2L),
+                metrics.getFailures());
+        assertEquals(3, metrics.getFailed());
+
+        String json = metrics.toJson("2");
+        assertTrue(json.contains("\"codeStates\": { \"completed\": 3, \"unparsable\": 1, "), json);
+        assertTrue(json.contains("\"graphs\": { \"built\": 1, \"failed\": 3 }"), json);
+        assertTrue(json.contains("\"java.lang.UnsupportedOperationException\": 2"), json);
+        assertTrue(json.contains("\"read\": { \"count\": 3, "), json);
+        assertTrue(json.contains("\"cfgBuild\": { \"count\": 0, "), json);
+        assertTrue(metrics.progressLine().startsWith("Progress: 3 code states in "), metrics.progressLine());
+    }
+}
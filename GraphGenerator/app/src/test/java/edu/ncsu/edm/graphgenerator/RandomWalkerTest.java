@@ -0,0 +1,69 @@
+package edu.ncsu.edm.graphgenerator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RandomWalkerTest {
+    // 1 -> 2 twice, and 3 -> 0 closes a triangle with 0 -> 1 -> 3
+    private static final RenderedGraph GRAPH = new RenderedGraph(
+            new String[] { "ENTRY", "a", "b", "c", "EXIT" },
+            new int[] { 0, 1, 1, 1, 1, 3, 2 },
+            new int[] { 1, 0, 2, 2, 3, 0, 4 },
+            new String[] { "", "", "true", "false", "", "", "" });
+
+    private static final int WALKS = 30_000;
+
+    /**
+     * @return how often each node followed 0 -> 1 in walks that started at node 0
+     */
+    private static double[] secondSteps(double p, double q) {
+        int[][] walks = new RandomWalker(GRAPH, p, q).walks(WALKS, 3, new SplittableRandom(7));
+        double[] counts = new double[GRAPH.numNodes()];
+        for (int[] walk : walks) {
+            if (walk[0] == 0) {
+                assertEquals(3, walk.length);
+                counts[walk[2]] += 1.0 / WALKS;
+            }
+        }
+        return counts;
+    }
+
+    @Test void walksFollowEdgesUntilTheyEnd() {
+        int[][] walks = new RandomWalker(GRAPH, 1, 1).walks(5, 10, new SplittableRandom(1));
+        assertEquals(5 * GRAPH.numNodes(), walks.length);
+        for (int[] walk : walks) {
+            assertTrue(walk.length == 10 || walk[walk.length - 1] == 4);
+            for (int step = 1; step < walk.length; step++) {
+                assertTrue(hasEdge(walk[step - 1], walk[step]), walk[step - 1] + " -> " + walk[step]);
+            }
+        }
+    }
+
+    @Test void unbiasedStepsCountParallelEdgesOnce() {
+        double[] counts = secondSteps(1, 1);
+        assertEquals(1 / 3.0, counts[0], 0.02);
+        assertEquals(1 / 3.0, counts[2], 0.02);
+        assertEquals(1 / 3.0, counts[3], 0.02);
+    }
+
+    @Test void biasedStepsWeighReturningAndLeaving() {
+        // After 0 -> 1, going back to 0 weighs 1/p = 2, going to 3, which has an edge to 0, weighs 1 and going to 2
+        // weighs 1/q = 0.5
+        double[] counts = secondSteps(0.5, 2);
+        assertEquals(4 / 7.0, counts[0], 0.02);
+        assertEquals(2 / 7.0, counts[3], 0.02);
+        assertEquals(1 / 7.0, counts[2], 0.02);
+    }
+
+    private static boolean hasEdge(int from, int to) {
+        for (int e = 0; e < GRAPH.numEdges(); e++) {
+            if (GRAPH.edgeSources()[e] == from && GRAPH.edgeTargets()[e] == to) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,93 @@
+package edu.ncsu.edm.graphgenerator;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import edu.ncsu.edm.graphgenerator.RejectWriter.Reject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RejectWriterTest {
+    private static final JavaParserProvider PARSER_PROVIDER = new JavaParserProvider();
+
+    @TempDir Path dir;
+
+    private static MethodDeclaration method(String body) {
+        return PARSER_PROVIDER.parse("public class MethodCompiler {\nvoid m() {\n" + body + "\n}\n}")
+                .findFirst(MethodDeclaration.class).orElseThrow();
+    }
+
+    @Test void failedMethodsNameTheConstructThatWasBeingConverted() {
+        MethodDeclaration md = method("int x = 1;\ntry {\nx++;\n} finally {\nx--;\n}");
+        List<Exception> exceptions = new ArrayList<>();
+        List<Node> constructs = new ArrayList<>();
+        assertNull(App.createGraph(md, (e, construct) -> {
+            exceptions.add(e);
+            constructs.add(construct);
+        }));
+        assertEquals(1, exceptions.size());
+        assertInstanceOf(UnsupportedOperationException.class, exceptions.get(0));
+        assertEquals("TryStmt", constructs.get(0).getClass().getSimpleName());
+
+        assertNotNull(App.createGraph(method("int x = 1;\nx++;"), (e, construct) -> fail(e)));
+    }
+
+    @Test void rowsAreWrittenAndCountedByConstructAndException() throws IOException {
+        MethodDeclaration md = method("int x = 1;\ntry {\nx++;\n} finally {\nx--;\n}");
+        Node tryStmt = md.getBody().orElseThrow().getStatement(1);
+        Node declaration = md.getBody().orElseThrow().getStatement(0);
+        StringWriter rows = new StringWriter();
+        Path stats = dir.resolve(RejectWriter.STATS_FILE_NAME);
+        RejectWriter rejects = new RejectWriter(rows, stats.toString(), 4);
+        rejects.reject("cs1", Reject.of(1, md, new UnsupportedOperationException("Try\n  statements"), tryStmt));
+        rejects.reject("cs1", Reject.of(2, md, new UnsupportedOperationException("x".repeat(500)), tryStmt));
+        rejects.reject("cs2", Reject.of(1, md, new IllegalStateException(), declaration));
+        rejects.reject("cs3", Reject.of(1, md, new IllegalStateException(), null));
+        rejects.close();
+        rejects.close();
+
+        List<String> lines = rows.toString().lines().toList();
+        assertEquals("\"CodeStateId\",\"MethodIndex\",\"Exception\",\"Message\",\"Construct\",\"Line\"", lines.get(0));
+        assertEquals("\"cs1\",\"1\",\"java.lang.UnsupportedOperationException\",\"Try statements\",\"TryStmt\",\"3\"",
+                lines.get(1));
+        assertTrue(lines.get(2).contains("\"" + "x".repeat(RejectWriter.MESSAGE_LIMIT - 3) + "...\""), lines.get(2));
+        assertEquals("\"cs2\",\"1\",\"java.lang.IllegalStateException\",\"\",\"ExpressionStmt\",\"2\"", lines.get(3));
+        assertEquals("\"cs3\",\"1\",\"java.lang.IllegalStateException\",\"\",\"\",\"\"", lines.get(4));
+        assertEquals(5, lines.size());
+
+        assertEquals(List.of(
+                new RejectWriter.Count("TryStmt", "java.lang.UnsupportedOperationException", 2),
+                new RejectWriter.Count("", "java.lang.IllegalStateException", 1),
+                new RejectWriter.Count("ExpressionStmt", "java.lang.IllegalStateException", 1)), rejects.getCounts());
+        assertEquals(List.of(
+                "\"Construct\",\"Exception\",\"Count\"",
+                "\"TryStmt\",\"java.lang.UnsupportedOperationException\",\"2\"",
+                "\"\",\"java.lang.IllegalStateException\",\"1\"",
+                "\"ExpressionStmt\",\"java.lang.IllegalStateException\",\"1\""), Files.readAllLines(stats));
+
+        assertThrows(IllegalStateException.class,
+                () -> rejects.reject("cs4", Reject.of(1, md, new IllegalStateException(), null)));
+    }
+
+    @Test void aFullQueueWaitsInsteadOfDroppingRows() throws IOException {
+        MethodDeclaration md = method("int x = 1;");
+        StringWriter rows = new StringWriter();
+        RejectWriter rejects = new RejectWriter(rows, dir.resolve(RejectWriter.STATS_FILE_NAME).toString(), 1);
+        for (int i = 0; i < 1000; i++) {
+            rejects.reject("cs" + i, Reject.of(1, md, new IllegalStateException(), null));
+        }
+        rejects.close();
+
+        List<String> lines = rows.toString().lines().toList();
+        assertEquals(1001, lines.size());
+        assertTrue(lines.get(1000).startsWith("\"cs999\","), lines.get(1000));
+    }
+}
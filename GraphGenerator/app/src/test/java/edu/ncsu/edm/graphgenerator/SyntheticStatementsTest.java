@@ -0,0 +1,73 @@
+package edu.ncsu.edm.graphgenerator;
+
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.stmt.ForEachStmt;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SyntheticStatementsTest {
+    private static final JavaParserProvider PARSER_PROVIDER = new JavaParserProvider();
+    private static final SyntheticStatements SYNTHETIC = new SyntheticStatements(PARSER_PROVIDER);
+
+    private static List<ForEachStmt> loops() {
+        return PARSER_PROVIDER.parse("""
+                public class MethodCompiler {
+                    public void loops(int[][] grid, String s, List<String> words) {
+                        for (int[] row : grid) {}
+                        for (int cell[] : grid) {}
+                        for (char c : s) {}
+                        for (final String w : words) {}
+                        for (String w : this.words) {}
+                        for (char c : s.toCharArray()) {}
+                        for (int i : grid[0]) {}
+                        for (@Deprecated String w : words) {}
+                    }
+
+                    public void var(List<String> words) {
+                        for (var w : words) {}
+                    }
+                }
+                """).findAll(ForEachStmt.class);
+    }
+
+    @Test void statementsAreBuiltAsTheyWouldBeParsed() {
+        for (ForEachStmt loop : loops().subList(0, 8)) {
+            VariableDeclarator variable = loop.getVariable().getVariable(0);
+            String name = variable.getNameAsString();
+            Expression iterable = loop.getIterable();
+            String message = loop.getVariable() + " : " + iterable;
+
+            assertEquals(PARSER_PROVIDER.parseStatement(variable.getTypeAsString() + " " + name + ";"),
+                    SYNTHETIC.declareVariable(variable.getType(), name), message);
+            assertEquals(PARSER_PROVIDER.parseStatement("int index3 = 0;"), SYNTHETIC.declareIndex("index3"));
+            assertEquals(PARSER_PROVIDER.parseStatement(name + " = " + iterable + "[index3];"),
+                    SYNTHETIC.assignElement(name, iterable, "index3", false), message);
+            assertEquals(PARSER_PROVIDER.parseStatement(name + " = " + iterable + ".get(index3);"),
+                    SYNTHETIC.assignElement(name, iterable, "index3", true), message);
+            assertEquals(PARSER_PROVIDER.parseStatement("index3++;"), SYNTHETIC.increment("index3"));
+            assertEquals(PARSER_PROVIDER.parseExpression("index3 < " + iterable + ".length"),
+                    SYNTHETIC.indexInBounds("index3", iterable, false), message);
+            assertEquals(PARSER_PROVIDER.parseExpression("index3 < " + iterable + ".length()"),
+                    SYNTHETIC.indexInBounds("index3", iterable, true), message);
+            assertEquals(PARSER_PROVIDER.parseStatement("Iterator<java.util.Map.Entry> iterator1 = " + iterable
+                            + ".iterator();"),
+                    SYNTHETIC.declareIterator("java.util.Map.Entry", "iterator1", iterable), message);
+            assertEquals(PARSER_PROVIDER.parseStatement(name + " = iterator1.next();"),
+                    SYNTHETIC.assignNext(name, "iterator1"));
+            assertEquals(PARSER_PROVIDER.parseExpression("iterator1.hasNext()"), SYNTHETIC.hasNext("iterator1"));
+        }
+    }
+
+    @Test void codeThatDoesNotParseStillFails() {
+        List<ForEachStmt> loops = loops();
+        VariableDeclarator var = loops.get(8).getVariable().getVariable(0);
+        assertThrows(ParseProblemException.class, () -> SYNTHETIC.declareVariable(var.getType(), var.getNameAsString()));
+        assertThrows(ParseProblemException.class,
+                () -> SYNTHETIC.declareIterator("not a type", "iterator0", loops.get(0).getIterable()));
+    }
+}
@@ -0,0 +1,54 @@
+package edu.ncsu.edm.graphgenerator;
+
+import com.github.javaparser.ast.body.MethodDeclaration;
+import org.javatuples.Pair;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import edu.ncsu.edm.graphgenerator.CanonicalLabelPrinter.Canonicalization;
+import edu.ncsu.edm.graphgenerator.WalkCorpusWriter.WalkedCodeState;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WalkCorpusWriterTest {
+    private static final JavaParserProvider PARSER_PROVIDER = new JavaParserProvider();
+
+    @TempDir Path dir;
+
+    private static FrozenGraph graph(String body) {
+        MethodDeclaration md = PARSER_PROVIDER.parse("public class MethodCompiler {\nvoid m() {\n" + body + "\n}\n}")
+                .findFirst(MethodDeclaration.class).orElseThrow();
+        return App.createGraph(md);
+    }
+
+    // A node that can't be labelled
+    private static final FrozenGraph UNRENDERABLE = new FrozenGraph(
+            new FlowNode[] { null }, new int[] { 0, 0 }, new int[0], new byte[0], new int[0]);
+
+    @Test void aGraphThatFailsToRenderIsRejectedAndKeepsItsPosition() throws IOException {
+        FrozenGraph first = graph("int x = 0;\nwhile (x < 10) {\nx++;\n}");
+        FrozenGraph second = graph("int y = 1;\nif (y > 0) {\ny--;\n} else {\ny++;\n}");
+        WalkOptions options = WalkOptions.parse(List.of("--walks", "3", "--length", "6", dir.toString()));
+        try (WalkCorpusWriter corpora = new WalkCorpusWriter(new String[] { dir.resolve("none").toString() },
+                new Canonicalization[] { Canonicalization.NONE }, options)) {
+            WalkedCodeState walked = corpora.walk("cs1",
+                    Stream.of(Pair.with(1, first), Pair.with(2, second)), reject -> fail(reject.toString()));
+
+            List<RejectWriter.Reject> rejected = new ArrayList<>();
+            WalkedCodeState withFailure = corpora.walk("cs1",
+                    Stream.of(Pair.with(1, UNRENDERABLE), Pair.with(3, second)), rejected::add);
+
+            assertEquals(1, rejected.size());
+            assertEquals(1, rejected.get(0).methodIndex());
+            assertEquals(NullPointerException.class.getName(), rejected.get(0).exception());
+            assertEquals(1, withFailure.graphs().size());
+            assertArrayEquals(walked.graphs().get(1).walks(), withFailure.graphs().get(0).walks());
+        }
+    }
+}
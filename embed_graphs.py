@@ -3,9 +3,16 @@ from pathlib import Path
 import networkx as nx
 import pandas as pd
 import os
+from concurrent.futures import ProcessPoolExecutor
 import numpy as np
 from embed_methods.ge import DeepWalk
 from embed_methods.ge import Node2Vec
+from gensim.models import Word2Vec
+from gensim.models.word2vec import LineSentence
+
+# The walk corpora GraphGenerator's walk subcommand writes by default, with whether each model trains with
+# hierarchical softmax like the DeepWalk and Node2Vec classes do
+WALK_CORPORA = [('deepwalk', 1), ('node2vec', 0)]
 
 def get_models(strategy, graph):
   return [
@@ -34,21 +41,43 @@ def get_models(strategy, graph):
   ]
 
 
+def read_graph_csvs(graph_dir: Path, strategy: str, kind: str):
+  # Sharded output lists its files in a manifest; every code state is in one shard, so they load independently
+  manifest_file = graph_dir / f'{strategy}Manifest.csv'
+  if not manifest_file.exists():
+    return pd.read_csv(graph_dir / f'{strategy}{kind}.csv.gz')
+  manifest = pd.read_csv(manifest_file)
+  files = [graph_dir / f for f in manifest['File'] if f.startswith(f'{strategy}{kind}-')]
+  with ProcessPoolExecutor() as pool:
+    return pd.concat(pool.map(pd.read_csv, files), ignore_index=True)
+
+def train_from_walks(graph_dir: Path, strategy: str, corpus: str, hs: int, embed_size: int):
+  # The walks are label ids, which the strategy's WalkLabels.csv maps back to the labels in the Nodes CSV
+  walks = LineSentence(str(graph_dir / f'{strategy}{corpus}Walks.txt.gz'))
+  model = Word2Vec(sentences=walks, vector_size=embed_size, window=5, epochs=3, min_count=0, sg=1, hs=hs, workers=3)
+  labels = pd.read_csv(graph_dir / f'{strategy}WalkLabels.csv')
+  return {label: model.wv[str(i)] for i, label in zip(labels.LabelId, labels.Label) if str(i) in model.wv}
+
+def train_in_python(strategy: str, graph_dir: Path, nodes, embed_size: int):
+  edges = read_graph_csvs(graph_dir, strategy, 'Edges')
+  graph = load_graphs(nodes, edges)
+  for filename, model in get_models(strategy, graph):
+    model.train(window_size=5, iter=3, embed_size=embed_size)
+    yield filename, model.get_embeddings()
+
 def train_models(strategy: str, embed_size: int):
-  node_file_name = f'{strategy}Nodes.csv'
-  edge_file_name = f'{strategy}Edges.csv'
   data_dir = Path.cwd() / 'data'
   graph_dir = data_dir / 'Graphs'
   vector_dir = data_dir / 'Vectors'
   vector_dir.mkdir(parents=True, exist_ok=True)
-  nodes = pd.read_csv(graph_dir / node_file_name)
-  edges = pd.read_csv(graph_dir / edge_file_name)
-  graph = load_graphs(nodes, edges)
-  models = get_models(strategy, graph)
+  nodes = read_graph_csvs(graph_dir, strategy, 'Nodes')
+  if all((graph_dir / f'{strategy}{corpus}Walks.txt.gz').exists() for corpus, _ in WALK_CORPORA):
+    trained = ((f'{strategy}{corpus}.csv', train_from_walks(graph_dir, strategy, corpus, hs, embed_size))
+               for corpus, hs in WALK_CORPORA)
+  else:
+    trained = train_in_python(strategy, graph_dir, nodes, embed_size)
 
-  for filename, model in models:
-    model.train(window_size=5, iter=3, embed_size=embed_size)
-    embeddings = model.get_embeddings()
+  for filename, embeddings in trained:
     embed_data = []
     ids = []
     code_id = ''
@@ -1,7 +1,7 @@
 #!/bin/bash
-if [[ -f data/Graphs/GraphGenerator/Nodes.csv ]]; then
+if [[ -d data/Graphs ]]; then
     rm -rf data/Graphs/
 fi
 
 mkdir -p data/Graphs
-unzip data_zipped/graphs.zip -d data/Graphs
+cp data_zipped/Graphs/* data/Graphs